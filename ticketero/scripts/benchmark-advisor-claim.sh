@@ -0,0 +1,161 @@
+#!/bin/bash
+# =============================================================================
+# TICKETERO - Benchmark: contención al reclamar asesores (pgbench)
+# =============================================================================
+# Compara dos formas de reclamar un asesor disponible para una cola:
+#   1. for-update:  SELECT ... FOR UPDATE sobre TODOS los asesores disponibles
+#                   de la cola (comportamiento anterior)
+#   2. skip-locked: SELECT ... LIMIT 1 FOR UPDATE SKIP LOCKED
+#                   (AdvisorRepository.claimAvailableForQueue)
+# con concurrencia creciente de workers (por defecto 3 → 50).
+#
+# Cada transacción simula a un worker: reclama un asesor, lo marca BUSY,
+# mantiene el lock HOLD_MS (trabajo de asignación) y hace commit; luego lo
+# libera en una segunda transacción. Se mide sobre una tabla bench_advisor
+# con el mismo esquema que advisor (no toca los asesores reales).
+#
+# Requisitos: PostgreSQL corriendo (docker compose up -d postgres) con las
+#             migraciones aplicadas (V13+) y pgbench/psql en el PATH.
+#
+# Usage: ./scripts/benchmark-advisor-claim.sh [duracion_s] [concurrencias]
+#   duracion_s:    segundos por medición (default: 20)
+#   concurrencias: lista de workers (default: "3 5 10 20 50")
+#
+# Variables opcionales: PGHOST (localhost), PGPORT (5432), PGDATABASE (ticketero),
+#                       PGUSER (dev), PGPASSWORD (dev123),
+#                       ADVISORS (asesores en la cola, 20), HOLD_MS (5)
+# =============================================================================
+
+DURATION=${1:-20}
+CONCURRENCIES=${2:-"3 5 10 20 50"}
+ADVISORS=${ADVISORS:-20}
+HOLD_MS=${HOLD_MS:-5}
+
+export PGHOST=${PGHOST:-localhost}
+export PGPORT=${PGPORT:-5432}
+export PGDATABASE=${PGDATABASE:-ticketero}
+export PGUSER=${PGUSER:-dev}
+export PGPASSWORD=${PGPASSWORD:-dev123}
+
+RESULTS_DIR=$(mktemp -d)
+
+# Colors
+GREEN='\033[0;32m'
+YELLOW='\033[1;33m'
+CYAN='\033[0;36m'
+NC='\033[0m'
+
+for cmd in pgbench psql; do
+    if ! command -v $cmd > /dev/null; then
+        echo -e "${YELLOW}ERROR: '$cmd' no está instalado (paquete postgresql-client)${NC}"
+        exit 1
+    fi
+done
+
+if ! psql -qtAc "SELECT 1" > /dev/null 2>&1; then
+    echo -e "${YELLOW}ERROR: No se pudo conectar a PostgreSQL en ${PGHOST}:${PGPORT}/${PGDATABASE}${NC}"
+    exit 1
+fi
+
+echo -e "${CYAN}╔══════════════════════════════════════════════════════════════╗${NC}"
+echo -e "${CYAN}║      TICKETERO - BENCHMARK RECLAMO DE ASESORES (pgbench)     ║${NC}"
+echo -e "${CYAN}╚══════════════════════════════════════════════════════════════╝${NC}"
+echo ""
+echo -e "  Duración por medición: ${YELLOW}${DURATION}s${NC}"
+echo -e "  Workers: ${YELLOW}${CONCURRENCIES}${NC}"
+echo -e "  Asesores en la cola: ${YELLOW}${ADVISORS}${NC}, lock retenido: ${YELLOW}${HOLD_MS} ms${NC}"
+echo ""
+
+# -----------------------------------------------------------------------------
+# Scripts de pgbench (cola CAJA = bit 1)
+# -----------------------------------------------------------------------------
+cat > "$RESULTS_DIR/for-update.sql" <<'SQL'
+BEGIN;
+SELECT count(*) FROM (
+    SELECT id FROM bench_advisor
+    WHERE status = 'AVAILABLE' AND (queue_mask & 1) <> 0
+    ORDER BY total_tickets_served
+    FOR UPDATE
+) bloqueados;
+SELECT coalesce((
+    SELECT id FROM bench_advisor
+    WHERE status = 'AVAILABLE' AND (queue_mask & 1) <> 0
+    ORDER BY total_tickets_served
+    LIMIT 1
+), 0) AS advisor_id \gset
+UPDATE bench_advisor SET status = 'BUSY' WHERE id = :advisor_id;
+\sleep :hold_ms ms
+COMMIT;
+UPDATE bench_advisor SET status = 'AVAILABLE', total_tickets_served = total_tickets_served + 1
+WHERE id = :advisor_id;
+SQL
+
+cat > "$RESULTS_DIR/skip-locked.sql" <<'SQL'
+BEGIN;
+SELECT coalesce((
+    SELECT id FROM bench_advisor
+    WHERE status = 'AVAILABLE' AND (queue_mask & 1) <> 0
+    ORDER BY total_tickets_served
+    LIMIT 1
+    FOR UPDATE SKIP LOCKED
+), 0) AS advisor_id \gset
+UPDATE bench_advisor SET status = 'BUSY' WHERE id = :advisor_id;
+\sleep :hold_ms ms
+COMMIT;
+UPDATE bench_advisor SET status = 'AVAILABLE', total_tickets_served = total_tickets_served + 1
+WHERE id = :advisor_id;
+SQL
+
+# -----------------------------------------------------------------------------
+# Prepara bench_advisor con ADVISORS asesores disponibles para CAJA
+# -----------------------------------------------------------------------------
+reset_advisors() {
+    psql -q > /dev/null <<SQL
+DROP TABLE IF EXISTS bench_advisor;
+CREATE TABLE bench_advisor (LIKE advisor INCLUDING DEFAULTS INCLUDING CONSTRAINTS);
+ALTER TABLE bench_advisor ADD PRIMARY KEY (id);
+CREATE INDEX ON bench_advisor(total_tickets_served) WHERE status = 'AVAILABLE';
+INSERT INTO bench_advisor (id, name, email, module_number, queue_mask, status, total_tickets_served)
+SELECT g, 'Bench ' || g, 'bench' || g || '@bench.local', g, 1, 'AVAILABLE', 0
+FROM generate_series(1, ${ADVISORS}) g;
+SQL
+}
+
+claims() {
+    psql -qtAc "SELECT coalesce(sum(total_tickets_served), 0) FROM bench_advisor"
+}
+
+# -----------------------------------------------------------------------------
+# Ejecuta una medición: $1 = estrategia, $2 = workers
+# -----------------------------------------------------------------------------
+run_case() {
+    local strategy=$1
+    local clients=$2
+    local threads=$(( clients < 8 ? clients : 8 ))
+    local report="$RESULTS_DIR/${strategy}-${clients}.txt"
+
+    reset_advisors
+    pgbench -n -c "$clients" -j "$threads" -T "$DURATION" -D hold_ms="$HOLD_MS" \
+        -f "$RESULTS_DIR/$strategy.sql" > "$report" 2>&1
+
+    local claimed=$(claims)
+    local tps=$(awk '/^tps = / {printf "%.1f", $3}' "$report")
+    local lat=$(awk '/^latency average = / {printf "%.2f", $4}' "$report")
+    local claims_s=$(awk -v c="$claimed" -v d="$DURATION" 'BEGIN {printf "%.1f", c / d}')
+
+    printf "  %-8s %-12s %12s %14s %16s\n" "$clients" "$strategy" "${tps:-error}" "$claims_s" "${lat:-error}"
+}
+
+printf "  %-8s %-12s %12s %14s %16s\n" "Workers" "Estrategia" "tx/s" "reclamos/s" "latencia (ms)"
+echo -e "${CYAN}────────────────────────────────────────────────────────────────${NC}"
+for clients in $CONCURRENCIES; do
+    run_case "for-update" "$clients"
+    run_case "skip-locked" "$clients"
+done
+
+psql -qc "DROP TABLE IF EXISTS bench_advisor" > /dev/null
+
+echo ""
+echo -e "  ${GREEN}✓${NC} Reportes de pgbench en: ${YELLOW}${RESULTS_DIR}${NC}"
+echo -e "${CYAN}Nota: reclamos/s cuenta solo transacciones que obtuvieron asesor;${NC}"
+echo -e "${CYAN}      con skip-locked, las que no encuentran uno libre terminan sin esperar.${NC}"
@@ -0,0 +1,121 @@
+#!/bin/bash
+# =============================================================================
+# TICKETERO - Benchmark: threads de plataforma vs virtual threads
+# =============================================================================
+# Levanta la aplicación dos veces con el mismo JAR y la misma carga:
+#   1. Threads de plataforma (spring.threads.virtual.enabled=false)
+#   2. Virtual threads (perfil vthreads)
+# y compara throughput (req/s) y latencia p50/p99 de POST /api/tickets.
+#
+# Requisitos: PostgreSQL y RabbitMQ corriendo (docker compose up -d postgres rabbitmq),
+#             JAR construido (mvn -DskipTests package) y `hey` instalado
+#             (https://github.com/rakyll/hey).
+#
+# Usage: ./scripts/benchmark-threads.sh [duracion] [concurrencia]
+#   duracion:     duración de cada medición (default: 30s)
+#   concurrencia: clientes concurrentes (default: 200)
+#
+# Variables opcionales: PORT (8080), BASE_PROFILES (perfiles comunes, ej: prod),
+#                       JAVA_OPTS (ej: -Djdk.tracePinnedThreads=short)
+# =============================================================================
+
+DURATION=${1:-30s}
+CONCURRENCY=${2:-200}
+PORT=${PORT:-8080}
+BASE_PROFILES=${BASE_PROFILES:-}
+
+SCRIPT_DIR="$(cd "$(dirname "$0")" && pwd)"
+PROJECT_DIR="$(dirname "$SCRIPT_DIR")"
+JAR=$(ls "$PROJECT_DIR"/target/ticketero-*.jar 2>/dev/null | grep -v plain | head -1)
+RESULTS_DIR=$(mktemp -d)
+
+API_URL="http://localhost:${PORT}/api/tickets"
+BODY='{"nationalId":"12345678","telefono":"56900000001","branchOffice":"Sucursal Benchmark","queueType":"CAJA"}'
+
+# Colors
+GREEN='\033[0;32m'
+YELLOW='\033[1;33m'
+CYAN='\033[0;36m'
+NC='\033[0m'
+
+if ! command -v hey > /dev/null; then
+    echo -e "${YELLOW}ERROR: 'hey' no está instalado (go install github.com/rakyll/hey@latest)${NC}"
+    exit 1
+fi
+
+if [ -z "$JAR" ]; then
+    echo -e "${YELLOW}ERROR: JAR no encontrado. Ejecuta: mvn -DskipTests package${NC}"
+    exit 1
+fi
+
+echo -e "${CYAN}╔══════════════════════════════════════════════════════════════╗${NC}"
+echo -e "${CYAN}║       TICKETERO - BENCHMARK PLATAFORMA vs VIRTUAL THREADS    ║${NC}"
+echo -e "${CYAN}╚══════════════════════════════════════════════════════════════╝${NC}"
+echo ""
+echo -e "  Duración por modo: ${YELLOW}${DURATION}${NC}"
+echo -e "  Concurrencia: ${YELLOW}${CONCURRENCY}${NC}"
+echo -e "  JAR: ${YELLOW}$(basename "$JAR")${NC}"
+echo ""
+
+# -----------------------------------------------------------------------------
+# Ejecuta un modo: arranca la app, calienta, mide y la detiene
+# $1 = nombre del modo, $2 = perfiles, $3 = virtual threads (true/false)
+# -----------------------------------------------------------------------------
+run_mode() {
+    local mode=$1
+    local profiles=$2
+    local virtual=$3
+    local log_file="$RESULTS_DIR/$mode.log"
+
+    echo -e "${CYAN}────────────────────────────────────────────────────────────────${NC}"
+    echo -e "  Modo: ${YELLOW}${mode}${NC} (perfiles: ${profiles:-default})"
+
+    java $JAVA_OPTS -jar "$JAR" \
+        --server.port="$PORT" \
+        --spring.profiles.active="$profiles" \
+        --spring.threads.virtual.enabled="$virtual" > "$log_file" 2>&1 &
+    local pid=$!
+
+    # Esperar health UP (máx 90 segundos)
+    for _ in $(seq 1 90); do
+        if curl -s "http://localhost:${PORT}/actuator/health" | grep -q "UP"; then
+            break
+        fi
+        if ! kill -0 $pid 2>/dev/null; then
+            echo -e "  ${YELLOW}✗ La aplicación terminó al iniciar. Log: ${log_file}${NC}"
+            return 1
+        fi
+        sleep 1
+    done
+
+    echo -e "  Calentando (JIT, pool de conexiones)..."
+    hey -z 10s -c "$CONCURRENCY" -m POST -T "application/json" -d "$BODY" "$API_URL" > /dev/null
+
+    echo -e "  Midiendo..."
+    hey -z "$DURATION" -c "$CONCURRENCY" -m POST -T "application/json" -d "$BODY" "$API_URL" \
+        > "$RESULTS_DIR/$mode.txt"
+
+    kill $pid
+    wait $pid 2>/dev/null
+
+    echo -e "  ${GREEN}✓${NC} Completado"
+}
+
+# Extrae métricas del reporte de hey
+metric_rps()  { awk '/Requests\/sec:/ {printf "%.1f", $2}' "$RESULTS_DIR/$1.txt"; }
+metric_pct()  { awk -v p="$2%" '$1 == p {printf "%.1f", $3 * 1000}' "$RESULTS_DIR/$1.txt"; }
+metric_errs() { awk '/Status code distribution/ {f=1; next} f && /\[/ && $1 !~ /\[2/ {e += $2} END {print e + 0}' "$RESULTS_DIR/$1.txt"; }
+
+run_mode "plataforma" "$BASE_PROFILES" "false" || exit 1
+run_mode "virtual" "${BASE_PROFILES:+$BASE_PROFILES,}vthreads" "true" || exit 1
+
+echo ""
+echo -e "${CYAN}────────────────────────────────────────────────────────────────${NC}"
+printf "  %-12s %12s %12s %12s %10s\n" "Modo" "req/s" "p50 (ms)" "p99 (ms)" "errores"
+for mode in plataforma virtual; do
+    printf "  %-12s %12s %12s %12s %10s\n" "$mode" \
+        "$(metric_rps $mode)" "$(metric_pct $mode 50)" "$(metric_pct $mode 99)" "$(metric_errs $mode)"
+done
+echo ""
+echo -e "  Reportes completos y logs en: ${YELLOW}${RESULTS_DIR}${NC}"
+echo -e "${CYAN}Nota: con virtual threads el límite real es el pool de Hikari (maximum-pool-size)${NC}"
@@ -0,0 +1,53 @@
+package com.example.ticketero.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Executor dedicado para la entrega de notificaciones.
+ *
+ * Acotado en threads y en cola: NotificationDispatcher solo reclama tantas
+ * intenciones como capacidad libre tenga, por lo que el rechazo es un caso
+ * de borde (la intención vuelve a PENDING y se reintenta en el siguiente ciclo).
+ */
+@Configuration
+@Slf4j
+public class NotificationExecutorConfig {
+
+    @Value("${app.notifications.dispatcher.pool-size:4}")
+    private int poolSize;
+
+    @Value("${app.notifications.dispatcher.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Bean(name = "notificationExecutor")
+    public ThreadPoolTaskExecutor notificationExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("notif-");
+        if (virtualThreads) {
+            // Mismo límite de concurrencia, pero el bloqueo en HTTP no ocupa threads de plataforma
+            executor.setThreadFactory(Thread.ofVirtual().name("notif-", 0).factory());
+        }
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        // Shutdown: terminar entregas en curso; las no iniciadas quedan en PROCESSING
+        // y se recuperan por timeout en la siguiente instancia
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(15);
+        executor.initialize();
+
+        log.info("Executor de notificaciones: {} threads{}, cola {}",
+            poolSize, virtualThreads ? " virtuales" : "", queueCapacity);
+        return executor;
+    }
+}
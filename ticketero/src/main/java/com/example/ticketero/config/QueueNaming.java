@@ -0,0 +1,61 @@
+package com.example.ticketero.config;
+
+import com.example.ticketero.model.enums.QueueType;
+
+/**
+ * Nombres de las colas de RabbitMQ de tickets.
+ *
+ * En ticketero-exchange (Direct) cada cola se enlaza con su propio nombre
+ * como routing key, así que el nombre de la cola es también su routing key.
+ *
+ * - Cola de trabajo: {tipo}-queue (ej: caja-queue)
+ * - Sub-colas (shards > 1): {tipo}-queue.{n} para n = 1..shards-1; la sub-cola 0
+ *   es la cola de trabajo, así que pasar de 1 a N shards no deja mensajes huérfanos
+ * - Reintentos: {cola}.retry.{tier}
+ * - Parking lot: {cola}.parking-lot
+ */
+public final class QueueNaming {
+
+    private QueueNaming() {
+    }
+
+    /**
+     * Cola de trabajo de un tipo de cola (sub-cola 0).
+     */
+    public static String cola(QueueType queueType) {
+        return queueType.name().toLowerCase() + "-queue";
+    }
+
+    /**
+     * Sub-cola {@code indice} de un tipo de cola.
+     */
+    public static String shard(QueueType queueType, int indice) {
+        return indice == 0 ? cola(queueType) : cola(queueType) + "." + indice;
+    }
+
+    /**
+     * Sub-cola de un ticket: por sucursal (los tickets de una sucursal mantienen
+     * su orden dentro de la sub-cola) o, sin sucursal, por id del ticket.
+     */
+    public static String shardDeTicket(QueueType queueType, int shards, String branchOffice, Long ticketId) {
+        if (shards <= 1) {
+            return cola(queueType);
+        }
+        int hash = branchOffice != null ? branchOffice.hashCode() : Long.hashCode(ticketId);
+        return shard(queueType, Math.floorMod(hash, shards));
+    }
+
+    /**
+     * Cola (y routing key) del tier de reintento {@code tier} de una cola de trabajo.
+     */
+    public static String colaReintento(String cola, int tier) {
+        return cola + ".retry." + tier;
+    }
+
+    /**
+     * Cola (y routing key) de parking lot de una cola de trabajo.
+     */
+    public static String colaParkingLot(String cola) {
+        return cola + ".parking-lot";
+    }
+}
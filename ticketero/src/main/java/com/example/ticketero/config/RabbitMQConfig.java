@@ -1,24 +1,39 @@
 package com.example.ticketero.config;
 
+import com.example.ticketero.repository.QueueConfigRepository;
+import com.example.ticketero.service.QueueConfigCache;
+import org.springframework.amqp.core.AnonymousQueue;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
 import org.springframework.amqp.core.DirectExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Configuración de RabbitMQ para gestión de colas de tickets
  * 
  * Arquitectura:
  * - 1 Exchange (ticketero-exchange) tipo Direct
- * - 4 Queues (una por tipo de cola: Caja, Personal, Empresas, Gerencia)
- * - Bindings con routing keys
+ * - 1 Queue por tipo de cola configurado en queue_config (o N sub-colas si
+ *   queue_config.shards > 1), enlazada con su nombre como routing key (ver QueueNaming)
+ * - Por cada cola: N colas de reintento (TTL + dead-letter de vuelta a la cola)
+ *   y 1 parking lot para mensajes que agotaron los reintentos
+ * - 1 Queue anónima por instancia para invalidar QueueConfigCache
  * - JSON Message Converter
  */
 @Configuration
@@ -27,6 +42,9 @@ public class RabbitMQConfig {
     @Value("${app.rabbitmq.exchange}")
     private String exchangeName;
 
+    @Value("${app.rabbitmq.retry.delays-ms:1000,5000,25000}")
+    private long[] retryDelaysMs;
+
     // ============================================================
     // EXCHANGE
     // ============================================================
@@ -41,87 +59,114 @@ public class RabbitMQConfig {
     }
 
     // ============================================================
-    // QUEUES - Una por tipo de cola
+    // COLAS DE TICKETS - Generadas desde queue_config
     // ============================================================
 
     /**
-     * Cola para tickets de Caja
+     * Colas de tickets por tipo (y sus sub-colas), leídas de queue_config al arrancar.
      */
     @Bean
-    public Queue cajaQueue() {
-        return new Queue("caja-queue", true); // durable = true
+    public TicketQueueTopology ticketQueueTopology(QueueConfigRepository queueConfigRepository) {
+        return new TicketQueueTopology(queueConfigRepository.findAll());
     }
 
     /**
-     * Cola para tickets de Banca Personal
+     * Por cada cola de trabajo (y sub-cola): la cola durable, su binding
+     * (routing key = nombre de la cola), sus tiers de reintento y su parking lot.
      */
     @Bean
-    public Queue personalQueue() {
-        return new Queue("personal-queue", true);
+    public Declarables ticketQueues(TicketQueueTopology ticketQueueTopology) {
+        List<String> colas = ticketQueueTopology.todasLasColas();
+        List<Declarable> declarables = new ArrayList<>();
+        for (String cola : colas) {
+            Queue queue = new Queue(cola, true);
+            declarables.add(queue);
+            declarables.add(new Binding(cola, Binding.DestinationType.QUEUE, exchangeName, cola, null));
+        }
+        declarables.addAll(topologiaReintentos(exchangeName, colas, retryDelaysMs).getDeclarables());
+        return new Declarables(declarables);
     }
 
     /**
-     * Cola para tickets de Banca Empresas
+     * Declara, por cada cola de trabajo:
+     * - {cola}.retry.{n}: sin consumidores; el mensaje expira a los delays[n] ms
+     *   y vuelve a la cola de trabajo por dead-letter (mismo exchange, routing key = cola)
+     * - {cola}.parking-lot: mensajes que agotaron los reintentos (revisión manual)
+     *
+     * Todas se enlazan al exchange con su propio nombre como routing key.
      */
-    @Bean
-    public Queue empresasQueue() {
-        return new Queue("empresas-queue", true);
-    }
-
-    /**
-     * Cola para tickets de Gerencia
-     */
-    @Bean
-    public Queue gerenciaQueue() {
-        return new Queue("gerencia-queue", true);
+    public static Declarables topologiaReintentos(String exchange, List<String> colas, long[] delaysMs) {
+        List<Declarable> declarables = new ArrayList<>();
+        for (String cola : colas) {
+            for (int tier = 0; tier < delaysMs.length; tier++) {
+                Queue reintento = QueueBuilder.durable(QueueNaming.colaReintento(cola, tier))
+                    .ttl((int) delaysMs[tier])
+                    .deadLetterExchange(exchange)
+                    .deadLetterRoutingKey(cola)
+                    .build();
+                declarables.add(reintento);
+                declarables.add(new Binding(reintento.getName(), Binding.DestinationType.QUEUE,
+                    exchange, reintento.getName(), null));
+            }
+
+            Queue parkingLot = QueueBuilder.durable(QueueNaming.colaParkingLot(cola)).build();
+            declarables.add(parkingLot);
+            declarables.add(new Binding(parkingLot.getName(), Binding.DestinationType.QUEUE,
+                exchange, parkingLot.getName(), null));
+        }
+        return new Declarables(declarables);
     }
 
     // ============================================================
-    // BINDINGS - Conectan Exchange con Queues
+    // WORKER EN MODO BATCH
     // ============================================================
 
     /**
-     * Binding: Exchange → caja-queue
+     * Container factory de TicketWorker con app.rabbitmq.batch.size > 1.
+     * Parte de la configuración de spring.rabbitmq.listener.simple y entrega
+     * al listener hasta batch.size mensajes juntos (o los que lleguen dentro de
+     * receive-timeout-ms). El prefetch nunca es menor que el lote.
      */
     @Bean
-    public Binding cajaBinding(Queue cajaQueue, DirectExchange ticketeroExchange) {
-        return BindingBuilder
-            .bind(cajaQueue)
-            .to(ticketeroExchange)
-            .with("caja-queue");
+    public SimpleRabbitListenerContainerFactory ticketBatchContainerFactory(
+        SimpleRabbitListenerContainerFactoryConfigurer configurer,
+        ConnectionFactory connectionFactory,
+        @Value("${app.rabbitmq.batch.size:1}") int batchSize,
+        @Value("${app.rabbitmq.batch.receive-timeout-ms:100}") long receiveTimeoutMs,
+        @Value("${spring.rabbitmq.listener.simple.prefetch:250}") int prefetch
+    ) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(receiveTimeoutMs);
+        factory.setPrefetchCount(Math.max(prefetch, batchSize));
+        return factory;
     }
 
-    /**
-     * Binding: Exchange → personal-queue
-     */
-    @Bean
-    public Binding personalBinding(Queue personalQueue, DirectExchange ticketeroExchange) {
-        return BindingBuilder
-            .bind(personalQueue)
-            .to(ticketeroExchange)
-            .with("personal-queue");
-    }
+    // ============================================================
+    // INVALIDACIÓN DE CONFIGURACIÓN - Una cola anónima por instancia
+    // ============================================================
 
     /**
-     * Binding: Exchange → empresas-queue
+     * Cola exclusiva y auto-delete de esta instancia
      */
     @Bean
-    public Binding empresasBinding(Queue empresasQueue, DirectExchange ticketeroExchange) {
-        return BindingBuilder
-            .bind(empresasQueue)
-            .to(ticketeroExchange)
-            .with("empresas-queue");
+    public AnonymousQueue queueConfigInvalidationQueue() {
+        return new AnonymousQueue();
     }
 
     /**
-     * Binding: Exchange → gerencia-queue
+     * Binding: Exchange → cola anónima (queue-config.invalidate)
      */
     @Bean
-    public Binding gerenciaBinding(Queue gerenciaQueue, DirectExchange ticketeroExchange) {
+    public Binding queueConfigInvalidationBinding(AnonymousQueue queueConfigInvalidationQueue,
+                                                  DirectExchange ticketeroExchange) {
         return BindingBuilder
-            .bind(gerenciaQueue)
+            .bind(queueConfigInvalidationQueue)
             .to(ticketeroExchange)
-            .with("gerencia-queue");
+            .with(QueueConfigCache.ROUTING_KEY_INVALIDACION);
     }
 
     // ============================================================
@@ -141,6 +186,7 @@ public class RabbitMQConfig {
      * Usado para publicar mensajes
      */
     @Bean
+    @Primary
     public RabbitTemplate rabbitTemplate(
         ConnectionFactory connectionFactory,
         MessageConverter jsonMessageConverter
@@ -149,4 +195,23 @@ public class RabbitMQConfig {
         rabbitTemplate.setMessageConverter(jsonMessageConverter);
         return rabbitTemplate;
     }
+
+    /**
+     * RabbitTemplate con confirms: outbox (OutboxPublisherService) y reenvíos
+     * a reintento / parking lot de TicketWorker.
+     * - Conexión de publicación propia: no comparte socket ni canales con los consumidores
+     * - Publisher confirms correlacionados (spring.rabbitmq.publisher-confirm-type)
+     * - mandatory: un mensaje sin binding vuelve como returned y no cuenta como enviado
+     */
+    @Bean
+    public RabbitTemplate outboxRabbitTemplate(
+        ConnectionFactory connectionFactory,
+        MessageConverter jsonMessageConverter
+    ) {
+        RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
+        rabbitTemplate.setMessageConverter(jsonMessageConverter);
+        rabbitTemplate.setUsePublisherConnection(true);
+        rabbitTemplate.setMandatory(true);
+        return rabbitTemplate;
+    }
 }
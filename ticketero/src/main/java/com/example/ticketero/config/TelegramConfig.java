@@ -3,6 +3,7 @@ package com.example.ticketero.config;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
@@ -17,9 +18,22 @@ public class TelegramConfig {
     @Value("${telegram.chat-id}")
     private String chatId;
 
+    @Value("${telegram.connect-timeout-ms:3000}")
+    private int connectTimeoutMs;
+
+    @Value("${telegram.read-timeout-ms:10000}")
+    private int readTimeoutMs;
+
+    /**
+     * Timeouts acotados: un Telegram lento no debe ocupar indefinidamente
+     * los threads del executor de notificaciones.
+     */
     @Bean
     public RestTemplate restTemplate() {
-        return new RestTemplate();
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMs);
+        requestFactory.setReadTimeout(readTimeoutMs);
+        return new RestTemplate(requestFactory);
     }
 
     public String getBotToken() {
@@ -0,0 +1,81 @@
+package com.example.ticketero.config;
+
+import com.example.ticketero.model.entity.QueueConfig;
+import com.example.ticketero.model.enums.QueueType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Colas de RabbitMQ de tickets según queue_config, fijadas al arrancar.
+ *
+ * Se declaran colas para todos los tipos configurados (activos o no): un ticket
+ * de una cola desactivada queda en RabbitMQ en vez de perderse por falta de
+ * binding. Los listeners de las colas inactivas no consumen (ver TicketWorker
+ * y WorkerCapacityController).
+ *
+ * La cantidad de sub-colas no cambia en runtime: publicadores y listeners
+ * deben ver siempre las mismas colas. Cambiar queue_config.shards requiere reiniciar.
+ */
+public class TicketQueueTopology {
+
+    private final Map<QueueType, List<String>> colas;
+    private final Map<QueueType, Boolean> activas;
+
+    public TicketQueueTopology(List<QueueConfig> configuraciones) {
+        Map<QueueType, List<String>> colasPorTipo = new EnumMap<>(QueueType.class);
+        Map<QueueType, Boolean> activasPorTipo = new EnumMap<>(QueueType.class);
+
+        for (QueueConfig config : configuraciones) {
+            int shards = Math.max(1, config.getShards() != null ? config.getShards() : 1);
+            List<String> shardsDelTipo = new ArrayList<>(shards);
+            for (int i = 0; i < shards; i++) {
+                shardsDelTipo.add(QueueNaming.shard(config.getQueueType(), i));
+            }
+            colasPorTipo.put(config.getQueueType(), List.copyOf(shardsDelTipo));
+            activasPorTipo.put(config.getQueueType(), Boolean.TRUE.equals(config.getIsActive()));
+        }
+
+        this.colas = Collections.unmodifiableMap(colasPorTipo);
+        this.activas = Collections.unmodifiableMap(activasPorTipo);
+    }
+
+    /**
+     * Tipos de cola con colas declaradas.
+     */
+    public Set<QueueType> tipos() {
+        return colas.keySet();
+    }
+
+    /**
+     * Sub-colas de un tipo de cola (la primera es la cola de trabajo).
+     */
+    public List<String> colas(QueueType queueType) {
+        return colas.getOrDefault(queueType, List.of(QueueNaming.cola(queueType)));
+    }
+
+    /**
+     * Todas las colas de trabajo y sub-colas declaradas.
+     */
+    public List<String> todasLasColas() {
+        return colas.values().stream().flatMap(List::stream).toList();
+    }
+
+    /**
+     * Si la cola estaba activa al arrancar.
+     */
+    public boolean activaAlIniciar(QueueType queueType) {
+        return activas.getOrDefault(queueType, false);
+    }
+
+    /**
+     * Routing key (sub-cola) con la que se publica un ticket.
+     */
+    public String routingKey(QueueType queueType, String branchOffice, Long ticketId) {
+        return QueueNaming.shardDeTicket(queueType, colas(queueType).size(), branchOffice, ticketId);
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.ticketero.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.Properties;
+
+/**
+ * Verificación de arranque para el modo virtual threads (spring.threads.virtual.enabled=true).
+ *
+ * Un virtual thread que bloquea en I/O dentro de un bloque synchronized queda
+ * "pinned" a su carrier: con pocos carriers (= núcleos) el sistema entero se detiene.
+ * - pgjdbc < 42.6 hace la I/O del socket dentro de synchronized → se rechaza el arranque
+ * - HikariCP desde 5.0.1 solo usa synchronized en secciones cortas sin I/O (tracking
+ *   de statements, inicialización del pool); una versión anterior, o una cuya versión
+ *   no se puede determinar, se rechaza igual que pgjdbc
+ *
+ * Con fail-on-pinning-risk=false los rechazos se registran como error y la app arranca.
+ *
+ * Para auditar pinning en runtime: -Djdk.tracePinnedThreads=short
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+@RequiredArgsConstructor
+@Slf4j
+public class VirtualThreadsGuard {
+
+    private final DataSource dataSource;
+
+    @Value("${app.virtual-threads.min-pgjdbc-version:42.6.0}")
+    private String minPgjdbcVersion;
+
+    @Value("${app.virtual-threads.min-hikaricp-version:5.0.1}")
+    private String minHikariVersion;
+
+    @Value("${app.virtual-threads.fail-on-pinning-risk:true}")
+    private boolean failOnPinningRisk;
+
+    @PostConstruct
+    public void verificar() {
+        String driverVersion = obtenerVersionDriver();
+        String hikariVersion = obtenerVersionHikari();
+
+        if (compararVersiones(driverVersion, minPgjdbcVersion) < 0) {
+            rechazar(String.format(
+                "Virtual threads habilitados con pgjdbc %s: versiones anteriores a %s bloquean " +
+                "en synchronized durante la I/O y fijan (pin) los carrier threads. " +
+                "Actualizar el driver o deshabilitar spring.threads.virtual.enabled",
+                driverVersion, minPgjdbcVersion));
+        }
+
+        if (hikariVersion == null || compararVersiones(hikariVersion, minHikariVersion) < 0) {
+            rechazar(String.format(
+                "Virtual threads habilitados con HikariCP %s: no se verificó que versiones " +
+                "anteriores a %s estén libres de I/O dentro de synchronized. " +
+                "Actualizar HikariCP o deshabilitar spring.threads.virtual.enabled",
+                hikariVersion != null ? hikariVersion : "(versión desconocida)", minHikariVersion));
+        }
+
+        log.info("Modo virtual threads: pgjdbc {}, HikariCP {}, pool máximo {} conexiones",
+            driverVersion,
+            hikariVersion,
+            dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : -1);
+        log.info("Con virtual threads la concurrencia ya no la limita el pool de Tomcat: " +
+            "el pool de Hikari (connection-timeout) pasa a ser la contrapresión");
+
+        if (System.getProperty("jdk.tracePinnedThreads") == null) {
+            log.info("Para detectar pinning en runtime iniciar con -Djdk.tracePinnedThreads=short");
+        }
+    }
+
+    private void rechazar(String mensaje) {
+        if (failOnPinningRisk) {
+            throw new IllegalStateException(mensaje);
+        }
+        log.error(mensaje);
+    }
+
+    /**
+     * Versión de HikariCP: el jar no publica Implementation-Version en su manifest,
+     * así que se lee de los metadatos de Maven empaquetados en el jar.
+     */
+    private String obtenerVersionHikari() {
+        try (InputStream in = HikariDataSource.class.getResourceAsStream(
+                "/META-INF/maven/com.zaxxer/HikariCP/pom.properties")) {
+            if (in != null) {
+                Properties properties = new Properties();
+                properties.load(in);
+                String version = properties.getProperty("version");
+                if (version != null) {
+                    return version;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("No se pudieron leer los metadatos de HikariCP: {}", e.getMessage());
+        }
+        return HikariDataSource.class.getPackage().getImplementationVersion();
+    }
+
+    private String obtenerVersionDriver() {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            return metaData.getDriverVersion();
+        } catch (SQLException e) {
+            throw new IllegalStateException("No se pudo obtener la versión del driver JDBC", e);
+        }
+    }
+
+    /**
+     * Compara versiones numéricas "42.6.2" (ignora sufijos como "-SNAPSHOT" o ".jre7").
+     */
+    static int compararVersiones(String a, String b) {
+        String[] partesA = a.split("[.-]");
+        String[] partesB = b.split("[.-]");
+        int largo = Math.max(partesA.length, partesB.length);
+
+        for (int i = 0; i < largo; i++) {
+            int numA = i < partesA.length ? parsear(partesA[i]) : 0;
+            int numB = i < partesB.length ? parsear(partesB[i]) : 0;
+            if (numA != numB) {
+                return Integer.compare(numA, numB);
+            }
+        }
+        return 0;
+    }
+
+    private static int parsear(String parte) {
+        try {
+            return Integer.parseInt(parte);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
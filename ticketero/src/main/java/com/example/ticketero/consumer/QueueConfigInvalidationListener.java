@@ -0,0 +1,28 @@
+package com.example.ticketero.consumer;
+
+import com.example.ticketero.service.QueueConfigCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recibe las invalidaciones de configuración de colas publicadas por cualquier
+ * instancia (incluida esta) y recarga QueueConfigCache.
+ *
+ * Cada instancia consume de su propia cola anónima (exclusiva, auto-delete)
+ * ligada a queue-config.invalidate, así que todas reciben cada invalidación.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class QueueConfigInvalidationListener {
+
+    private final QueueConfigCache queueConfigCache;
+
+    @RabbitListener(queues = "#{queueConfigInvalidationQueue.name}", ackMode = "AUTO", concurrency = "1")
+    public void alInvalidar(String queueType) {
+        log.info("Invalidación de configuración recibida para {}", queueType);
+        queueConfigCache.recargar();
+    }
+}
@@ -1,105 +1,276 @@
 package com.example.ticketero.consumer;
 
+import com.example.ticketero.config.QueueNaming;
+import com.example.ticketero.config.TicketQueueTopology;
 import com.example.ticketero.exception.NoAdvisorAvailableException;
 import com.example.ticketero.model.dto.TicketQueueMessage;
 import com.example.ticketero.model.enums.QueueType;
+import com.example.ticketero.service.AdvisorPullDispatcher;
 import com.example.ticketero.service.TicketProcessingService;
 import com.rabbitmq.client.Channel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.rabbit.annotation.RabbitListenerConfigurer;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.MethodRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistrar;
 import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
 import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.support.DefaultMessageHandlerMethodFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
 
 import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Worker que consume tickets de las colas de RabbitMQ con Manual ACK.
  *
+ * Un listener container por tipo de cola de queue_config (id worker-{tipo}),
+ * registrado por código sobre todas sus sub-colas (ver TicketQueueTopology).
+ * Con app.rabbitmq.batch.size > 1 cada entrega es un lote (ver procesarLote).
+ *
  * REFACTORIZADO: Ahora usa TicketProcessingService para procesar
- * tickets en UNA SOLA TRANSACCIÓN, eliminando problemas de
- * inconsistencia entre TX fragmentadas.
+ * tickets en TX cortas con transiciones de estado condicionales
+ * (llamar, iniciar); el completado lo programa CompletionScheduler,
+ * así que la atención no retiene el thread del listener ni conexión de BD.
  *
  * Garantías:
- * - ACK solo después de completar TODO el procesamiento
- * - NACK + requeue si falla cualquier parte del flujo
- * - Backoff exponencial cuando no hay advisors disponibles
+ * - ACK solo después de que la atención quede en curso (IN_PROGRESS persistido)
+ * - Reintentos diferidos sin bloquear el thread: si no hay advisors o falla el
+ *   flujo, el mensaje se re-publica en el tier de reintento que corresponde
+ *   (TTL exponencial, vuelve a la cola por dead-letter) y se hace ACK solo
+ *   después del publisher confirm del reenvío (ack y enrutado, plantilla
+ *   outboxRabbitTemplate con mandatory). Con nack, returned o sin confirm en
+ *   app.rabbitmq.retry.confirm-timeout-ms, el original vuelve a la cola (NACK + requeue)
+ * - Tras app.rabbitmq.retry.max-attempts errores, el mensaje va al parking lot.
+ *   Solo cuentan los errores (header x-ticketero-errores): esperar asesor no
+ *   consume intentos, así que un ticket que esperó no se estaciona en su primer error
  * - Idempotencia: tickets ya procesados se ignoran
  *
  * Configuración en application.yml:
- * - concurrency: 3 (workers paralelos)
- * - prefetch: 1 (un mensaje a la vez por worker)
+ * - concurrency / prefetch: valores iniciales; WorkerCapacityController los ajusta
+ *   en runtime por cola (asesores activos y latencia medida)
  * - acknowledge-mode: manual
  */
 @Component
 @RequiredArgsConstructor
 @Slf4j
-public class TicketWorker {
+public class TicketWorker implements RabbitListenerConfigurer {
+
+    /**
+     * Header con la cantidad de reintentos del mensaje (por error o sin asesor).
+     */
+    static final String HEADER_INTENTOS = "x-ticketero-intentos";
+
+    /**
+     * Header con la cantidad de reintentos por error: define el tier y el parking lot.
+     */
+    static final String HEADER_ERRORES = "x-ticketero-errores";
 
     private final TicketProcessingService ticketProcessingService;
+    @Qualifier("outboxRabbitTemplate")
+    private final RabbitTemplate outboxRabbitTemplate;
+    private final WorkerCapacityController workerCapacityController;
+    private final TicketQueueTopology ticketQueueTopology;
+    private final AdvisorPullDispatcher pullDispatcher;
+    private final SimpleRabbitListenerContainerFactory ticketBatchContainerFactory;
+
+    @Value("${app.rabbitmq.exchange}")
+    private String exchangeName;
+
+    @Value("${app.rabbitmq.retry.delays-ms:1000,5000,25000}")
+    private long[] retryDelaysMs;
+
+    @Value("${app.rabbitmq.retry.max-attempts:5}")
+    private int maxAttempts;
+
+    /**
+     * Espera máxima de los publisher confirms de los reenvíos de una entrega.
+     */
+    @Value("${app.rabbitmq.retry.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    /**
+     * Mensajes por entrega; con más de 1 el worker procesa en lotes (ver procesarLote).
+     */
+    @Value("${app.rabbitmq.batch.size:1}")
+    private int batchSize;
 
     /**
-     * Worker para cola CAJA.
+     * Registra un listener container por tipo de cola configurado (ver TicketQueueTopology),
+     * que consume de todas sus sub-colas. Arranca solo en despacho push y si la cola
+     * estaba activa; WorkerCapacityController lo detiene o arranca si cambia is_active.
      */
-    @RabbitListener(queues = "caja-queue", ackMode = "MANUAL")
-    public void procesarTicketCaja(TicketQueueMessage message,
-                                    Channel channel,
-                                    @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) {
-        procesarTicketConAck(message, QueueType.CAJA, channel, deliveryTag);
+    @Override
+    public void configureRabbitListeners(RabbitListenerEndpointRegistrar registrar) {
+        DefaultMessageHandlerMethodFactory handlerMethodFactory = new DefaultMessageHandlerMethodFactory();
+        handlerMethodFactory.afterPropertiesSet();
+        boolean enLotes = batchSize > 1;
+        Method metodo = enLotes
+            ? ReflectionUtils.findMethod(TicketWorker.class, "procesarLote", List.class, Channel.class)
+            : ReflectionUtils.findMethod(TicketWorker.class, "procesarTicket",
+                TicketQueueMessage.class, Channel.class, long.class, String.class, Integer.class, Integer.class);
+
+        for (QueueType queueType : ticketQueueTopology.tipos()) {
+            MethodRabbitListenerEndpoint endpoint = new MethodRabbitListenerEndpoint();
+            endpoint.setId(listenerId(queueType));
+            endpoint.setQueueNames(ticketQueueTopology.colas(queueType).toArray(String[]::new));
+            endpoint.setBean(this);
+            endpoint.setMethod(metodo);
+            endpoint.setMessageHandlerMethodFactory(handlerMethodFactory);
+            endpoint.setAckMode(AcknowledgeMode.MANUAL);
+            endpoint.setAutoStartup(!pullDispatcher.isPull() && ticketQueueTopology.activaAlIniciar(queueType));
+            if (enLotes) {
+                endpoint.setBatchListener(true);
+                registrar.registerEndpoint(endpoint, ticketBatchContainerFactory);
+            } else {
+                registrar.registerEndpoint(endpoint);
+            }
+
+            log.info("[WORKER] Listener {} registrado en {}", endpoint.getId(), ticketQueueTopology.colas(queueType));
+        }
     }
 
     /**
-     * Worker para cola PERSONAL.
+     * Worker de todas las colas de tickets. El tipo de cola viene en el mensaje;
+     * la cola (o sub-cola) de origen define a qué tier de reintento vuelve.
      */
-    @RabbitListener(queues = "personal-queue", ackMode = "MANUAL")
-    public void procesarTicketPersonal(TicketQueueMessage message,
-                                        Channel channel,
-                                        @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) {
-        procesarTicketConAck(message, QueueType.PERSONAL, channel, deliveryTag);
+    public void procesarTicket(TicketQueueMessage message,
+                               Channel channel,
+                               @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag,
+                               @Header(AmqpHeaders.CONSUMER_QUEUE) String cola,
+                               @Header(name = HEADER_INTENTOS, required = false) Integer intentos,
+                               @Header(name = HEADER_ERRORES, required = false) Integer errores) {
+        procesarTicketConAck(message, message.queueType(), cola, channel, deliveryTag, intentos, errores);
+    }
+
+    /**
+     * Worker en modo batch (app.rabbitmq.batch.size > 1): recibe hasta batch.size
+     * mensajes de un consumidor y los procesa con una TX de llamado y una de inicio
+     * por cola del lote. Los tickets sin asesor (o los de una cola cuyo lote falló)
+     * se re-publican en su tier de reintento y luego un solo ACK con multiple=true
+     * confirma el lote completo.
+     */
+    public void procesarLote(List<Message<TicketQueueMessage>> mensajes, Channel channel) {
+        long inicio = System.currentTimeMillis();
+        long ultimoTag = 0;
+        Map<QueueType, List<Message<TicketQueueMessage>>> porCola = new EnumMap<>(QueueType.class);
+        for (Message<TicketQueueMessage> mensaje : mensajes) {
+            ultimoTag = Math.max(ultimoTag, mensaje.getHeaders().get(AmqpHeaders.DELIVERY_TAG, Long.class));
+            porCola.computeIfAbsent(mensaje.getPayload().queueType(), q -> new ArrayList<>()).add(mensaje);
+        }
+        log.info("[WORKER] Procesando lote de {} tickets de {}", mensajes.size(), porCola.keySet());
+
+        try {
+            List<CorrelationData> reenvios = new ArrayList<>();
+            for (Map.Entry<QueueType, List<Message<TicketQueueMessage>>> entrada : porCola.entrySet()) {
+                reenvios.addAll(procesarLoteDeCola(entrada.getKey(), entrada.getValue()));
+            }
+            esperarConfirms(reenvios);
+            channel.basicAck(ultimoTag, true);
+            log.info("[WORKER] ACK de lote enviado ({} mensajes)", mensajes.size());
+        } catch (Exception e) {
+            // Algún reintento sin publicar o sin confirm: devolver el lote completo a la cola.
+            // Al re-entregarse, los tickets ya en curso se reanudan o ignoran (idempotencia).
+            log.error("[WORKER] Error confirmando lote de {} mensajes: {}. Re-encolando...",
+                mensajes.size(), e.getMessage());
+            reencolarMensaje(channel, ultimoTag, true);
+        } finally {
+            long porMensaje = (System.currentTimeMillis() - inicio) / mensajes.size();
+            porCola.keySet().forEach(queueType -> workerCapacityController.registrarLatencia(queueType, porMensaje));
+        }
     }
 
     /**
-     * Worker para cola EMPRESAS.
+     * Procesa los mensajes de una cola del lote y re-publica los que deben reintentarse.
+     *
+     * @return confirms pendientes de los reenvíos
+     * @throws AmqpException si no se pudo re-publicar un reintento
      */
-    @RabbitListener(queues = "empresas-queue", ackMode = "MANUAL")
-    public void procesarTicketEmpresas(TicketQueueMessage message,
-                                        Channel channel,
-                                        @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) {
-        procesarTicketConAck(message, QueueType.EMPRESAS, channel, deliveryTag);
+    private List<CorrelationData> procesarLoteDeCola(QueueType queueType,
+                                                     List<Message<TicketQueueMessage>> mensajes) {
+        List<Long> ticketIds = mensajes.stream().map(m -> m.getPayload().ticketId()).toList();
+
+        Set<Long> aReintentar;
+        boolean esError = false;
+        try {
+            aReintentar = new HashSet<>(ticketProcessingService.procesarLote(queueType, ticketIds));
+            if (!aReintentar.isEmpty()) {
+                log.warn("[WORKER] No hay advisors para {} tickets de {}. Reintento diferido...",
+                    aReintentar.size(), queueType);
+            }
+        } catch (Exception e) {
+            log.error("[WORKER] Error procesando lote de {} ({} tickets): {}. Reintento diferido...",
+                queueType, ticketIds.size(), e.getMessage(), e);
+            aReintentar = new HashSet<>(ticketIds);
+            esError = true;
+        }
+
+        List<CorrelationData> reenvios = new ArrayList<>(aReintentar.size());
+        for (Message<TicketQueueMessage> mensaje : mensajes) {
+            if (aReintentar.contains(mensaje.getPayload().ticketId())) {
+                reenvios.add(publicarReintento(mensaje.getPayload(),
+                    mensaje.getHeaders().get(AmqpHeaders.CONSUMER_QUEUE, String.class),
+                    mensaje.getHeaders().get(HEADER_INTENTOS, Integer.class),
+                    mensaje.getHeaders().get(HEADER_ERRORES, Integer.class),
+                    esError));
+            }
+        }
+        return reenvios;
     }
 
     /**
-     * Worker para cola GERENCIA.
+     * Id del listener container de una cola (ver WorkerCapacityController).
      */
-    @RabbitListener(queues = "gerencia-queue", ackMode = "MANUAL")
-    public void procesarTicketGerencia(TicketQueueMessage message,
-                                        Channel channel,
-                                        @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) {
-        procesarTicketConAck(message, QueueType.GERENCIA, channel, deliveryTag);
+    public static String listenerId(QueueType queueType) {
+        return "worker-" + queueType.name().toLowerCase();
     }
 
     /**
      * Procesa un ticket con manejo de ACK/NACK.
      *
      * FLUJO SIMPLIFICADO:
-     * 1. Delegar a TicketProcessingService (TX única)
+     * 1. Delegar a TicketProcessingService (TX cortas por transición)
      * 2. Si éxito → ACK (mensaje eliminado de cola)
-     * 3. Si no hay advisors → backoff + NACK con requeue
-     * 4. Si otro error → NACK con requeue
+     * 3. Si no hay advisors → re-publicar en tier de reintento + ACK
+     * 4. Si otro error → re-publicar en tier de reintento (o parking lot) + ACK
      *
-     * ACK SOLO AL FINAL: El mensaje se elimina de RabbitMQ únicamente
-     * después de que TODA la transacción haya completado exitosamente.
+     * ACK al iniciar la atención: desde ahí el completado es durable
+     * (service_due_at en la BD, recargado al arrancar). Si se re-entrega
+     * a mitad, continúa desde el último estado confirmado.
      */
     private void procesarTicketConAck(TicketQueueMessage message,
                                        QueueType queueType,
+                                       String cola,
                                        Channel channel,
-                                       long deliveryTag) {
+                                       long deliveryTag,
+                                       Integer intentos,
+                                       Integer errores) {
         log.info("[WORKER] Procesando ticket: {} de cola: {}",
             message.numero(), queueType);
+        long inicio = System.currentTimeMillis();
 
         try {
-            // Procesar ticket COMPLETO en una sola transacción
+            // Llamar e iniciar atención (el completado queda programado)
             boolean exitoso = ticketProcessingService.procesarTicketCompleto(
                 message.ticketId(),
                 queueType
@@ -117,50 +288,114 @@ public class TicketWorker {
             }
 
         } catch (NoAdvisorAvailableException e) {
-            // No hay advisors → esperar y re-encolar
-            log.warn("[WORKER] No hay advisors para {} (ticket {}). Backoff...",
+            // No hay advisors → esperar en la cola de reintento (no es un error:
+            // no cuenta para el parking lot)
+            log.warn("[WORKER] No hay advisors para {} (ticket {}). Reintento diferido...",
                 queueType, message.numero());
-            aplicarBackoffYReencolar(channel, deliveryTag);
-
-        } catch (InterruptedException e) {
-            // Thread interrumpido (shutdown) → re-encolar
-            log.warn("[WORKER] Interrumpido procesando ticket: {}. Re-encolando...",
-                message.numero());
-            Thread.currentThread().interrupt();
-            reencolarMensaje(channel, deliveryTag);
+            reintentar(message, cola, channel, deliveryTag, intentos, errores, false);
 
         } catch (Exception e) {
-            // Error inesperado → re-encolar
-            log.error("[WORKER] Error procesando ticket {}: {}. Re-encolando...",
+            // Error inesperado → reintento diferido o parking lot
+            log.error("[WORKER] Error procesando ticket {}: {}. Reintento diferido...",
                 message.numero(), e.getMessage(), e);
-            reencolarMensaje(channel, deliveryTag);
+            reintentar(message, cola, channel, deliveryTag, intentos, errores, true);
+
+        } finally {
+            workerCapacityController.registrarLatencia(queueType, System.currentTimeMillis() - inicio);
         }
     }
 
     /**
-     * Aplica backoff antes de re-encolar.
-     * Evita loop infinito cuando no hay advisors.
+     * Re-publica el mensaje en su tier de reintento (o en el parking lot) y hace ACK
+     * al recibir el confirm del reenvío. El thread no espera el TTL: la espera
+     * la hace RabbitMQ.
      *
-     * Backoff fijo de 3 segundos para simplicidad.
-     * En producción, considerar backoff exponencial con headers.
+     * @param esError true si cuenta para el parking lot (false: sin advisors)
      */
-    private void aplicarBackoffYReencolar(Channel channel, long deliveryTag) {
+    private void reintentar(TicketQueueMessage message, String cola, Channel channel,
+                            long deliveryTag, Integer intentos, Integer errores, boolean esError) {
         try {
-            // Esperar antes de re-encolar
-            Thread.sleep(3000L);
-        } catch (InterruptedException ie) {
-            Thread.currentThread().interrupt();
-            log.warn("[WORKER] Backoff interrumpido");
+            esperarConfirms(List.of(publicarReintento(message, cola, intentos, errores, esError)));
+            channel.basicAck(deliveryTag, false);
+        } catch (Exception e) {
+            // Sin reenvío confirmado: devolver a la cola para no perder el mensaje
+            log.error("[WORKER] Error enviando ticket {} a reintento: {}. Re-encolando...",
+                message.numero(), e.getMessage());
+            reencolarMensaje(channel, deliveryTag, false);
+        }
+    }
+
+    /**
+     * Publica el mensaje en su tier de reintento, o en el parking lot si es un
+     * error que agotó app.rabbitmq.retry.max-attempts.
+     *
+     * El tier de un error sale de la cantidad de errores; el de una espera sin
+     * asesor, de la cantidad total de reintentos.
+     *
+     * @return confirm pendiente del reenvío (ver esperarConfirms)
+     * @throws AmqpException si no se pudo publicar
+     */
+    private CorrelationData publicarReintento(TicketQueueMessage message, String cola,
+                                   Integer intentos, Integer errores, boolean esError) {
+        int intento = (intentos != null ? intentos : 0) + 1;
+        int error = (errores != null ? errores : 0) + (esError ? 1 : 0);
+
+        String destino;
+        if (esError && error > maxAttempts) {
+            destino = QueueNaming.colaParkingLot(cola);
+        } else {
+            int escalon = esError ? error : intento;
+            destino = QueueNaming.colaReintento(cola, Math.min(escalon, retryDelaysMs.length) - 1);
+        }
+
+        CorrelationData correlationData = new CorrelationData(message.ticketId() + "-" + intento);
+        outboxRabbitTemplate.convertAndSend(exchangeName, destino, message, msg -> {
+            msg.getMessageProperties().setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+            msg.getMessageProperties().setHeader(HEADER_INTENTOS, intento);
+            msg.getMessageProperties().setHeader(HEADER_ERRORES, error);
+            return msg;
+        }, correlationData);
+        log.info("[WORKER] Ticket {} → {} (intento {}, errores {})", message.numero(), destino, intento, error);
+        return correlationData;
+    }
+
+    /**
+     * Espera el publisher confirm de cada reenvío (app.rabbitmq.retry.confirm-timeout-ms en total).
+     *
+     * @throws AmqpException si alguno fue nack, returned (sin ruta) o no confirmó a tiempo
+     */
+    private void esperarConfirms(List<CorrelationData> reenvios) {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMs);
+        for (CorrelationData correlationData : reenvios) {
+            CorrelationData.Confirm confirm;
+            try {
+                confirm = correlationData.getFuture()
+                    .get(Math.max(0, limite - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                throw new AmqpTimeoutException("Sin publisher confirm del reenvío en " + confirmTimeoutMs + " ms");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AmqpException("Interrumpido esperando publisher confirm del reenvío", e);
+            } catch (ExecutionException e) {
+                throw new AmqpException("Error esperando publisher confirm del reenvío", e.getCause());
+            }
+
+            if (!confirm.isAck()) {
+                throw new AmqpException("Nack de RabbitMQ para el reenvío: " + confirm.getReason());
+            }
+            if (correlationData.getReturned() != null) {
+                throw new AmqpException("Reenvío sin ruta en RabbitMQ: "
+                    + correlationData.getReturned().getReplyText());
+            }
         }
-        reencolarMensaje(channel, deliveryTag);
     }
 
     /**
-     * Re-encola un mensaje con NACK + requeue=true.
+     * Re-encola un mensaje (o, con multiple, todos hasta deliveryTag) con NACK + requeue=true.
      */
-    private void reencolarMensaje(Channel channel, long deliveryTag) {
+    private void reencolarMensaje(Channel channel, long deliveryTag, boolean multiple) {
         try {
-            channel.basicNack(deliveryTag, false, true);
+            channel.basicNack(deliveryTag, multiple, true);
             log.debug("[WORKER] Mensaje re-encolado (NACK con requeue)");
         } catch (IOException e) {
             log.error("[WORKER] Error re-encolando mensaje", e);
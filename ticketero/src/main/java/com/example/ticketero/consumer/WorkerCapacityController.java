@@ -0,0 +1,249 @@
+package com.example.ticketero.consumer;
+
+import com.example.ticketero.model.dto.QueueConfigSnapshot;
+import com.example.ticketero.model.enums.QueueType;
+import com.example.ticketero.service.AdvisorPullDispatcher;
+import com.example.ticketero.service.QueueConfigCache;
+import com.example.ticketero.service.WaitTimeEstimator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Ajusta en runtime los consumidores y el prefetch de cada TicketWorker.
+ *
+ * - Consumidores: uno por asesor activo (AVAILABLE o BUSY) de la cola, según
+ *   WaitTimeEstimator, repartidos entre app.rabbitmq.elastic.instancias instancias
+ *   de la aplicación (redondeo hacia arriba), entre 1 y app.rabbitmq.elastic.max-consumers.
+ *   GERENCIA con un asesor deja de tener los mismos consumidores que CAJA con veinte.
+ *   El conteo de asesores es global (BD), así que instancias debe reflejar cuántas
+ *   instancias consumen las colas.
+ * - Prefetch: mensajes suficientes para cubrir objetivo-buffer-ms de trabajo
+ *   según la latencia medida por mensaje (EWMA), entre 1 (o el tamaño del lote
+ *   con app.rabbitmq.batch.size) y max-prefetch.
+ *   Procesamiento lento → prefetch 1 (reparto justo); rápido → buffer mayor.
+ *
+ * El prefetch solo aplica a consumidores nuevos, así que cuando cambia al menos
+ * al doble (o a la mitad) se reinician los consumidores de esa cola; los mensajes
+ * sin ACK vuelven a la cola y el procesamiento es idempotente.
+ * También detiene el listener de una cola con is_active = false y lo vuelve a
+ * arrancar al reactivarla. Con despacho pull los listeners no corren y no se
+ * ajusta nada.
+ *
+ * Detener un container espera a que sus consumidores terminen (hasta su
+ * shutdown-timeout), así que los stop/start corren en un thread propio y no
+ * retienen el thread de @Scheduled que comparten los demás jobs. Mientras una
+ * cola tiene un reinicio pendiente, no se ajusta.
+ */
+@Component
+@Slf4j
+public class WorkerCapacityController {
+
+    /**
+     * Peso de la última medición en el EWMA de latencia.
+     */
+    private static final double ALPHA_LATENCIA = 0.2;
+
+    private final RabbitListenerEndpointRegistry registry;
+    private final WaitTimeEstimator waitTimeEstimator;
+    private final QueueConfigCache queueConfigCache;
+    private final AdvisorPullDispatcher pullDispatcher;
+
+    private final int maxConsumers;
+    private final int instancias;
+    private final double objetivoBufferMs;
+    private final int maxPrefetch;
+
+    /**
+     * Prefetch mínimo: en modo batch no puede ser menor que el lote.
+     */
+    private final int minPrefetch;
+
+    /**
+     * Latencia EWMA por cola en ms (NaN sin mediciones). Protegido por el lock de esta instancia.
+     */
+    private final Map<QueueType, Double> latenciaMs = new EnumMap<>(QueueType.class);
+
+    /**
+     * Consumidores y prefetch configurados por cola (solo los usa el thread de ajustar).
+     */
+    private final Map<QueueType, Integer> consumidores = new EnumMap<>(QueueType.class);
+    private final Map<QueueType, Integer> prefetch = new EnumMap<>(QueueType.class);
+
+    /**
+     * Thread de los stop/start de containers, y colas con uno pendiente.
+     */
+    private final ExecutorService reinicios =
+        Executors.newSingleThreadExecutor(Thread.ofPlatform().name("elastic-restart").factory());
+    private final Set<QueueType> reiniciando = ConcurrentHashMap.newKeySet();
+
+    public WorkerCapacityController(RabbitListenerEndpointRegistry registry,
+                                    WaitTimeEstimator waitTimeEstimator,
+                                    QueueConfigCache queueConfigCache,
+                                    AdvisorPullDispatcher pullDispatcher,
+                                    @Value("${app.rabbitmq.elastic.max-consumers:20}") int maxConsumers,
+                                    @Value("${app.rabbitmq.elastic.instancias:1}") int instancias,
+                                    @Value("${app.rabbitmq.elastic.objetivo-buffer-ms:200}") double objetivoBufferMs,
+                                    @Value("${app.rabbitmq.elastic.max-prefetch:20}") int maxPrefetch,
+                                    @Value("${spring.rabbitmq.listener.simple.concurrency:1}") int consumidoresIniciales,
+                                    @Value("${spring.rabbitmq.listener.simple.prefetch:250}") int prefetchInicial,
+                                    @Value("${app.rabbitmq.batch.size:1}") int batchSize) {
+        this.registry = registry;
+        this.waitTimeEstimator = waitTimeEstimator;
+        this.queueConfigCache = queueConfigCache;
+        this.pullDispatcher = pullDispatcher;
+        this.maxConsumers = maxConsumers;
+        this.instancias = Math.max(1, instancias);
+        this.objetivoBufferMs = objetivoBufferMs;
+        this.minPrefetch = Math.max(1, batchSize);
+        this.maxPrefetch = Math.max(maxPrefetch, minPrefetch);
+
+        for (QueueType queueType : QueueType.values()) {
+            latenciaMs.put(queueType, Double.NaN);
+            consumidores.put(queueType, consumidoresIniciales);
+            prefetch.put(queueType, Math.max(prefetchInicial, minPrefetch));
+        }
+    }
+
+    /**
+     * Registra cuánto tardó un worker en procesar un mensaje (hasta el ACK).
+     */
+    public synchronized void registrarLatencia(QueueType queueType, long ms) {
+        double anterior = latenciaMs.get(queueType);
+        latenciaMs.put(queueType, Double.isNaN(anterior)
+            ? ms
+            : ALPHA_LATENCIA * ms + (1 - ALPHA_LATENCIA) * anterior);
+    }
+
+    /**
+     * Ajusta consumidores y prefetch de los 4 workers.
+     */
+    @Scheduled(fixedDelayString = "${app.rabbitmq.elastic.intervalo-ms:10000}",
+               initialDelayString = "${app.rabbitmq.elastic.intervalo-ms:10000}")
+    public void ajustar() {
+        if (pullDispatcher.isPull()) {
+            return;
+        }
+
+        for (QueueType queueType : QueueType.values()) {
+            if (reiniciando.contains(queueType)) {
+                continue;
+            }
+            if (registry.getListenerContainer(TicketWorker.listenerId(queueType))
+                    instanceof SimpleMessageListenerContainer container
+                    && sincronizarActiva(queueType, container)) {
+                ajustarConsumidores(queueType, container);
+                ajustarPrefetch(queueType, container);
+            }
+        }
+    }
+
+    /**
+     * Detiene el listener de una cola desactivada (sus mensajes esperan en RabbitMQ)
+     * y arranca el de una cola reactivada.
+     *
+     * @return true si el listener queda corriendo
+     */
+    private boolean sincronizarActiva(QueueType queueType, SimpleMessageListenerContainer container) {
+        boolean activa = queueConfigCache.buscar(queueType).map(QueueConfigSnapshot::active).orElse(true);
+        if (activa && !container.isRunning()) {
+            enSegundoPlano(queueType, () -> {
+                container.start();
+                log.info("[ELASTIC] {}: cola activa, listener iniciado", queueType);
+            });
+            return false;
+        } else if (!activa && container.isRunning()) {
+            enSegundoPlano(queueType, () -> {
+                container.stop();
+                log.info("[ELASTIC] {}: cola inactiva, listener detenido", queueType);
+            });
+        }
+        return activa;
+    }
+
+    private void ajustarConsumidores(QueueType queueType, SimpleMessageListenerContainer container) {
+        int asesores = waitTimeEstimator.contarAsesoresActivos(queueType);
+        int porInstancia = (asesores + instancias - 1) / instancias;
+        int objetivo = Math.max(1, Math.min(maxConsumers, porInstancia));
+        int actual = consumidores.get(queueType);
+        if (objetivo == actual) {
+            return;
+        }
+
+        // concurrentConsumers <= maxConcurrentConsumers en todo momento
+        if (objetivo > actual) {
+            container.setMaxConcurrentConsumers(objetivo);
+            container.setConcurrentConsumers(objetivo);
+        } else {
+            container.setConcurrentConsumers(objetivo);
+            container.setMaxConcurrentConsumers(objetivo);
+        }
+        consumidores.put(queueType, objetivo);
+        log.info("[ELASTIC] {}: consumidores {} → {}", queueType, actual, objetivo);
+    }
+
+    private void ajustarPrefetch(QueueType queueType, SimpleMessageListenerContainer container) {
+        double latencia;
+        synchronized (this) {
+            latencia = latenciaMs.get(queueType);
+        }
+        if (Double.isNaN(latencia)) {
+            return;
+        }
+
+        int objetivo = (int) Math.max(minPrefetch, Math.min(maxPrefetch,
+            Math.round(objetivoBufferMs / Math.max(1.0, latencia))));
+        int actual = prefetch.get(queueType);
+        if (objetivo < actual * 2 && objetivo * 2 > actual) {
+            return;
+        }
+
+        container.setPrefetchCount(objetivo);
+        prefetch.put(queueType, objetivo);
+        enSegundoPlano(queueType, () -> {
+            container.stop();
+            container.start();
+            log.info("[ELASTIC] {}: prefetch {} → {} (latencia {} ms)",
+                queueType, actual, objetivo, Math.round(latencia));
+        });
+    }
+
+    /**
+     * Ejecuta un stop/start de container en el thread de reinicios; la cola no
+     * se vuelve a ajustar hasta que termine.
+     */
+    private void enSegundoPlano(QueueType queueType, Runnable reinicio) {
+        reiniciando.add(queueType);
+        try {
+            reinicios.execute(() -> {
+                try {
+                    reinicio.run();
+                } catch (Exception e) {
+                    log.error("[ELASTIC] {}: error reiniciando listener: {}", queueType, e.getMessage(), e);
+                } finally {
+                    reiniciando.remove(queueType);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Apagando la aplicación
+            reiniciando.remove(queueType);
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        reinicios.shutdownNow();
+    }
+}
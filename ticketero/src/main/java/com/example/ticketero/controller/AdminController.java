@@ -1,6 +1,10 @@
 package com.example.ticketero.controller;
 
+import com.example.ticketero.exception.TicketNotFoundException;
+import com.example.ticketero.model.dto.ActiveTicketResponse;
 import com.example.ticketero.model.dto.DashboardResponse;
+import com.example.ticketero.model.dto.QueueConfigSnapshot;
+import com.example.ticketero.model.dto.QueueConfigUpdateRequest;
 import com.example.ticketero.model.dto.QueueStatusResponse;
 import com.example.ticketero.model.entity.Advisor;
 import com.example.ticketero.model.entity.Ticket;
@@ -8,13 +12,16 @@ import com.example.ticketero.model.enums.AdvisorStatus;
 import com.example.ticketero.model.enums.QueueType;
 import com.example.ticketero.repository.TicketRepository;
 import com.example.ticketero.service.AdvisorService;
+import com.example.ticketero.service.LiveQueueIndex;
 import com.example.ticketero.service.QueueManagementService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -23,6 +30,7 @@ import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 import static com.example.ticketero.util.LogSanitizer.sanitize;
@@ -40,6 +48,7 @@ public class AdminController {
     private final QueueManagementService queueManagementService;
     private final AdvisorService advisorService;
     private final TicketRepository ticketRepository;
+    private final LiveQueueIndex liveQueueIndex;
 
     /**
      * Dashboard principal: estado general del sistema
@@ -50,11 +59,11 @@ public class AdminController {
     public ResponseEntity<DashboardResponse> getDashboard() {
         log.info("GET /api/admin/dashboard - Obteniendo estado del sistema");
         
-        // Obtener tickets por cola
-        Map<QueueType, List<Ticket>> ticketsPorCola = Arrays.stream(QueueType.values())
+        // Obtener tickets por cola (cola viva en memoria, sin BD)
+        Map<QueueType, List<ActiveTicketResponse>> ticketsPorCola = Arrays.stream(QueueType.values())
             .collect(Collectors.toMap(
                 qt -> qt,
-                qt -> ticketRepository.findActiveByQueue(qt)
+                liveQueueIndex::activos
             ));
         
         // Obtener estadísticas de asesores
@@ -80,7 +89,7 @@ public class AdminController {
     ) {
         log.info("GET /api/admin/queues/{} - Obteniendo estado de cola", queueType);
         
-        List<Ticket> activos = ticketRepository.findActiveByQueue(queueType);
+        List<ActiveTicketResponse> activos = liveQueueIndex.activos(queueType);
         
         QueueStatusResponse response = new QueueStatusResponse(
             queueType,
@@ -108,6 +117,33 @@ public class AdminController {
         return ResponseEntity.ok(stats);
     }
 
+    /**
+     * Configuración de una cola (desde memoria)
+     * 
+     * GET /api/admin/queues/{queueType}/config
+     */
+    @GetMapping("/queues/{queueType}/config")
+    public ResponseEntity<QueueConfigSnapshot> getQueueConfig(
+        @PathVariable QueueType queueType
+    ) {
+        return ResponseEntity.ok(queueManagementService.obtenerConfiguracion(queueType));
+    }
+
+    /**
+     * Actualiza la configuración de una cola y la invalida en todas las instancias
+     * 
+     * PUT /api/admin/queues/{queueType}/config
+     */
+    @PutMapping("/queues/{queueType}/config")
+    public ResponseEntity<QueueConfigSnapshot> updateQueueConfig(
+        @PathVariable QueueType queueType,
+        @Valid @RequestBody QueueConfigUpdateRequest request
+    ) {
+        log.info("PUT /api/admin/queues/{}/config - Actualizando configuración", queueType);
+        
+        return ResponseEntity.ok(queueManagementService.actualizarConfiguracion(queueType, request));
+    }
+
     /**
      * Lista todos los asesores activos
      * 
@@ -179,6 +215,23 @@ public class AdminController {
         return ResponseEntity.ok(tickets);
     }
 
+    /**
+     * Historial de posiciones de un ticket, reconstruido desde los avances de su cola
+     * 
+     * GET /api/admin/tickets/{codigoReferencia}/position-history
+     */
+    @GetMapping("/tickets/{codigoReferencia}/position-history")
+    public ResponseEntity<List<QueueManagementService.CambioPosicion>> getPositionHistory(
+        @PathVariable UUID codigoReferencia
+    ) {
+        log.info("GET /api/admin/tickets/{}/position-history - Reconstruyendo historial", codigoReferencia);
+        
+        Ticket ticket = ticketRepository.findByCodigoReferencia(codigoReferencia)
+            .orElseThrow(() -> new TicketNotFoundException(codigoReferencia));
+        
+        return ResponseEntity.ok(queueManagementService.reconstruirHistorialPosiciones(ticket));
+    }
+
     /**
      * Resumen ejecutivo del sistema
      * 
@@ -1,6 +1,8 @@
 package com.example.ticketero.controller;
 
 import com.example.ticketero.model.dto.QueuePositionResponse;
+import com.example.ticketero.model.dto.TicketBatchCreateRequest;
+import com.example.ticketero.model.dto.TicketBatchResponse;
 import com.example.ticketero.model.dto.TicketCreateRequest;
 import com.example.ticketero.model.dto.TicketResponse;
 import com.example.ticketero.service.TicketService;
@@ -55,6 +57,27 @@ public class TicketController {
             .body(response);
     }
 
+    /**
+     * Crea tickets en lote (carga de citas, reenvío de buffers de kiosco)
+     * Retorna resultado por item: 201 si todos se crearon, 207 si hubo rechazos
+     * 
+     * POST /api/tickets/batch
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<TicketBatchResponse> crearTicketsEnLote(
+        @Valid @RequestBody TicketBatchCreateRequest request
+    ) {
+        log.info("POST /api/tickets/batch - Creando lote de {} tickets", request.tickets().size());
+        
+        TicketBatchResponse response = ticketService.crearTicketsEnLote(request);
+        
+        HttpStatus status = response.rechazados() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+        
+        return ResponseEntity
+            .status(status)
+            .body(response);
+    }
+
     /**
      * Obtiene un ticket por su código de referencia
      * 
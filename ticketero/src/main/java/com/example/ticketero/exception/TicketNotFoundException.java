@@ -7,4 +7,8 @@ public class TicketNotFoundException extends RuntimeException {
     public TicketNotFoundException(UUID codigoReferencia) {
         super("Ticket no encontrado con código: " + codigoReferencia);
     }
+
+    public TicketNotFoundException(String numero) {
+        super("Ticket no encontrado con número: " + numero);
+    }
 }
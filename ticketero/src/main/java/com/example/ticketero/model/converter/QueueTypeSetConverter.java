@@ -0,0 +1,40 @@
+package com.example.ticketero.model.converter;
+
+import com.example.ticketero.model.enums.QueueType;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Convierte un conjunto de QueueType a la máscara de bits advisor.queue_mask
+ * (ver QueueType.getBit) y viceversa.
+ */
+@Converter
+public class QueueTypeSetConverter implements AttributeConverter<Set<QueueType>, Integer> {
+
+    @Override
+    public Integer convertToDatabaseColumn(Set<QueueType> queueTypes) {
+        int mask = 0;
+        if (queueTypes != null) {
+            for (QueueType queueType : queueTypes) {
+                mask |= queueType.getBit();
+            }
+        }
+        return mask;
+    }
+
+    @Override
+    public Set<QueueType> convertToEntityAttribute(Integer mask) {
+        EnumSet<QueueType> queueTypes = EnumSet.noneOf(QueueType.class);
+        if (mask != null) {
+            for (QueueType queueType : QueueType.values()) {
+                if ((mask & queueType.getBit()) != 0) {
+                    queueTypes.add(queueType);
+                }
+            }
+        }
+        return queueTypes;
+    }
+}
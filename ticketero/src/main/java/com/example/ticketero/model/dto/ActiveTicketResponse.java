@@ -0,0 +1,24 @@
+package com.example.ticketero.model.dto;
+
+import com.example.ticketero.model.enums.QueueType;
+import com.example.ticketero.model.enums.TicketStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Ticket activo (WAITING o CALLED) tal como lo mantiene LiveQueueIndex.
+ * positionInQueue es la posición actual para WAITING y null para CALLED.
+ */
+public record ActiveTicketResponse(
+    Long id,
+    String numero,
+    QueueType queueType,
+    TicketStatus status,
+    Long queueSeq,
+    Integer positionInQueue,
+    Integer assignedModuleNumber,
+    LocalDate serviceDate,
+    LocalDateTime createdAt,
+    LocalDateTime calledAt
+) {}
@@ -1,6 +1,5 @@
 package com.example.ticketero.model.dto;
 
-import com.example.ticketero.model.entity.Ticket;
 import com.example.ticketero.model.enums.QueueType;
 
 import java.time.LocalDateTime;
@@ -11,7 +10,7 @@ import java.util.Map;
  * Response del dashboard administrativo
  */
 public record DashboardResponse(
-    Map<QueueType, List<Ticket>> ticketsPorCola,
+    Map<QueueType, List<ActiveTicketResponse>> ticketsPorCola,
     Map<String, Object> estadisticasAsesores,
     LocalDateTime timestamp
 ) {}
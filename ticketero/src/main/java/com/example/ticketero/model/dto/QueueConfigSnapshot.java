@@ -0,0 +1,29 @@
+package com.example.ticketero.model.dto;
+
+import com.example.ticketero.model.entity.QueueConfig;
+import com.example.ticketero.model.enums.QueueType;
+
+/**
+ * Copia inmutable de QueueConfig tal como la mantiene QueueConfigCache.
+ */
+public record QueueConfigSnapshot(
+    QueueType queueType,
+    String displayName,
+    int avgServiceTimeMinutes,
+    int notificationThreshold,
+    int priority,
+    Integer maxQueueSize,
+    boolean active
+) {
+    public static QueueConfigSnapshot from(QueueConfig config) {
+        return new QueueConfigSnapshot(
+            config.getQueueType(),
+            config.getDisplayName(),
+            config.getAvgServiceTimeMinutes(),
+            config.getNotificationThreshold(),
+            config.getPriority(),
+            config.getMaxQueueSize(),
+            Boolean.TRUE.equals(config.getIsActive())
+        );
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.ticketero.model.dto;
+
+import jakarta.validation.constraints.Min;
+
+/**
+ * Request para actualizar la configuración de una cola.
+ * Los campos null no se modifican.
+ */
+public record QueueConfigUpdateRequest(
+    @Min(value = 1, message = "El tiempo de atención debe ser al menos 1 minuto")
+    Integer avgServiceTimeMinutes,
+
+    @Min(value = 1, message = "El umbral de notificación debe ser al menos 1")
+    Integer notificationThreshold,
+
+    @Min(value = 1, message = "La prioridad debe ser al menos 1")
+    Integer priority,
+
+    @Min(value = 1, message = "El tamaño máximo debe ser al menos 1")
+    Integer maxQueueSize,
+
+    Boolean isActive
+) {}
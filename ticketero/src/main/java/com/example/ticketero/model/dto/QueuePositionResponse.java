@@ -5,7 +5,9 @@ import com.example.ticketero.model.enums.QueueType;
 import java.util.List;
 
 /**
- * Response con información de posición en cola
+ * Response con información de posición en cola.
+ * ticketsAhead lista solo los primeros números desde el frente de la cola
+ * (app.tickets.posicion.max-numeros-adelante); el total está en ticketsAheadOfYou.
  */
 public record QueuePositionResponse(
     String numero,
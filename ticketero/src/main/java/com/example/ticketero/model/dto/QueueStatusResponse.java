@@ -1,6 +1,5 @@
 package com.example.ticketero.model.dto;
 
-import com.example.ticketero.model.entity.Ticket;
 import com.example.ticketero.model.enums.QueueType;
 
 import java.util.List;
@@ -11,5 +10,5 @@ import java.util.List;
 public record QueueStatusResponse(
     QueueType queueType,
     int totalActivos,
-    List<Ticket> tickets
+    List<ActiveTicketResponse> tickets
 ) {}
@@ -0,0 +1,16 @@
+package com.example.ticketero.model.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Request para crear tickets en lote (carga de citas, reenvío de buffers de kiosco).
+ * Cada item se valida por separado: un item inválido no rechaza el lote.
+ */
+public record TicketBatchCreateRequest(
+    @NotEmpty(message = "El lote debe contener al menos un ticket")
+    @Size(max = 1000, message = "El lote admite como máximo 1000 tickets")
+    List<TicketCreateRequest> tickets
+) {}
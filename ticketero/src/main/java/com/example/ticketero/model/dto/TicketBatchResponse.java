@@ -0,0 +1,32 @@
+package com.example.ticketero.model.dto;
+
+import java.util.List;
+
+/**
+ * Response de creación de tickets en lote.
+ * Los resultados mantienen el orden de los items del request.
+ */
+public record TicketBatchResponse(
+    int total,
+    int creados,
+    int rechazados,
+    List<ItemResult> resultados
+) {
+    /**
+     * Resultado de un item: ticket creado o error de validación.
+     */
+    public record ItemResult(
+        int index,
+        boolean creado,
+        TicketResponse ticket,
+        String error
+    ) {
+        public static ItemResult creado(int index, TicketResponse ticket) {
+            return new ItemResult(index, true, ticket, null);
+        }
+
+        public static ItemResult rechazado(int index, String error) {
+            return new ItemResult(index, false, null, error);
+        }
+    }
+}
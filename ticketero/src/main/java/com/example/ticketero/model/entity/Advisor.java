@@ -1,9 +1,10 @@
 package com.example.ticketero.model.entity;
 
+import com.example.ticketero.model.converter.QueueTypeSetConverter;
 import com.example.ticketero.model.enums.AdvisorStatus;
 import com.example.ticketero.model.enums.QueueType;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
@@ -11,18 +12,16 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
-import jakarta.persistence.Transient;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * Entidad que representa un asesor que atiende tickets
@@ -36,7 +35,8 @@ import java.util.stream.Collectors;
 public class Advisor {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "advisor_seq")
+    @SequenceGenerator(name = "advisor_seq", sequenceName = "advisor_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "name", nullable = false, length = 100)
@@ -49,10 +49,13 @@ public class Advisor {
     private Integer moduleNumber;
 
     /**
-     * JSON array de tipos de cola que puede atender: ["CAJA", "PERSONAL"]
+     * Tipos de cola que puede atender, persistidos como máscara de bits.
+     * Para modificarlos, asignar un conjunto nuevo con setQueueTypes.
      */
-    @Column(name = "queue_types", nullable = false, length = 200)
-    private String queueTypesJson;
+    @Convert(converter = QueueTypeSetConverter.class)
+    @Column(name = "queue_mask", nullable = false)
+    @Builder.Default
+    private Set<QueueType> queueTypes = EnumSet.noneOf(QueueType.class);
 
     @Enumerated(EnumType.STRING)
     @Column(name = "status", nullable = false, length = 20)
@@ -96,35 +99,4 @@ public class Advisor {
             this.status = AdvisorStatus.AVAILABLE;
         }
     }
-
-    /**
-     * Helper para obtener tipos de cola soportados
-     */
-    @Transient
-    public List<QueueType> getQueueTypes() {
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            String[] types = mapper.readValue(queueTypesJson, String[].class);
-            return Arrays.stream(types)
-                .map(QueueType::valueOf)
-                .collect(Collectors.toList());
-        } catch (Exception e) {
-            return new ArrayList<>();
-        }
-    }
-
-    /**
-     * Helper para setear tipos de cola soportados
-     */
-    @Transient
-    public void setQueueTypes(List<QueueType> types) {
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            this.queueTypesJson = mapper.writeValueAsString(
-                types.stream().map(Enum::name).toArray()
-            );
-        } catch (Exception e) {
-            this.queueTypesJson = "[]";
-        }
-    }
 }
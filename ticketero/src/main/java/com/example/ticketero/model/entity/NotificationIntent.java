@@ -0,0 +1,96 @@
+package com.example.ticketero.model.entity;
+
+import com.example.ticketero.model.enums.NotificationType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Intención de notificación pendiente de entrega.
+ *
+ * Flujo:
+ * 1. Se guarda en la misma TX que el evento de negocio (status=PENDING)
+ * 2. NotificationDispatcher la reclama (PROCESSING) y la entrega a Telegram
+ * 3. Si el envío es exitoso, marca como SENT
+ * 4. Si falla, reintenta con backoff hasta max_retries, luego FAILED
+ */
+@Entity
+@Table(name = "notification_intent")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationIntent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_intent_seq")
+    @SequenceGenerator(name = "notification_intent_seq", sequenceName = "notification_intent_id_seq", allocationSize = 50)
+    private Long id;
+
+    /**
+     * Ticket que originó la notificación.
+     */
+    @Column(name = "ticket_id")
+    private Long ticketId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "notification_type", nullable = false, length = 30)
+    private NotificationType notificationType;
+
+    @Column(name = "telefono", nullable = false, length = 20)
+    private String telefono;
+
+    /**
+     * Mensaje renderizado al momento del evento (HTML de Telegram).
+     */
+    @Column(name = "mensaje", nullable = false, columnDefinition = "TEXT")
+    private String mensaje;
+
+    /**
+     * Estado: PENDING, PROCESSING, SENT, FAILED.
+     */
+    @Column(name = "status", nullable = false, length = 20)
+    @Builder.Default
+    private String status = "PENDING";
+
+    @Column(name = "created_at", nullable = false)
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    /**
+     * Momento en que un dispatcher la reclamó para entrega.
+     */
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    @Column(name = "retry_count", nullable = false)
+    @Builder.Default
+    private Integer retryCount = 0;
+
+    @Column(name = "max_retries", nullable = false)
+    @Builder.Default
+    private Integer maxRetries = 5;
+
+    @Column(name = "next_retry_at")
+    private LocalDateTime nextRetryAt;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+}
@@ -59,6 +59,13 @@ public class QueueConfig {
     @Builder.Default
     private Boolean isActive = true;
 
+    /**
+     * Sub-colas RabbitMQ del tipo de cola. Se lee al arrancar (ver TicketQueueTopology).
+     */
+    @Column(name = "shards", nullable = false)
+    @Builder.Default
+    private Integer shards = 1;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
@@ -0,0 +1,53 @@
+package com.example.ticketero.model.entity;
+
+import com.example.ticketero.model.enums.QueueEventType;
+import com.example.ticketero.model.enums.QueueType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento de una cola: una fila por avance de la cabeza.
+ * La posición de cualquier ticket en un instante se reconstruye como
+ * queueSeq - headSeq del último avance anterior a ese instante.
+ * Se inserta junto con el avance (ver QueueStateRepository.avanzarCabeza).
+ */
+@Entity
+@Table(name = "queue_event")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QueueEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "queue_event_seq")
+    @SequenceGenerator(name = "queue_event_seq", sequenceName = "queue_event_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "queue_type", nullable = false, length = 50)
+    private QueueType queueType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 30)
+    private QueueEventType eventType;
+
+    @Column(name = "head_seq", nullable = false)
+    private Long headSeq;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
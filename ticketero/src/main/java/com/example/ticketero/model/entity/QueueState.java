@@ -0,0 +1,45 @@
+package com.example.ticketero.model.entity;
+
+import com.example.ticketero.model.enums.QueueType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Estado de una cola: punteros de encolado y de cabeza.
+ * - tailSeq: último queue_seq asignado (crece con cada ticket encolado)
+ * - headSeq: tickets que ya salieron de la cola
+ * - En espera = tailSeq - headSeq; posición de un ticket = queueSeq - headSeq
+ * Se modifica solo con UPDATE atómicos (ver QueueStateRepository).
+ */
+@Entity
+@Table(name = "queue_state")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QueueState {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "queue_type", length = 50)
+    private QueueType queueType;
+
+    @Column(name = "tail_seq", nullable = false)
+    private Long tailSeq;
+
+    @Column(name = "head_seq", nullable = false)
+    private Long headSeq;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -16,12 +16,14 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -36,7 +38,8 @@ import java.util.UUID;
 public class Ticket {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ticket_seq")
+    @SequenceGenerator(name = "ticket_seq", sequenceName = "ticket_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "codigo_referencia", unique = true, nullable = false)
@@ -54,6 +57,12 @@ public class Ticket {
     @Column(name = "branch_office", nullable = false, length = 100)
     private String branchOffice;
 
+    /**
+     * Día de atención. El número es único por (queueType, numero, serviceDate)
+     */
+    @Column(name = "service_date", nullable = false)
+    private LocalDate serviceDate;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "queue_type", nullable = false, length = 50)
     private QueueType queueType;
@@ -62,6 +71,16 @@ public class Ticket {
     @Column(name = "status", nullable = false, length = 20)
     private TicketStatus status;
 
+    /**
+     * Orden de encolado dentro de la cola (monotónico, nunca se reescribe).
+     * Posición actual = queueSeq - QueueState.headSeq
+     */
+    @Column(name = "queue_seq")
+    private Long queueSeq;
+
+    /**
+     * Posición al momento de encolar. La posición vigente se deriva de queueSeq.
+     */
     @Column(name = "position_in_queue")
     private Integer positionInQueue;
 
@@ -92,6 +111,12 @@ public class Ticket {
     @Column(name = "completed_at")
     private LocalDateTime completedAt;
 
+    /**
+     * Vencimiento de la atención en curso (CompletionScheduler).
+     */
+    @Column(name = "service_due_at")
+    private LocalDateTime serviceDueAt;
+
     @OneToMany(mappedBy = "ticket", cascade = CascadeType.ALL)
     @Builder.Default
     @ToString.Exclude
@@ -101,6 +126,9 @@ public class Ticket {
     @PrePersist
     protected void onCreate() {
         this.createdAt = LocalDateTime.now();
+        if (this.serviceDate == null) {
+            this.serviceDate = this.createdAt.toLocalDate();
+        }
         if (this.codigoReferencia == null) {
             this.codigoReferencia = UUID.randomUUID();
         }
@@ -0,0 +1,36 @@
+package com.example.ticketero.model.entity;
+
+import com.example.ticketero.model.enums.QueueType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Día vigente de la secuencia de números de una cola.
+ * Coordina el reinicio diario de la numeración entre instancias.
+ */
+@Entity
+@Table(name = "ticket_number_day")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TicketNumberDay {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "queue_type", length = 50)
+    private QueueType queueType;
+
+    @Column(name = "service_date", nullable = false)
+    private LocalDate serviceDate;
+}
@@ -10,7 +10,9 @@ public enum EventType {
     CREATED,
     
     /**
-     * Posición en cola actualizada
+     * Posición en cola actualizada.
+     * Ya no se escribe: se conserva para filas históricas. Los avances de cola
+     * se registran en queue_event (QUEUE_ADVANCED).
      */
     POSITION_UPDATED,
     
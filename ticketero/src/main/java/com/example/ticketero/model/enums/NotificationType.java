@@ -0,0 +1,26 @@
+package com.example.ticketero.model.enums;
+
+/**
+ * Tipos de notificación enviadas al cliente
+ */
+public enum NotificationType {
+    /**
+     * Ticket creado (posición inicial)
+     */
+    TICKET_CREADO,
+
+    /**
+     * Turno próximo (posición <= threshold)
+     */
+    PROXIMO_TURNO,
+
+    /**
+     * Es su turno (asesor asignado)
+     */
+    TURNO_ACTIVO,
+
+    /**
+     * Actualización de posición en cola
+     */
+    ACTUALIZACION_POSICION
+}
@@ -0,0 +1,11 @@
+package com.example.ticketero.model.enums;
+
+/**
+ * Tipos de eventos a nivel de cola (no de ticket)
+ */
+public enum QueueEventType {
+    /**
+     * La cabeza de la cola avanzó: un ticket salió de WAITING
+     */
+    QUEUE_ADVANCED
+}
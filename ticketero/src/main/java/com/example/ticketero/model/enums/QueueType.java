@@ -1,21 +1,55 @@
 package com.example.ticketero.model.enums;
 
+import java.util.Optional;
+
 /**
  * Tipos de cola de atención
  */
 public enum QueueType {
-    CAJA("Caja"),
-    PERSONAL("Banca Personal"),
-    EMPRESAS("Banca Empresas"),
-    GERENCIA("Atención Gerencial");
+    CAJA("Caja", 1),
+    PERSONAL("Banca Personal", 2),
+    EMPRESAS("Banca Empresas", 4),
+    GERENCIA("Atención Gerencial", 8);
 
     private final String displayName;
+    private final int bit;
 
-    QueueType(String displayName) {
+    QueueType(String displayName, int bit) {
         this.displayName = displayName;
+        this.bit = bit;
     }
 
     public String getDisplayName() {
         return displayName;
     }
+
+    /**
+     * Bit de la cola en advisor.queue_mask (persistido: no reasignar)
+     */
+    public int getBit() {
+        return bit;
+    }
+
+    /**
+     * Prefijo del número de ticket (ej: 'C' en C001)
+     */
+    public char getPrefijo() {
+        return name().charAt(0);
+    }
+
+    /**
+     * Obtiene el tipo de cola a partir del prefijo de un número de ticket
+     */
+    public static Optional<QueueType> fromNumero(String numero) {
+        if (numero == null || numero.isBlank()) {
+            return Optional.empty();
+        }
+        char prefijo = Character.toUpperCase(numero.charAt(0));
+        for (QueueType queueType : values()) {
+            if (queueType.getPrefijo() == prefijo) {
+                return Optional.of(queueType);
+            }
+        }
+        return Optional.empty();
+    }
 }
@@ -2,9 +2,7 @@ package com.example.ticketero.repository;
 
 import com.example.ticketero.model.entity.Advisor;
 import com.example.ticketero.model.enums.AdvisorStatus;
-import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -26,33 +24,106 @@ public interface AdvisorRepository extends JpaRepository<Advisor, Long> {
      * Busca asesores disponibles para un tipo de cola específico.
      * Ordena por cantidad de tickets atendidos (para balancear carga).
      *
+     * Filtra por bit de la cola en queue_mask (QueueType.getBit) sobre
+     * idx_advisor_available.
+     *
      * NOTA: Sin bloqueo - usar findAvailableForQueueWithLock para concurrencia.
      */
-    @Query("""
-        SELECT a FROM Advisor a
-        WHERE a.status = com.example.ticketero.model.enums.AdvisorStatus.AVAILABLE
-        AND a.queueTypesJson LIKE CONCAT('%', :queueType, '%')
-        ORDER BY a.totalTicketsServed ASC
-        """)
-    List<Advisor> findAvailableForQueue(@Param("queueType") String queueType);
+    @Query(value = """
+        SELECT * FROM advisor
+        WHERE status = 'AVAILABLE'
+        AND (queue_mask & :queueBit) <> 0
+        ORDER BY total_tickets_served ASC
+        """, nativeQuery = true)
+    List<Advisor> findAvailableForQueue(@Param("queueBit") int queueBit);
 
     /**
-     * Busca asesores disponibles CON BLOQUEO PESIMISTA.
+     * Reclama el asesor disponible con menos tickets atendidos, bloqueándolo.
+     *
+     * FOR UPDATE SKIP LOCKED LIMIT 1: cada worker bloquea UNA fila y salta las
+     * que otro worker ya está reclamando, en vez de esperar a que libere todas
+     * las de la cola. Si todas están bloqueadas retorna empty (el mensaje se
+     * reintenta), igual que si no hubiera asesores disponibles.
      *
-     * FIX RACE CONDITION: SELECT ... FOR UPDATE garantiza que solo un worker
-     * pueda leer y asignar un advisor a la vez. Otros workers esperan.
+     * IMPORTANTE: Debe usarse dentro de @Transactional para mantener el lock.
+     */
+    @Query(value = """
+        SELECT * FROM advisor
+        WHERE status = 'AVAILABLE'
+        AND (queue_mask & :queueBit) <> 0
+        ORDER BY total_tickets_served ASC
+        LIMIT 1
+        FOR UPDATE SKIP LOCKED
+        """, nativeQuery = true)
+    Optional<Advisor> claimAvailableForQueue(@Param("queueBit") int queueBit);
+
+    /**
+     * Reclama hasta {@code limite} asesores disponibles de una cola, bloqueándolos
+     * (worker en modo batch: un solo SELECT para todo el lote).
+     *
+     * IMPORTANTE: Debe usarse dentro de @Transactional para mantener el lock.
+     */
+    @Query(value = """
+        SELECT * FROM advisor
+        WHERE status = 'AVAILABLE'
+        AND (queue_mask & :queueBit) <> 0
+        ORDER BY total_tickets_served ASC
+        LIMIT :limite
+        FOR UPDATE SKIP LOCKED
+        """, nativeQuery = true)
+    List<Advisor> claimAvailableForQueue(@Param("queueBit") int queueBit, @Param("limite") int limite);
+
+    /**
+     * Bloquea un asesor específico si sigue AVAILABLE (despacho pull).
+     * Si otro despacho ya lo tiene bloqueado retorna empty sin esperar.
      *
      * IMPORTANTE: Debe usarse dentro de @Transactional para mantener el lock.
      */
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = """
+        SELECT * FROM advisor
+        WHERE id = :advisorId
+        AND status = 'AVAILABLE'
+        FOR UPDATE SKIP LOCKED
+        """, nativeQuery = true)
+    Optional<Advisor> claimIfAvailable(@Param("advisorId") Long advisorId);
+    
+    /**
+     * AVAILABLE → BUSY (asesor ya reclamado con claimAvailableForQueue).
+     *
+     * @return 0 si el asesor ya no estaba AVAILABLE
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
     @Query("""
-        SELECT a FROM Advisor a
-        WHERE a.status = com.example.ticketero.model.enums.AdvisorStatus.AVAILABLE
-        AND a.queueTypesJson LIKE CONCAT('%', :queueType, '%')
-        ORDER BY a.totalTicketsServed ASC
+        UPDATE Advisor a SET
+            a.status = com.example.ticketero.model.enums.AdvisorStatus.BUSY,
+            a.lastActiveAt = :at,
+            a.lastHeartbeat = :at
+        WHERE a.id = :advisorId
+        AND a.status = com.example.ticketero.model.enums.AdvisorStatus.AVAILABLE
         """)
-    List<Advisor> findAvailableForQueueWithLock(@Param("queueType") String queueType);
-    
+    int markBusyIfAvailable(@Param("advisorId") Long advisorId, @Param("at") LocalDateTime at);
+
+    /**
+     * BUSY → AVAILABLE al completar una atención, sumando el ticket atendido.
+     *
+     * @return 0 si el asesor ya no estaba BUSY (ej: liberado por RecoveryService)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE Advisor a SET
+            a.status = com.example.ticketero.model.enums.AdvisorStatus.AVAILABLE,
+            a.totalTicketsServed = a.totalTicketsServed + 1,
+            a.avgServiceTimeMinutes = :avgServiceTimeMinutes,
+            a.lastActiveAt = :at
+        WHERE a.id = :advisorId
+        AND a.status = com.example.ticketero.model.enums.AdvisorStatus.BUSY
+        """)
+    int releaseIfBusy(
+        @Param("advisorId") Long advisorId,
+        @Param("avgServiceTimeMinutes") Integer avgServiceTimeMinutes,
+        @Param("at") LocalDateTime at
+    );
+
     /**
      * Busca asesor por número de módulo
      */
@@ -0,0 +1,149 @@
+package com.example.ticketero.repository;
+
+import com.example.ticketero.model.entity.NotificationIntent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repositorio para intenciones de notificación.
+ * Mismo esquema de estados y reintentos que el outbox.
+ */
+@Repository
+public interface NotificationIntentRepository extends JpaRepository<NotificationIntent, Long> {
+
+    /**
+     * Reclama intenciones pendientes con FOR UPDATE SKIP LOCKED.
+     * Varias instancias pueden reclamar en paralelo sin bloquearse entre sí.
+     *
+     * @param pageable Límite de intenciones (capacidad libre del executor)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+        SELECT n FROM NotificationIntent n
+        WHERE n.status = 'PENDING'
+        AND (n.nextRetryAt IS NULL OR n.nextRetryAt <= :now)
+        ORDER BY n.createdAt ASC
+        """)
+    List<NotificationIntent> findPendingForDispatch(
+        @Param("now") LocalDateTime now,
+        Pageable pageable
+    );
+
+    /**
+     * Marca intenciones como en entrega.
+     */
+    @Modifying
+    @Query("""
+        UPDATE NotificationIntent n
+        SET n.status = 'PROCESSING', n.claimedAt = :claimedAt
+        WHERE n.id IN :ids
+        """)
+    int markAsProcessing(@Param("ids") List<Long> ids, @Param("claimedAt") LocalDateTime claimedAt);
+
+    /**
+     * Marca una intención como entregada, solo si sigue reclamada por este
+     * despacho (PROCESSING con el mismo claimedAt).
+     *
+     * @return 0 si el reclamo se perdió (recuperada por timeout y reclamada de nuevo)
+     */
+    @Modifying
+    @Query("""
+        UPDATE NotificationIntent n
+        SET n.status = 'SENT', n.processedAt = :processedAt
+        WHERE n.id = :id
+        AND n.status = 'PROCESSING'
+        AND n.claimedAt = :claimedAt
+        """)
+    int markAsSent(
+        @Param("id") Long id,
+        @Param("claimedAt") LocalDateTime claimedAt,
+        @Param("processedAt") LocalDateTime processedAt
+    );
+
+    /**
+     * Marca una intención como fallida permanentemente (si sigue reclamada por este despacho).
+     */
+    @Modifying
+    @Query("""
+        UPDATE NotificationIntent n
+        SET n.status = 'FAILED', n.errorMessage = :errorMessage, n.processedAt = :processedAt
+        WHERE n.id = :id
+        AND n.status = 'PROCESSING'
+        AND n.claimedAt = :claimedAt
+        """)
+    int markAsFailed(
+        @Param("id") Long id,
+        @Param("claimedAt") LocalDateTime claimedAt,
+        @Param("errorMessage") String errorMessage,
+        @Param("processedAt") LocalDateTime processedAt
+    );
+
+    /**
+     * Devuelve una intención a PENDING con el próximo intento programado
+     * (si sigue reclamada por este despacho).
+     */
+    @Modifying
+    @Query("""
+        UPDATE NotificationIntent n
+        SET n.retryCount = :retryCount,
+            n.nextRetryAt = :nextRetryAt,
+            n.errorMessage = :errorMessage,
+            n.status = 'PENDING'
+        WHERE n.id = :id
+        AND n.status = 'PROCESSING'
+        AND n.claimedAt = :claimedAt
+        """)
+    int scheduleRetry(
+        @Param("id") Long id,
+        @Param("claimedAt") LocalDateTime claimedAt,
+        @Param("retryCount") Integer retryCount,
+        @Param("nextRetryAt") LocalDateTime nextRetryAt,
+        @Param("errorMessage") String errorMessage
+    );
+
+    /**
+     * Devuelve a PENDING intenciones reclamadas que el executor no aceptó.
+     */
+    @Modifying
+    @Query("UPDATE NotificationIntent n SET n.status = 'PENDING' WHERE n.id = :id AND n.status = 'PROCESSING'")
+    void releaseClaim(@Param("id") Long id);
+
+    /**
+     * Recupera entregas abandonadas (instancia caída con intenciones en PROCESSING).
+     *
+     * @return Número de intenciones devueltas a PENDING
+     */
+    @Modifying
+    @Query("""
+        UPDATE NotificationIntent n
+        SET n.status = 'PENDING'
+        WHERE n.status = 'PROCESSING'
+        AND n.claimedAt < :before
+        """)
+    int releaseStaleClaims(@Param("before") LocalDateTime before);
+
+    @Query("SELECT COUNT(n) FROM NotificationIntent n WHERE n.status = 'PENDING'")
+    long countPending();
+
+    @Query("SELECT COUNT(n) FROM NotificationIntent n WHERE n.status = 'FAILED'")
+    long countFailed();
+
+    /**
+     * Limpia intenciones enviadas antiguas.
+     */
+    @Modifying
+    @Query("DELETE FROM NotificationIntent n WHERE n.status = 'SENT' AND n.processedAt < :before")
+    int deleteOldSent(@Param("before") LocalDateTime before);
+}
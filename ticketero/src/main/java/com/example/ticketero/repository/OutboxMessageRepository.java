@@ -40,60 +40,84 @@ public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Lo
     );
 
     /**
-     * Marca un mensaje como enviado exitosamente.
+     * Reclama un lote para publicarlo fuera de la TX: PENDING → PROCESSING, con
+     * processed_at = momento del reclamo (ver releaseStaleClaims).
      *
-     * @param id ID del mensaje
-     * @param processedAt Timestamp de procesamiento
+     * @param ids IDs leídos con findPendingWithLock en la misma TX
+     * @param claimedAt Timestamp del reclamo
+     * @return Número de mensajes reclamados
      */
     @Modifying
-    @Query("""
-        UPDATE OutboxMessage o
-        SET o.status = 'SENT', o.processedAt = :processedAt
-        WHERE o.id = :id
-        """)
-    void markAsSent(@Param("id") Long id, @Param("processedAt") LocalDateTime processedAt);
+    @Query(value = """
+        UPDATE outbox_message
+        SET status = 'PROCESSING', processed_at = :claimedAt
+        WHERE id = ANY(:ids)
+        AND status = 'PENDING'
+        """, nativeQuery = true)
+    int claimForPublishing(@Param("ids") Long[] ids, @Param("claimedAt") LocalDateTime claimedAt);
 
     /**
-     * Marca un mensaje como fallido permanentemente.
+     * Devuelve a PENDING los mensajes PROCESSING reclamados antes de {@code before}
+     * (instancia caída entre el reclamo y el registro del resultado).
      *
-     * @param id ID del mensaje
-     * @param errorMessage Mensaje de error
+     * @param before Fecha límite del reclamo
+     * @return Número de mensajes liberados
+     */
+    @Modifying
+    @Query(value = """
+        UPDATE outbox_message
+        SET status = 'PENDING', processed_at = NULL
+        WHERE status = 'PROCESSING'
+        AND processed_at < :before
+        """, nativeQuery = true)
+    int releaseStaleClaims(@Param("before") LocalDateTime before);
+
+    /**
+     * Marca como enviados los mensajes confirmados por RabbitMQ (un UPDATE por lote).
+     * = ANY(array) mantiene una sola sentencia preparada para cualquier tamaño de lote
+     * (IN (...) genera un SQL distinto por cada cantidad de ids).
+     *
+     * @param ids IDs de los mensajes confirmados
      * @param processedAt Timestamp de procesamiento
+     * @return Número de mensajes marcados
      */
     @Modifying
-    @Query("""
-        UPDATE OutboxMessage o
-        SET o.status = 'FAILED', o.errorMessage = :errorMessage, o.processedAt = :processedAt
-        WHERE o.id = :id
-        """)
-    void markAsFailed(
-        @Param("id") Long id,
-        @Param("errorMessage") String errorMessage,
-        @Param("processedAt") LocalDateTime processedAt
-    );
+    @Query(value = """
+        UPDATE outbox_message
+        SET status = 'SENT', processed_at = :processedAt
+        WHERE id = ANY(:ids)
+        AND status = 'PROCESSING'
+        """, nativeQuery = true)
+    int markAllAsSent(@Param("ids") Long[] ids, @Param("processedAt") LocalDateTime processedAt);
 
     /**
-     * Incrementa el contador de reintentos y programa el próximo intento.
+     * Registra el fallo de publicación de un lote de mensajes (un UPDATE por lote).
+     * Por cada mensaje incrementa retry_count y guarda su error; si agotó max_retries
+     * pasa a FAILED, si no, queda PENDING con backoff exponencial
+     * (next_retry_at = now + 2^retry_count anterior segundos: 1s, 2s, 4s, 8s, 16s).
      *
-     * @param id ID del mensaje
-     * @param retryCount Nuevo contador de reintentos
-     * @param nextRetryAt Próximo intento programado
-     * @param errorMessage Mensaje de error del intento fallido
+     * @param ids IDs de los mensajes que fallaron
+     * @param errores Mensaje de error de cada id (mismo orden)
+     * @param now Timestamp del intento
+     * @return Número de mensajes actualizados
      */
     @Modifying
-    @Query("""
-        UPDATE OutboxMessage o
-        SET o.retryCount = :retryCount,
-            o.nextRetryAt = :nextRetryAt,
-            o.errorMessage = :errorMessage,
-            o.status = 'PENDING'
-        WHERE o.id = :id
-        """)
-    void scheduleRetry(
-        @Param("id") Long id,
-        @Param("retryCount") Integer retryCount,
-        @Param("nextRetryAt") LocalDateTime nextRetryAt,
-        @Param("errorMessage") String errorMessage
+    @Query(value = """
+        UPDATE outbox_message o
+        SET retry_count = o.retry_count + 1,
+            error_message = f.error,
+            status = CASE WHEN o.retry_count + 1 >= o.max_retries THEN 'FAILED' ELSE 'PENDING' END,
+            processed_at = CASE WHEN o.retry_count + 1 >= o.max_retries THEN :now ELSE NULL END,
+            next_retry_at = CASE WHEN o.retry_count + 1 >= o.max_retries THEN o.next_retry_at
+                                 ELSE :now + make_interval(secs => power(2, o.retry_count)) END
+        FROM unnest(:ids, :errores) AS f(id, error)
+        WHERE o.id = f.id
+        AND o.status = 'PROCESSING'
+        """, nativeQuery = true)
+    int registerFailures(
+        @Param("ids") Long[] ids,
+        @Param("errores") String[] errores,
+        @Param("now") LocalDateTime now
     );
 
     /**
@@ -0,0 +1,50 @@
+package com.example.ticketero.repository;
+
+import com.example.ticketero.model.entity.QueueEvent;
+import com.example.ticketero.model.enums.QueueType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repositorio de eventos de cola.
+ * Las filas QUEUE_ADVANCED se insertan con el UPDATE de la cabeza (QueueStateRepository).
+ */
+@Repository
+public interface QueueEventRepository extends JpaRepository<QueueEvent, Long> {
+
+    /**
+     * Avances de una cola en una ventana de tiempo, mientras la cabeza no alcanzó maxHeadSeq.
+     * Usa idx_queue_event_queue_created.
+     */
+    @Query("""
+        SELECT e FROM QueueEvent e
+        WHERE e.queueType = :queueType
+        AND e.eventType = com.example.ticketero.model.enums.QueueEventType.QUEUE_ADVANCED
+        AND e.createdAt >= :desde
+        AND e.createdAt <= :hasta
+        AND e.headSeq < :maxHeadSeq
+        ORDER BY e.createdAt ASC, e.headSeq ASC
+        """)
+    List<QueueEvent> findAdvancesBetween(
+        @Param("queueType") QueueType queueType,
+        @Param("desde") LocalDateTime desde,
+        @Param("hasta") LocalDateTime hasta,
+        @Param("maxHeadSeq") Long maxHeadSeq
+    );
+
+    /**
+     * Elimina eventos antiguos (para mantenimiento).
+     *
+     * @param before Fecha límite
+     * @return Número de eventos eliminados
+     */
+    @Modifying
+    @Query("DELETE FROM QueueEvent e WHERE e.createdAt < :before")
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
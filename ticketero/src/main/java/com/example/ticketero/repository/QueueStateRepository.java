@@ -0,0 +1,71 @@
+package com.example.ticketero.repository;
+
+import com.example.ticketero.model.entity.QueueState;
+import com.example.ticketero.model.enums.QueueType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repositorio del estado por cola.
+ * Los punteros se actualizan con UPDATE atómicos: nunca leer-modificar-escribir.
+ */
+@Repository
+public interface QueueStateRepository extends JpaRepository<QueueState, QueueType> {
+
+    /**
+     * Reserva {@code cantidad} números de encolado y retorna los punteros resultantes.
+     * El lote ocupa los queue_seq [tailSeq - cantidad + 1, tailSeq].
+     * El lock de la fila dura hasta el commit: dos kioscos nunca obtienen el mismo queue_seq.
+     *
+     * @param cantidad Tickets que entran a la cola (1 por creación, N por lote)
+     */
+    @Query(value = """
+        UPDATE queue_state
+        SET tail_seq = tail_seq + :cantidad,
+            updated_at = CURRENT_TIMESTAMP
+        WHERE queue_type = :queueType
+        RETURNING tail_seq AS "tailSeq", head_seq AS "headSeq"
+        """, nativeQuery = true)
+    Punteros reservarSecuencia(@Param("queueType") String queueType, @Param("cantidad") int cantidad);
+
+    /**
+     * Avanza la cabeza cuando un ticket sale de WAITING y registra el avance
+     * en queue_event (QUEUE_ADVANCED) en el mismo statement.
+     * Es la única escritura por despacho: las posiciones del resto se derivan
+     * y su historial se reconstruye desde queue_event.
+     *
+     * @return Nueva cabeza, o vacío si la cola no tenía tickets en espera
+     */
+    @Query(value = """
+        WITH avance AS (
+            UPDATE queue_state
+            SET head_seq = head_seq + 1,
+                updated_at = CURRENT_TIMESTAMP
+            WHERE queue_type = :queueType
+            AND head_seq < tail_seq
+            RETURNING queue_type, head_seq, updated_at
+        )
+        INSERT INTO queue_event (queue_type, event_type, head_seq, created_at)
+        SELECT queue_type, 'QUEUE_ADVANCED', head_seq, updated_at FROM avance
+        RETURNING head_seq
+        """, nativeQuery = true)
+    Optional<Long> avanzarCabeza(@Param("queueType") String queueType);
+
+    /**
+     * Puntero de cabeza actual (para derivar posiciones en lecturas).
+     */
+    @Query(value = "SELECT head_seq FROM queue_state WHERE queue_type = :queueType", nativeQuery = true)
+    Optional<Long> findHeadSeq(@Param("queueType") String queueType);
+
+    /**
+     * Punteros de una cola tras reservar.
+     */
+    interface Punteros {
+        Long getTailSeq();
+        Long getHeadSeq();
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.ticketero.repository;
+
+import com.example.ticketero.model.entity.TicketNumberDay;
+import com.example.ticketero.model.enums.QueueType;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+/**
+ * Repositorio para la numeración diaria de tickets (secuencias hi/lo por cola).
+ */
+@Repository
+public interface TicketNumberDayRepository extends JpaRepository<TicketNumberDay, QueueType> {
+
+    /**
+     * Avanza el día vigente de una cola.
+     * Solo una instancia obtiene 1 fila actualizada: esa instancia reinicia la secuencia.
+     * Las demás esperan el lock de la fila y luego obtienen 0.
+     *
+     * @return filas actualizadas (1 si esta transacción cambió el día)
+     */
+    @Modifying
+    @Query(value = """
+        UPDATE ticket_number_day
+        SET service_date = :hoy
+        WHERE queue_type = :queueType
+        AND service_date < :hoy
+        """, nativeQuery = true)
+    int avanzarDia(@Param("queueType") String queueType, @Param("hoy") LocalDate hoy);
+
+    /**
+     * Lee el día vigente de una cola con FOR SHARE.
+     * Mientras la TX siga abierta ninguna instancia puede avanzar el día (ni
+     * reiniciar la secuencia), así que un nextval en la misma TX pertenece a ese día.
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT d FROM TicketNumberDay d WHERE d.queueType = :queueType")
+    TicketNumberDay findDiaVigente(@Param("queueType") QueueType queueType);
+
+    /**
+     * Obtiene el siguiente "hi" de la secuencia de una cola.
+     *
+     * @param secuencia nombre de la secuencia (ticket_number_caja_seq, ...)
+     */
+    @Query(value = "SELECT nextval(CAST(:secuencia AS regclass))", nativeQuery = true)
+    long siguienteBloque(@Param("secuencia") String secuencia);
+
+    /**
+     * Reinicia la secuencia para que el próximo nextval retorne 1.
+     */
+    @Query(value = "SELECT setval(CAST(:secuencia AS regclass), 1, false)", nativeQuery = true)
+    long reiniciarSecuencia(@Param("secuencia") String secuencia);
+}
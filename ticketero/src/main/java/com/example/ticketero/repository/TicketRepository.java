@@ -3,12 +3,14 @@ package com.example.ticketero.repository;
 import com.example.ticketero.model.entity.Ticket;
 import com.example.ticketero.model.enums.QueueType;
 import com.example.ticketero.model.enums.TicketStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -28,9 +30,14 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
     Optional<Ticket> findByNationalId(String nationalId);
     
     /**
-     * Busca ticket por número
+     * Busca ticket por número dentro de su cola y día de atención.
+     * El número solo es único por (cola, día): usa el índice uq_ticket_queue_numero_dia.
      */
-    Optional<Ticket> findByNumero(String numero);
+    Optional<Ticket> findByQueueTypeAndNumeroAndServiceDate(
+        QueueType queueType,
+        String numero,
+        LocalDate serviceDate
+    );
     
     /**
      * Busca tickets por cola y estado específico
@@ -39,7 +46,7 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
         SELECT t FROM Ticket t 
         WHERE t.queueType = :queueType 
         AND t.status = :status 
-        ORDER BY t.createdAt ASC
+        ORDER BY t.queueSeq ASC, t.createdAt ASC
         """)
     List<Ticket> findByQueueAndStatus(
         @Param("queueType") QueueType queueType,
@@ -47,32 +54,68 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
     );
     
     /**
-     * Cuenta tickets en espera creados antes de una fecha
-     * Usado para calcular posición en cola
+     * Busca tickets activos de una cola (WAITING o CALLED)
+     * Ordenados por orden de encolado
      */
     @Query("""
-        SELECT COUNT(t) FROM Ticket t 
+        SELECT t FROM Ticket t 
         WHERE t.queueType = :queueType 
-        AND t.status = 'WAITING' 
-        AND t.createdAt < :before
+        AND t.status IN ('WAITING', 'CALLED') 
+        ORDER BY t.queueSeq ASC
+        """)
+    List<Ticket> findActiveByQueue(@Param("queueType") QueueType queueType);
+
+    /**
+     * Marca "próximo turno notificado" en los tickets en espera hasta un queue_seq
+     * (inclusive) que aún no lo tenían, en un solo UPDATE, y los retorna.
+     * Solo aparecen los que recién entraron a la ventana de notificación.
+     * Usa idx_ticket_queue_seq_waiting.
+     */
+    @Query(value = """
+        UPDATE ticket
+        SET proximo_turno_notificado = TRUE
+        WHERE queue_type = :queueType
+        AND status = 'WAITING'
+        AND queue_seq <= :maxSeq
+        AND proximo_turno_notificado = FALSE
+        RETURNING id AS "id", numero AS "numero", telefono AS "telefono", queue_seq AS "queueSeq"
+        """, nativeQuery = true)
+    List<TicketProximo> marcarProximoTurnoNotificado(
+        @Param("queueType") String queueType,
+        @Param("maxSeq") Long maxSeq
+    );
+
+    /**
+     * Números de los tickets en espera delante de un queue_seq, desde el frente de la cola.
+     *
+     * @param pageable Límite de números (la cola completa puede tener cientos)
+     */
+    @Query("""
+        SELECT t.numero FROM Ticket t
+        WHERE t.queueType = :queueType
+        AND t.status = 'WAITING'
+        AND t.queueSeq < :queueSeq
+        ORDER BY t.queueSeq ASC
         """)
-    int countWaitingBefore(
+    List<String> findNumerosAdelante(
         @Param("queueType") QueueType queueType,
-        @Param("before") LocalDateTime before
+        @Param("queueSeq") Long queueSeq,
+        Pageable pageable
     );
     
     /**
-     * Busca tickets activos de una cola (WAITING o CALLED)
-     * Ordenados por posición
+     * Tickets activos (WAITING o CALLED) de todas las colas, solo los campos de LiveQueueIndex.
      */
     @Query("""
-        SELECT t FROM Ticket t 
-        WHERE t.queueType = :queueType 
-        AND t.status IN ('WAITING', 'CALLED') 
-        ORDER BY t.positionInQueue ASC
+        SELECT t.id AS id, t.numero AS numero, t.queueType AS queueType, t.status AS status,
+               t.queueSeq AS queueSeq, t.assignedModuleNumber AS assignedModuleNumber,
+               t.serviceDate AS serviceDate, t.createdAt AS createdAt, t.calledAt AS calledAt
+        FROM Ticket t
+        WHERE t.status = 'CALLED'
+        OR (t.status = 'WAITING' AND t.queueSeq IS NOT NULL)
         """)
-    List<Ticket> findActiveByQueue(@Param("queueType") QueueType queueType);
-    
+    List<TicketActivo> findActiveSnapshots();
+
     /**
      * Busca todos los tickets de una cola
      */
@@ -138,6 +181,111 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
         @Param("moduleNumber") Integer moduleNumber
     );
 
+    /**
+     * Reclama el ticket al frente de una cola (despacho pull): menor queue_seq, el
+     * mismo orden con que se calculan las posiciones (un ticket recuperado vuelve
+     * al final con un queue_seq nuevo aunque conserve su created_at).
+     * SKIP LOCKED: tickets que otro despacho está llamando se saltan sin esperar.
+     * Usa idx_ticket_queue_seq_waiting.
+     *
+     * IMPORTANTE: Debe usarse dentro de @Transactional para mantener el lock.
+     */
+    @Query(value = """
+        SELECT * FROM ticket
+        WHERE status = 'WAITING'
+        AND queue_type = :queueType
+        ORDER BY queue_seq ASC NULLS FIRST, id ASC
+        LIMIT 1
+        FOR UPDATE SKIP LOCKED
+        """, nativeQuery = true)
+    Optional<Ticket> claimNextWaiting(@Param("queueType") String queueType);
+
+    // =========================================================================
+    // Transiciones condicionales (TicketProcessingService: una TX corta cada una).
+    // Retornan 0 si el ticket ya no estaba en el estado de origen.
+    // =========================================================================
+
+    /**
+     * WAITING → CALLED con el asesor asignado.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE Ticket t SET
+            t.status = com.example.ticketero.model.enums.TicketStatus.CALLED,
+            t.calledAt = :calledAt,
+            t.assignedModuleNumber = :moduleNumber,
+            t.assignedAdvisor.id = :advisorId
+        WHERE t.id = :ticketId
+        AND t.status = com.example.ticketero.model.enums.TicketStatus.WAITING
+        """)
+    int assignAdvisorIfWaiting(
+        @Param("ticketId") Long ticketId,
+        @Param("advisorId") Long advisorId,
+        @Param("calledAt") LocalDateTime calledAt,
+        @Param("moduleNumber") Integer moduleNumber
+    );
+
+    /**
+     * CALLED → IN_PROGRESS, con el vencimiento de la atención.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE Ticket t SET
+            t.status = com.example.ticketero.model.enums.TicketStatus.IN_PROGRESS,
+            t.startedAt = :startedAt,
+            t.serviceDueAt = :serviceDueAt
+        WHERE t.id = :ticketId
+        AND t.status = com.example.ticketero.model.enums.TicketStatus.CALLED
+        """)
+    int startIfCalled(
+        @Param("ticketId") Long ticketId,
+        @Param("startedAt") LocalDateTime startedAt,
+        @Param("serviceDueAt") LocalDateTime serviceDueAt
+    );
+
+    /**
+     * IN_PROGRESS → COMPLETED, solo si la atención sigue siendo la programada
+     * (mismo service_due_at; null = atención sin vencimiento).
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE Ticket t SET
+            t.status = com.example.ticketero.model.enums.TicketStatus.COMPLETED,
+            t.completedAt = :completedAt
+        WHERE t.id = :ticketId
+        AND t.status = com.example.ticketero.model.enums.TicketStatus.IN_PROGRESS
+        AND (t.serviceDueAt = :serviceDueAt OR (t.serviceDueAt IS NULL AND :serviceDueAt IS NULL))
+        """)
+    int completeIfInProgress(
+        @Param("ticketId") Long ticketId,
+        @Param("serviceDueAt") LocalDateTime serviceDueAt,
+        @Param("completedAt") LocalDateTime completedAt
+    );
+
+    /**
+     * Atenciones en curso con vencimiento, para reprogramarlas al iniciar
+     * (usa idx_ticket_service_due).
+     */
+    @Query("""
+        SELECT t.id AS id, t.serviceDueAt AS serviceDueAt
+        FROM Ticket t
+        WHERE t.status = com.example.ticketero.model.enums.TicketStatus.IN_PROGRESS
+        AND t.serviceDueAt IS NOT NULL
+        """)
+    List<CompletadoPendiente> findPendingCompletions();
+
+    /**
+     * Atenciones en curso vencidas antes de un instante (ej: programadas en una
+     * instancia que se cayó y no volvió a arrancar). Usa idx_ticket_service_due.
+     */
+    @Query("""
+        SELECT t.id AS id, t.serviceDueAt AS serviceDueAt
+        FROM Ticket t
+        WHERE t.status = com.example.ticketero.model.enums.TicketStatus.IN_PROGRESS
+        AND t.serviceDueAt < :antesDe
+        """)
+    List<CompletadoPendiente> findOverdueCompletions(@Param("antesDe") LocalDateTime antesDe);
+
     /**
      * Obtiene el ticket actual de un asesor (CALLED o IN_PROGRESS).
      * Reemplaza la relación circular Advisor.currentTicket.
@@ -148,4 +296,37 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
         AND t.status IN ('CALLED', 'IN_PROGRESS')
         """)
     Optional<Ticket> findCurrentTicketForAdvisor(@Param("advisorId") Long advisorId);
+
+    /**
+     * Proyección de un ticket activo (ver LiveQueueIndex).
+     */
+    interface TicketActivo {
+        Long getId();
+        String getNumero();
+        QueueType getQueueType();
+        TicketStatus getStatus();
+        Long getQueueSeq();
+        Integer getAssignedModuleNumber();
+        LocalDate getServiceDate();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getCalledAt();
+    }
+
+    /**
+     * Atención en curso por completar (ver CompletionScheduler).
+     */
+    interface CompletadoPendiente {
+        Long getId();
+        LocalDateTime getServiceDueAt();
+    }
+
+    /**
+     * Ticket que entró a la ventana de "próximo turno" (ver ProximoTurnoNotifier).
+     */
+    interface TicketProximo {
+        Long getId();
+        String getNumero();
+        String getTelefono();
+        Long getQueueSeq();
+    }
 }
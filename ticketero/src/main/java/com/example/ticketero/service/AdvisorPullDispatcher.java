@@ -0,0 +1,155 @@
+package com.example.ticketero.service;
+
+import com.example.ticketero.model.entity.Advisor;
+import com.example.ticketero.model.enums.AdvisorStatus;
+import com.example.ticketero.model.enums.QueueType;
+import com.example.ticketero.repository.AdvisorRepository;
+import com.example.ticketero.util.AfterCommit;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Despacho pull: los asesores toman tickets en vez de que los tickets busquen asesor.
+ *
+ * Con app.dispatch.mode=push (default) los TicketWorker consumen de RabbitMQ y,
+ * si no hay asesor, el mensaje vuelve a la cola (backoff + NACK) y se reintenta.
+ * Con app.dispatch.mode=pull los listeners de tickets no arrancan y:
+ * - Un asesor que queda AVAILABLE (cambio de estado, completado, recuperación)
+ *   toma el ticket WAITING al frente (menor queue_seq) de sus colas
+ * - Un ticket nuevo despierta a los asesores AVAILABLE de su cola
+ * - Un barrido periódico cubre avisos perdidos (ej: caída entre commit y despacho)
+ * Ningún ticket se intenta mientras no haya un asesor libre para él.
+ *
+ * Los avisos se ejecutan después del commit en un thread dedicado, así que
+ * la TX que liberó al asesor o creó el ticket no espera al despacho.
+ */
+@Service
+@Slf4j
+public class AdvisorPullDispatcher {
+
+    private final TicketProcessingService ticketProcessingService;
+    private final AdvisorRepository advisorRepository;
+
+    private final boolean pull;
+
+    private final ExecutorService executor;
+
+    /**
+     * Colas con un despacho por ticket nuevo ya encolado en el executor
+     * (un lote de N tickets despierta a la cola una sola vez).
+     */
+    private final Set<QueueType> colasPendientes = ConcurrentHashMap.newKeySet();
+
+    public AdvisorPullDispatcher(TicketProcessingService ticketProcessingService,
+                                 AdvisorRepository advisorRepository,
+                                 @Value("${app.dispatch.mode:push}") String mode) {
+        this.ticketProcessingService = ticketProcessingService;
+        this.advisorRepository = advisorRepository;
+        this.pull = "pull".equalsIgnoreCase(mode);
+        this.executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("pull-dispatch-", 0).factory());
+
+        log.info("Modo de despacho: {}", pull ? "pull (asesores toman tickets)" : "push (workers RabbitMQ)");
+    }
+
+    /**
+     * true si app.dispatch.mode=pull.
+     */
+    public boolean isPull() {
+        return pull;
+    }
+
+    /**
+     * Avisa que un asesor quedó AVAILABLE. Sin efecto en modo push.
+     */
+    public void asesorDisponible(Long advisorId) {
+        if (!pull) {
+            return;
+        }
+        AfterCommit.run(() -> ejecutar(() -> atender(advisorId)));
+    }
+
+    /**
+     * Avisa que se encolaron tickets en una cola. Sin efecto en modo push.
+     */
+    public void ticketsEncolados(QueueType queueType) {
+        if (!pull) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            if (colasPendientes.add(queueType)) {
+                ejecutar(() -> {
+                    colasPendientes.remove(queueType);
+                    despacharCola(queueType);
+                });
+            }
+        });
+    }
+
+    /**
+     * Ofrece trabajo a todos los asesores AVAILABLE.
+     */
+    @Scheduled(fixedDelayString = "${app.dispatch.barrido-ms:30000}")
+    public void barrer() {
+        if (!pull) {
+            return;
+        }
+        List<Advisor> disponibles = advisorRepository.findByStatus(AdvisorStatus.AVAILABLE);
+        int atendidos = 0;
+        for (Advisor asesor : disponibles) {
+            if (atender(asesor.getId())) {
+                atendidos++;
+            }
+        }
+        if (atendidos > 0) {
+            log.info("[PULL] Barrido: {} asesores tomaron tickets", atendidos);
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Asesores AVAILABLE de la cola toman tickets hasta que no quede ninguno libre
+     * o la cola se vacíe.
+     */
+    private void despacharCola(QueueType queueType) {
+        for (Advisor asesor : advisorRepository.findAvailableForQueue(queueType.getBit())) {
+            if (!atender(asesor.getId())) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * El asesor toma un ticket. Los errores se registran: el barrido lo reintenta.
+     */
+    private boolean atender(Long advisorId) {
+        try {
+            return ticketProcessingService.atenderSiguiente(advisorId);
+        } catch (Exception e) {
+            log.warn("[PULL] Error despachando a asesor {}: {}", advisorId, e.getMessage());
+            return false;
+        }
+    }
+
+    private void ejecutar(Runnable tarea) {
+        try {
+            executor.execute(tarea);
+        } catch (RejectedExecutionException e) {
+            log.debug("[PULL] Executor detenido, el despacho queda para el barrido");
+        }
+    }
+}
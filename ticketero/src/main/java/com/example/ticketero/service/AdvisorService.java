@@ -33,6 +33,9 @@ public class AdvisorService {
     private final AdvisorRepository advisorRepository;
     private final TicketRepository ticketRepository;
     private final TicketEventRepository ticketEventRepository;
+    private final LiveQueueIndex liveQueueIndex;
+    private final WaitTimeEstimator waitTimeEstimator;
+    private final AdvisorPullDispatcher pullDispatcher;
 
     /**
      * Obtiene un asesor disponible para una cola específica.
@@ -45,7 +48,7 @@ public class AdvisorService {
         log.debug("Buscando asesor disponible para cola: {}", queueType);
 
         List<Advisor> disponibles = advisorRepository
-            .findAvailableForQueue(queueType.name());
+            .findAvailableForQueue(queueType.getBit());
 
         if (disponibles.isEmpty()) {
             log.warn("No hay asesores disponibles para cola: {}", queueType);
@@ -80,16 +83,15 @@ public class AdvisorService {
         log.info("[ATOMIC] Buscando y asignando asesor para ticket {} en cola {}",
             ticket.getNumero(), queueType);
 
-        // SELECT FOR UPDATE - bloquea filas hasta commit
-        List<Advisor> disponibles = advisorRepository
-            .findAvailableForQueueWithLock(queueType.name());
+        // SELECT FOR UPDATE SKIP LOCKED LIMIT 1 - bloquea un asesor hasta commit
+        Optional<Advisor> reclamado = advisorRepository.claimAvailableForQueue(queueType.getBit());
 
-        if (disponibles.isEmpty()) {
+        if (reclamado.isEmpty()) {
             log.warn("[ATOMIC] No hay asesores disponibles para cola: {}", queueType);
             return Optional.empty();
         }
 
-        Advisor asesor = disponibles.get(0);
+        Advisor asesor = reclamado.get();
         log.info("[ATOMIC] Asesor {} seleccionado y bloqueado", asesor.getName());
 
         // Asignar inmediatamente (mismo transaction, entidades managed)
@@ -128,6 +130,7 @@ public class AdvisorService {
         // Verificar persistencia con lectura fresca
         Ticket freshTicket = ticketRepository.findById(ticket.getId())
             .orElseThrow(() -> new RuntimeException("Ticket not found after update"));
+        liveQueueIndex.registrarLlamado(freshTicket);
 
         log.info("[ATOMIC-ASIGNAR] Guardado - Ticket:{} status={}, advisor_id={}",
             freshTicket.getNumero(), freshTicket.getStatus(),
@@ -165,6 +168,7 @@ public class AdvisorService {
         ticket.setStatus(TicketStatus.CALLED);
         ticket.setCalledAt(LocalDateTime.now());
         ticketRepository.save(ticket);
+        liveQueueIndex.registrarLlamado(ticket);
 
         // Actualizar asesor (sin currentTicket)
         asesor.setStatus(AdvisorStatus.BUSY);
@@ -200,6 +204,7 @@ public class AdvisorService {
         // Leer ticket para logging y evento (read-only)
         Ticket ticket = ticketRepository.findById(ticketId)
             .orElseThrow(() -> new RuntimeException("Ticket not found: " + ticketId));
+        liveQueueIndex.registrarSalida(ticket);
 
         log.info("Iniciando atención para ticket {} (advisor_id={})",
             ticket.getNumero(),
@@ -245,6 +250,8 @@ public class AdvisorService {
         // Refrescar ticket para evento (status ya actualizado en DB)
         ticket.setStatus(TicketStatus.COMPLETED);
         ticket.setCompletedAt(ahora);
+        liveQueueIndex.registrarSalida(ticket);
+        waitTimeEstimator.registrarAtencion(ticket.getQueueType(), ticket.getStartedAt(), ahora);
 
         // Liberar asesor con validación
         Advisor asesor = liberarAsesorConValidacion(advisorId, ticketId, ticket);
@@ -259,6 +266,10 @@ public class AdvisorService {
             .build();
         ticketEventRepository.save(event);
 
+        if (asesor != null && asesor.getStatus() == AdvisorStatus.AVAILABLE) {
+            pullDispatcher.asesorDisponible(asesor.getId());
+        }
+
         log.info("[COMPLETAR] Fin - Ticket:{} COMPLETED. Asesor:{} Status:{}",
             ticket.getNumero(),
             asesor != null ? asesor.getName() : "N/A",
@@ -405,6 +416,11 @@ public class AdvisorService {
         asesor.setLastActiveAt(LocalDateTime.now());
         
         advisorRepository.save(asesor);
+        waitTimeEstimator.registrarEstadoAsesor(asesor);
+
+        if (nuevoEstado == AdvisorStatus.AVAILABLE) {
+            pullDispatcher.asesorDisponible(advisorId);
+        }
     }
 
     /**
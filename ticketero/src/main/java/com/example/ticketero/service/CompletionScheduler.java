@@ -0,0 +1,258 @@
+package com.example.ticketero.service;
+
+import com.example.ticketero.model.entity.Advisor;
+import com.example.ticketero.model.entity.Ticket;
+import com.example.ticketero.model.entity.TicketEvent;
+import com.example.ticketero.model.enums.EventType;
+import com.example.ticketero.repository.AdvisorRepository;
+import com.example.ticketero.repository.TicketEventRepository;
+import com.example.ticketero.repository.TicketRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Completado programado de atenciones (IN_PROGRESS → COMPLETED).
+ *
+ * Reemplaza el Thread.sleep en el thread del listener: al iniciar la atención,
+ * TicketProcessingService persiste ticket.service_due_at y programa aquí el
+ * completado. Unos pocos threads ejecutan miles de atenciones simultáneas,
+ * y el listener queda libre para el siguiente mensaje.
+ *
+ * Durabilidad: el vencimiento vive en la BD. Al arrancar se recargan los
+ * IN_PROGRESS pendientes (los vencidos se completan de inmediato). Además, un
+ * barrido periódico completa los vencidos hace más de app.atencion.completion-gracia-ms,
+ * que quedaron huérfanos si la instancia que los programó se cayó y no volvió
+ * a arrancar. El completado es un UPDATE condicional, así que si varias
+ * instancias recargan o barren el mismo ticket solo una lo completa.
+ *
+ * Cada completado se identifica por (ticket, service_due_at): si el ticket se
+ * re-despacha con otro vencimiento, el completado anterior no lo completa
+ * antes de tiempo y el nuevo no se descarta como duplicado.
+ */
+@Service
+@Slf4j
+public class CompletionScheduler {
+
+    /**
+     * Espera antes de reintentar un completado que falló (ej: BD no disponible).
+     */
+    private static final long REINTENTO_MS = 5000;
+
+    private final TicketRepository ticketRepository;
+    private final AdvisorRepository advisorRepository;
+    private final TicketEventRepository ticketEventRepository;
+    private final WaitTimeEstimator waitTimeEstimator;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Perezoso: AdvisorPullDispatcher depende (vía TicketProcessingService) de este scheduler.
+     */
+    private final ObjectProvider<AdvisorPullDispatcher> pullDispatcher;
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    /**
+     * Atraso tras el vencimiento desde el cual el barrido completa una atención
+     * (deja margen a la instancia que la programó).
+     */
+    private final long graciaMs;
+
+    /**
+     * Completados programados en esta instancia (evita duplicados
+     * por re-entregas del mensaje o por la recarga inicial).
+     */
+    private final Set<Programado> programados = ConcurrentHashMap.newKeySet();
+
+    public CompletionScheduler(TicketRepository ticketRepository,
+                               AdvisorRepository advisorRepository,
+                               TicketEventRepository ticketEventRepository,
+                               WaitTimeEstimator waitTimeEstimator,
+                               TransactionTemplate transactionTemplate,
+                               ObjectProvider<AdvisorPullDispatcher> pullDispatcher,
+                               @Value("${app.atencion.completion-pool-size:2}") int poolSize,
+                               @Value("${app.atencion.completion-gracia-ms:30000}") long graciaMs) {
+        this.ticketRepository = ticketRepository;
+        this.advisorRepository = advisorRepository;
+        this.ticketEventRepository = ticketEventRepository;
+        this.waitTimeEstimator = waitTimeEstimator;
+        this.transactionTemplate = transactionTemplate;
+        this.pullDispatcher = pullDispatcher;
+        this.graciaMs = graciaMs;
+
+        this.executor = new ScheduledThreadPoolExecutor(poolSize,
+            Thread.ofPlatform().name("completion-", 0).factory());
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Reprograma las atenciones en curso guardadas en la BD.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        List<TicketRepository.CompletadoPendiente> pendientes = ticketRepository.findPendingCompletions();
+        pendientes.forEach(p -> programar(p.getId(), p.getServiceDueAt()));
+        log.info("CompletionScheduler cargado: {} atenciones en curso", pendientes.size());
+    }
+
+    /**
+     * Completa las atenciones vencidas hace más de la gracia, programadas o no en
+     * esta instancia (las ya programadas aquí se descartan como duplicadas).
+     */
+    @Scheduled(fixedDelayString = "${app.atencion.completion-barrido-ms:30000}",
+               initialDelayString = "${app.atencion.completion-barrido-ms:30000}")
+    public void barrerVencidos() {
+        List<TicketRepository.CompletadoPendiente> vencidos =
+            ticketRepository.findOverdueCompletions(LocalDateTime.now().minus(Duration.ofMillis(graciaMs)));
+        if (vencidos.isEmpty()) {
+            return;
+        }
+        int antes = programados.size();
+        vencidos.forEach(v -> programar(v.getId(), v.getServiceDueAt()));
+        int nuevos = programados.size() - antes;
+        if (nuevos > 0) {
+            log.warn("[COMPLETION] Barrido: {} atenciones vencidas sin completado programado en esta instancia",
+                nuevos);
+        }
+    }
+
+    /**
+     * Programa el completado de un ticket IN_PROGRESS.
+     * Debe llamarse después del commit que guardó service_due_at.
+     *
+     * @param vencimiento service_due_at guardado (null = completar de inmediato)
+     */
+    public void programar(Long ticketId, LocalDateTime vencimiento) {
+        Programado programado = new Programado(ticketId, vencimiento);
+        if (!programados.add(programado)) {
+            log.debug("[COMPLETION] Ticket {} ya programado para {}", ticketId, vencimiento);
+            return;
+        }
+
+        long demoraMs = vencimiento == null
+            ? 0
+            : Math.max(0, Duration.between(LocalDateTime.now(), vencimiento).toMillis());
+        executor.schedule(() -> ejecutar(programado), demoraMs, TimeUnit.MILLISECONDS);
+        log.debug("[COMPLETION] Ticket {} se completa en {} ms", ticketId, demoraMs);
+    }
+
+    /**
+     * Completados programados que aún no se ejecutan.
+     */
+    public int pendientes() {
+        return programados.size();
+    }
+
+    @PreDestroy
+    public void detener() {
+        // Los no ejecutados quedan IN_PROGRESS con service_due_at: se recargan al iniciar
+        // o los completa el barrido de otra instancia
+        List<Runnable> noEjecutados = executor.shutdownNow();
+        log.info("CompletionScheduler detenido: {} completados quedan en la BD", noEjecutados.size());
+    }
+
+    /**
+     * Ejecuta el completado en su propia TX corta. Si falla, se reintenta.
+     */
+    private void ejecutar(Programado programado) {
+        try {
+            transactionTemplate.execute(status -> completar(programado));
+            programados.remove(programado);
+        } catch (Exception e) {
+            log.warn("[COMPLETION] Error completando ticket {}: {}. Reintento en {} ms",
+                programado.ticketId(), e.getMessage(), REINTENTO_MS);
+            if (!executor.isShutdown()) {
+                executor.schedule(() -> ejecutar(programado), REINTENTO_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Completa la atención y libera al advisor.
+     *
+     * @return false si el ticket ya no estaba IN_PROGRESS con el vencimiento programado
+     */
+    private boolean completar(Programado programado) {
+        Long ticketId = programado.ticketId();
+        LocalDateTime ahora = LocalDateTime.now();
+        if (ticketRepository.completeIfInProgress(ticketId, programado.vencimiento(), ahora) == 0) {
+            log.info("[COMPLETION] Ticket {} ya no está en IN_PROGRESS con vencimiento {}. Idempotencia OK.",
+                ticketId, programado.vencimiento());
+            return false;
+        }
+
+        Ticket ticket = ticketRepository.findById(ticketId).orElseThrow();
+        Advisor advisor = ticket.getAssignedAdvisor();
+        waitTimeEstimator.registrarAtencion(ticket.getQueueType(), ticket.getStartedAt(), ticket.getCompletedAt());
+
+        ticketEventRepository.save(TicketEvent.builder()
+            .ticket(ticket)
+            .eventType(EventType.COMPLETED)
+            .newStatus(ticket.getStatus().name())
+            .advisor(advisor)
+            .notes("Atención completada")
+            .build());
+
+        if (advisor == null) {
+            log.info("[COMPLETION] Ticket {} COMPLETADO (sin advisor asignado)", ticket.getNumero());
+            return true;
+        }
+
+        // Liberar advisor (BUSY → AVAILABLE); 0 filas = ya liberado por RecoveryService
+        int liberado = advisorRepository.releaseIfBusy(
+            advisor.getId(), calcularTiempoPromedioAsesor(advisor, ticket), ahora);
+        if (liberado == 1) {
+            pullDispatcher.getObject().asesorDisponible(advisor.getId());
+        }
+
+        log.info("[COMPLETION] Ticket {} COMPLETADO. Advisor {} {}. Total servidos: {}",
+            ticket.getNumero(), advisor.getName(), liberado == 1 ? "liberado" : "ya estaba liberado",
+            advisor.getTotalTicketsServed() + liberado);
+
+        return true;
+    }
+
+    /**
+     * Calcula el tiempo promedio de atención del asesor incluyendo este ticket.
+     * Usa promedio móvil simple.
+     */
+    private int calcularTiempoPromedioAsesor(Advisor advisor, Ticket ticket) {
+        int avgActual = advisor.getAvgServiceTimeMinutes();
+        if (ticket.getStartedAt() == null || ticket.getCompletedAt() == null) {
+            return avgActual;
+        }
+
+        long segundos = ChronoUnit.SECONDS.between(ticket.getStartedAt(), ticket.getCompletedAt());
+
+        double minutos = segundos / 60.0;
+        int totalServed = advisor.getTotalTicketsServed() + 1;
+
+        int nuevoPromedio = (int) Math.round(
+            (avgActual * (totalServed - 1) + minutos) / totalServed
+        );
+
+        log.debug("[COMPLETION] Tiempo atención: {}s. Promedio advisor {}: {} min",
+            segundos, advisor.getName(), nuevoPromedio);
+        return nuevoPromedio;
+    }
+
+    /**
+     * Completado programado: ticket y service_due_at de la atención.
+     */
+    private record Programado(Long ticketId, LocalDateTime vencimiento) {}
+}
@@ -0,0 +1,90 @@
+package com.example.ticketero.service;
+
+import com.example.ticketero.model.dto.ActiveTicketResponse;
+import com.example.ticketero.model.enums.QueueType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Compara periódicamente LiveQueueIndex con la BD y corrige las diferencias.
+ *
+ * Un ticket difiere si está activo solo en un lado, o con distinto estado o queue_seq.
+ * Como un cambio puede estar commiteado pero aún no aplicado al índice (afterCommit
+ * en curso), solo se corrigen los tickets que difieren en dos ciclos consecutivos.
+ *
+ * Cubre también los cambios hechos por otras instancias de la aplicación.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LiveQueueConsistencyChecker {
+
+    private final LiveQueueIndex liveQueueIndex;
+    private final MetricsService metricsService;
+
+    /**
+     * Tickets que difirieron en el ciclo anterior, por cola.
+     */
+    private final Map<QueueType, Set<Long>> pendientes = new EnumMap<>(QueueType.class);
+
+    @Scheduled(fixedDelayString = "${app.live-queue.verificacion-ms:30000}")
+    public synchronized void verificar() {
+        if (!liveQueueIndex.isCargado()) {
+            return;
+        }
+
+        Map<QueueType, List<ActiveTicketResponse>> enBD = liveQueueIndex.leerActivosDesdeBD();
+
+        for (QueueType queueType : QueueType.values()) {
+            Map<Long, ActiveTicketResponse> bd = enBD.get(queueType).stream()
+                .collect(Collectors.toMap(ActiveTicketResponse::id, Function.identity()));
+            Map<Long, ActiveTicketResponse> memoria = liveQueueIndex.instantanea(queueType);
+
+            Set<Long> diferentes = diferencias(memoria, bd);
+            Set<Long> confirmados = new HashSet<>(diferentes);
+            confirmados.retainAll(pendientes.getOrDefault(queueType, Set.of()));
+            diferentes.removeAll(confirmados);
+            pendientes.put(queueType, diferentes);
+
+            if (!confirmados.isEmpty()) {
+                liveQueueIndex.corregir(queueType, confirmados, bd);
+                metricsService.incrementLiveQueueRepairs(queueType, confirmados.size());
+                log.warn("Cola viva {} difería de la BD en {} tickets (IDs {}): corregida",
+                    queueType, confirmados.size(), confirmados);
+            }
+        }
+    }
+
+    private static Set<Long> diferencias(Map<Long, ActiveTicketResponse> memoria,
+                                         Map<Long, ActiveTicketResponse> bd) {
+        Set<Long> diferentes = new HashSet<>();
+
+        for (Map.Entry<Long, ActiveTicketResponse> e : bd.entrySet()) {
+            ActiveTicketResponse m = memoria.get(e.getKey());
+            if (m == null
+                    || m.status() != e.getValue().status()
+                    || !Objects.equals(m.queueSeq(), e.getValue().queueSeq())) {
+                diferentes.add(e.getKey());
+            }
+        }
+
+        for (Long id : memoria.keySet()) {
+            if (!bd.containsKey(id)) {
+                diferentes.add(id);
+            }
+        }
+
+        return diferentes;
+    }
+}
@@ -0,0 +1,499 @@
+package com.example.ticketero.service;
+
+import com.example.ticketero.model.dto.ActiveTicketResponse;
+import com.example.ticketero.model.entity.Ticket;
+import com.example.ticketero.model.enums.QueueType;
+import com.example.ticketero.model.enums.TicketStatus;
+import com.example.ticketero.repository.TicketRepository;
+import com.example.ticketero.util.AfterCommit;
+import com.example.ticketero.util.FenwickTree;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Modelo en memoria de las colas vivas: tickets WAITING y CALLED por QueueType.
+ *
+ * Es la ruta de lectura del dashboard, del estado de cola, de la consulta de
+ * posición y del siguiente ticket: ninguna de ellas toca PostgreSQL.
+ *
+ * Estructura por cola:
+ * - TreeMap queue_seq → ticket en espera (orden de la cola, primeros N en O(log n + N))
+ * - Fenwick tree sobre queue_seq: tickets adelante en O(log n)
+ * - Tickets llamados en orden de llamado
+ * - Índice (número, día) → ticket para la consulta de posición
+ *
+ * Se carga desde la BD al iniciar y se actualiza después del commit de las TX
+ * que cambian el estado de un ticket (un rollback no deja rastro). Las
+ * actualizaciones que llegan mientras se lee la BD se difieren y se reaplican
+ * sobre la carga, en orden, para no perder las que la lectura no alcanzó a ver.
+ * LiveQueueConsistencyChecker lo compara periódicamente con la BD y corrige
+ * las diferencias (también las causadas por otras instancias).
+ */
+@Service
+@Slf4j
+public class LiveQueueIndex {
+
+    /**
+     * Capacidad inicial de la ventana de queue_seq de cada cola.
+     */
+    private static final int CAPACIDAD_INICIAL = 1024;
+
+    /**
+     * Tamaño máximo de la ventana del Fenwick. Los tickets en espera con queue_seq
+     * anterior a la ventana (rezagados) se cuentan desde el TreeMap.
+     */
+    static final int VENTANA_MAXIMA = 1 << 18;
+
+    private final TicketRepository ticketRepository;
+
+    /**
+     * Estado por cola. El mapa no cambia después del constructor;
+     * cada cola se modifica solo bajo su propio lock.
+     */
+    private final Map<QueueType, ColaViva> colas = new EnumMap<>(QueueType.class);
+
+    private volatile boolean cargado;
+
+    public LiveQueueIndex(TicketRepository ticketRepository) {
+        this.ticketRepository = ticketRepository;
+
+        for (QueueType queueType : QueueType.values()) {
+            colas.put(queueType, new ColaViva());
+        }
+    }
+
+    /**
+     * Carga los tickets activos de todas las colas.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        colas.values().forEach(ColaViva::diferirActualizaciones);
+        Map<QueueType, List<ActiveTicketResponse>> activos = leerActivosDesdeBD();
+        activos.forEach((queueType, tickets) -> colas.get(queueType).reemplazar(tickets));
+        cargado = true;
+
+        log.info("Colas vivas cargadas: {}", colas.entrySet().stream()
+            .map(e -> e.getKey() + "=" + e.getValue().contarEnEspera() + "/" + e.getValue().contarLlamados())
+            .toList());
+    }
+
+    public boolean isCargado() {
+        return cargado;
+    }
+
+    // =========================================================================
+    // Escrituras (se aplican al hacer commit de la TX actual)
+    // =========================================================================
+
+    /**
+     * Registra un ticket que entró a la cola (creación, lote o reencolado).
+     */
+    public void registrarEncolado(Ticket ticket) {
+        if (ticket.getQueueSeq() == null) {
+            return;
+        }
+        ActiveTicketResponse entrada = aEntrada(ticket, TicketStatus.WAITING);
+        AfterCommit.run(() -> colas.get(entrada.queueType()).actualizar(entrada));
+    }
+
+    /**
+     * Registra un ticket que pasó de WAITING a CALLED.
+     */
+    public void registrarLlamado(Ticket ticket) {
+        ActiveTicketResponse entrada = aEntrada(ticket, TicketStatus.CALLED);
+        AfterCommit.run(() -> colas.get(entrada.queueType()).actualizar(entrada));
+    }
+
+    /**
+     * Registra un ticket que dejó de estar activo (IN_PROGRESS, COMPLETED, CANCELLED).
+     */
+    public void registrarSalida(Ticket ticket) {
+        ColaViva cola = colas.get(ticket.getQueueType());
+        Long id = ticket.getId();
+        AfterCommit.run(() -> cola.retirar(id));
+    }
+
+    // =========================================================================
+    // Lecturas (sin BD)
+    // =========================================================================
+
+    /**
+     * Ticket activo por número y día de atención.
+     * La posición viene calculada si está en espera.
+     */
+    public Optional<ActiveTicketResponse> buscar(QueueType queueType, String numero, LocalDate serviceDate) {
+        return colas.get(queueType).buscar(numero, serviceDate);
+    }
+
+    /**
+     * Tickets en espera con queue_seq menor al indicado.
+     */
+    public int contarAdelante(QueueType queueType, long queueSeq) {
+        return colas.get(queueType).contarAdelante(queueSeq);
+    }
+
+    /**
+     * Primeros números en espera de la cola, delante de queue_seq.
+     *
+     * @param limite Máximo de números a retornar
+     */
+    public List<String> numerosAdelante(QueueType queueType, long queueSeq, int limite) {
+        return colas.get(queueType).numerosAdelante(queueSeq, limite);
+    }
+
+    /**
+     * Primeros tickets en espera, con su posición (1..limite).
+     */
+    public List<ActiveTicketResponse> primerosEnEspera(QueueType queueType, int limite) {
+        return colas.get(queueType).primerosEnEspera(limite);
+    }
+
+    /**
+     * Tickets activos de una cola: llamados primero, luego en espera por posición.
+     */
+    public List<ActiveTicketResponse> activos(QueueType queueType) {
+        return colas.get(queueType).activos();
+    }
+
+    public int contarEnEspera(QueueType queueType) {
+        return colas.get(queueType).contarEnEspera();
+    }
+
+    public int contarLlamados(QueueType queueType) {
+        return colas.get(queueType).contarLlamados();
+    }
+
+    // =========================================================================
+    // Consistencia (ver LiveQueueConsistencyChecker)
+    // =========================================================================
+
+    /**
+     * Tickets activos según la BD, agrupados por cola.
+     */
+    Map<QueueType, List<ActiveTicketResponse>> leerActivosDesdeBD() {
+        Map<QueueType, List<ActiveTicketResponse>> activos = new EnumMap<>(QueueType.class);
+        for (QueueType queueType : QueueType.values()) {
+            activos.put(queueType, new ArrayList<>());
+        }
+
+        for (TicketRepository.TicketActivo t : ticketRepository.findActiveSnapshots()) {
+            activos.get(t.getQueueType()).add(new ActiveTicketResponse(
+                t.getId(), t.getNumero(), t.getQueueType(), t.getStatus(), t.getQueueSeq(), null,
+                t.getAssignedModuleNumber(), t.getServiceDate(), t.getCreatedAt(), t.getCalledAt()
+            ));
+        }
+        return activos;
+    }
+
+    /**
+     * Copia de los tickets activos de una cola, por ID (sin posición).
+     */
+    Map<Long, ActiveTicketResponse> instantanea(QueueType queueType) {
+        return colas.get(queueType).instantanea();
+    }
+
+    /**
+     * Reemplaza los tickets indicados por su versión en la BD
+     * (ausente en la BD = ya no está activo).
+     */
+    void corregir(QueueType queueType, Collection<Long> ids, Map<Long, ActiveTicketResponse> enBD) {
+        colas.get(queueType).corregir(ids, enBD);
+    }
+
+    private static ActiveTicketResponse aEntrada(Ticket ticket, TicketStatus status) {
+        return new ActiveTicketResponse(
+            ticket.getId(),
+            ticket.getNumero(),
+            ticket.getQueueType(),
+            status,
+            ticket.getQueueSeq(),
+            null,
+            ticket.getAssignedModuleNumber(),
+            ticket.getServiceDate(),
+            ticket.getCreatedAt(),
+            ticket.getCalledAt()
+        );
+    }
+
+    private static ActiveTicketResponse conPosicion(ActiveTicketResponse t, Integer posicion) {
+        return new ActiveTicketResponse(
+            t.id(), t.numero(), t.queueType(), t.status(), t.queueSeq(), posicion,
+            t.assignedModuleNumber(), t.serviceDate(), t.createdAt(), t.calledAt()
+        );
+    }
+
+    private record ClaveNumero(String numero, LocalDate serviceDate) {}
+
+    /**
+     * Tickets activos de una cola.
+     * El Fenwick cubre la ventana de queue_seq [base, base + capacidad), de a lo más
+     * VENTANA_MAXIMA; se reconstruye cuando un queue_seq queda fuera de la ventana.
+     * Un ticket olvidado en espera no estira la ventana: queda antes de base
+     * y se cuenta recorriendo el TreeMap.
+     */
+    private static class ColaViva {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final TreeMap<Long, ActiveTicketResponse> enEspera = new TreeMap<>();
+        private final Map<Long, ActiveTicketResponse> llamados = new LinkedHashMap<>();
+        private final Map<Long, ActiveTicketResponse> porId = new HashMap<>();
+        private final Map<ClaveNumero, ActiveTicketResponse> porNumero = new HashMap<>();
+        private FenwickTree arbol = new FenwickTree(CAPACIDAD_INICIAL);
+        private long base = 0;
+
+        /**
+         * Actualizaciones recibidas durante una carga, en orden de llegada (null fuera de una carga).
+         */
+        private List<Runnable> diferidas;
+
+        void diferirActualizaciones() {
+            lock.writeLock().lock();
+            try {
+                diferidas = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Reemplaza el contenido por la lectura de la BD y reaplica las
+         * actualizaciones recibidas mientras se leía (ya incluidas o no en la lectura:
+         * son idempotentes y dejan el último estado commiteado).
+         */
+        void reemplazar(List<ActiveTicketResponse> activos) {
+            lock.writeLock().lock();
+            try {
+                enEspera.clear();
+                llamados.clear();
+                porId.clear();
+                porNumero.clear();
+                activos.stream()
+                    .sorted(Comparator.comparing(ActiveTicketResponse::queueSeq,
+                        Comparator.nullsFirst(Comparator.naturalOrder())))
+                    .forEach(this::agregar);
+                reconstruir();
+
+                if (diferidas != null) {
+                    diferidas.forEach(Runnable::run);
+                    diferidas = null;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void actualizar(ActiveTicketResponse t) {
+            aplicar(() -> {
+                quitar(t.id());
+                agregar(t);
+            });
+        }
+
+        void retirar(Long id) {
+            aplicar(() -> quitar(id));
+        }
+
+        private void aplicar(Runnable actualizacion) {
+            lock.writeLock().lock();
+            try {
+                if (diferidas != null) {
+                    diferidas.add(actualizacion);
+                } else {
+                    actualizacion.run();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void corregir(Collection<Long> ids, Map<Long, ActiveTicketResponse> enBD) {
+            lock.writeLock().lock();
+            try {
+                for (Long id : ids) {
+                    quitar(id);
+                    ActiveTicketResponse t = enBD.get(id);
+                    if (t != null) {
+                        agregar(t);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        Optional<ActiveTicketResponse> buscar(String numero, LocalDate serviceDate) {
+            lock.readLock().lock();
+            try {
+                ActiveTicketResponse t = porNumero.get(new ClaveNumero(numero, serviceDate));
+                if (t == null || t.status() != TicketStatus.WAITING) {
+                    return Optional.ofNullable(t);
+                }
+                return Optional.of(conPosicion(t, rango(t.queueSeq()) + 1));
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        int contarAdelante(long queueSeq) {
+            lock.readLock().lock();
+            try {
+                return rango(queueSeq);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        List<String> numerosAdelante(long queueSeq, int limite) {
+            lock.readLock().lock();
+            try {
+                List<String> numeros = new ArrayList<>(Math.min(limite, enEspera.size()));
+                for (ActiveTicketResponse t : enEspera.headMap(queueSeq, false).values()) {
+                    if (numeros.size() >= limite) {
+                        break;
+                    }
+                    numeros.add(t.numero());
+                }
+                return numeros;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        List<ActiveTicketResponse> primerosEnEspera(int limite) {
+            lock.readLock().lock();
+            try {
+                List<ActiveTicketResponse> primeros = new ArrayList<>(Math.min(limite, enEspera.size()));
+                for (ActiveTicketResponse t : enEspera.values()) {
+                    if (primeros.size() >= limite) {
+                        break;
+                    }
+                    primeros.add(conPosicion(t, primeros.size() + 1));
+                }
+                return primeros;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        List<ActiveTicketResponse> activos() {
+            lock.readLock().lock();
+            try {
+                List<ActiveTicketResponse> activos = new ArrayList<>(llamados.size() + enEspera.size());
+                activos.addAll(llamados.values());
+                int posicion = 1;
+                for (ActiveTicketResponse t : enEspera.values()) {
+                    activos.add(conPosicion(t, posicion++));
+                }
+                return activos;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        Map<Long, ActiveTicketResponse> instantanea() {
+            lock.readLock().lock();
+            try {
+                return new HashMap<>(porId);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        int contarEnEspera() {
+            lock.readLock().lock();
+            try {
+                return enEspera.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        int contarLlamados() {
+            lock.readLock().lock();
+            try {
+                return llamados.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        // --- Con el write lock tomado ---
+
+        private void agregar(ActiveTicketResponse t) {
+            porId.put(t.id(), t);
+            porNumero.put(new ClaveNumero(t.numero(), t.serviceDate()), t);
+
+            if (t.status() != TicketStatus.WAITING) {
+                llamados.put(t.id(), t);
+                return;
+            }
+
+            long queueSeq = t.queueSeq();
+            enEspera.put(queueSeq, t);
+            if (queueSeq - base >= arbol.size()
+                    || (queueSeq < base && enEspera.lastKey() - queueSeq < VENTANA_MAXIMA / 2)) {
+                reconstruir();
+            } else if (queueSeq >= base) {
+                arbol.add((int) (queueSeq - base), 1);
+            }
+        }
+
+        private void quitar(Long id) {
+            ActiveTicketResponse t = porId.remove(id);
+            if (t == null) {
+                return;
+            }
+            porNumero.remove(new ClaveNumero(t.numero(), t.serviceDate()));
+            llamados.remove(id);
+            if (t.status() == TicketStatus.WAITING && enEspera.remove(t.queueSeq()) != null
+                    && t.queueSeq() >= base) {
+                arbol.add((int) (t.queueSeq() - base), -1);
+            }
+        }
+
+        // --- Con algún lock tomado ---
+
+        private int rango(long queueSeq) {
+            int rezagados = enEspera.headMap(Math.min(queueSeq, base), false).size();
+            return rezagados + arbol.prefixSum((int) Math.min(queueSeq - 1 - base, Integer.MAX_VALUE));
+        }
+
+        /**
+         * Reubica la ventana desde el primer ticket en espera, con holgura
+         * para el doble de los queue_seq actuales (costo amortizado O(1) por alta).
+         * Si el primero está a más de media VENTANA_MAXIMA del último, la ventana
+         * empieza en último - VENTANA_MAXIMA / 2 y los anteriores quedan como rezagados.
+         */
+        private void reconstruir() {
+            if (enEspera.isEmpty()) {
+                base = 0;
+                arbol = new FenwickTree(CAPACIDAD_INICIAL);
+                return;
+            }
+
+            long ultimo = enEspera.lastKey();
+            long desde = Math.max(enEspera.firstKey(), ultimo - VENTANA_MAXIMA / 2 + 1);
+            long rango = ultimo - desde + 1;
+
+            base = desde;
+            arbol = new FenwickTree((int) Math.min(VENTANA_MAXIMA, Math.max(CAPACIDAD_INICIAL, rango * 2)));
+            for (long queueSeq : enEspera.tailMap(base, true).keySet()) {
+                arbol.add((int) (queueSeq - base), 1);
+            }
+        }
+    }
+}
@@ -25,13 +25,20 @@ public class MetricsService {
      * Incrementa contador de tickets creados por cola.
      */
     public void incrementTicketsCreated(QueueType queueType) {
+        incrementTicketsCreated(queueType, 1);
+    }
+
+    /**
+     * Incrementa contador de tickets creados por cola en una cantidad (lotes).
+     */
+    public void incrementTicketsCreated(QueueType queueType, int cantidad) {
         Counter.builder("tickets.created")
                 .tag("queue", queueType.name())
                 .description("Total de tickets creados por cola")
                 .register(registry)
-                .increment();
+                .increment(cantidad);
         
-        log.debug("Métrica: tickets.created incrementada para cola {}", queueType);
+        log.debug("Métrica: tickets.created +{} para cola {}", cantidad, queueType);
     }
 
     /**
@@ -69,6 +76,61 @@ public class MetricsService {
                 .increment();
     }
 
+    /**
+     * Incrementa contador de notificaciones descartadas (reintentos agotados).
+     */
+    public void incrementNotificationsFailed(String type) {
+        Counter.builder("notifications.failed")
+                .tag("type", type)
+                .description("Total de notificaciones fallidas por tipo")
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Incrementa contador de reintentos de notificación.
+     */
+    public void incrementNotificationsRetried(String type) {
+        Counter.builder("notifications.retried")
+                .tag("type", type)
+                .description("Total de reintentos de notificación por tipo")
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Registra el tiempo de entrega de una notificación (llamada a Telegram).
+     */
+    public void recordNotificationDeliveryTime(String type, long millis) {
+        Timer.builder("notifications.delivery.time")
+                .tag("type", type)
+                .description("Tiempo de entrega de notificaciones por tipo")
+                .register(registry)
+                .record(millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registra el tiempo entre la creación de la intención y su entrega.
+     */
+    public void recordNotificationLag(String type, long millis) {
+        Timer.builder("notifications.lag")
+                .tag("type", type)
+                .description("Tiempo desde el evento hasta la entrega de la notificación")
+                .register(registry)
+                .record(millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Incrementa contador de tickets corregidos en la cola viva (difería de la BD).
+     */
+    public void incrementLiveQueueRepairs(QueueType queueType, int cantidad) {
+        Counter.builder("live.queue.repairs")
+                .tag("queue", queueType.name())
+                .description("Tickets de la cola en memoria corregidos contra la BD")
+                .register(registry)
+                .increment(cantidad);
+    }
+
     /**
      * Incrementa contador de errores.
      */
@@ -0,0 +1,135 @@
+package com.example.ticketero.service;
+
+import com.example.ticketero.model.dto.ActiveTicketResponse;
+import com.example.ticketero.model.dto.QueueConfigSnapshot;
+import com.example.ticketero.model.enums.QueueType;
+import com.example.ticketero.util.AfterCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Elige de qué cola toma ticket un asesor multi-cola (despacho pull).
+ *
+ * Round-robin con déficit ponderado (variante "smooth" de DRR, costo 1 por ticket):
+ * - Peso de la cola = 1 / QueueConfig.priority (priority 1 = mayor peso), multiplicado
+ *   por el envejecimiento del primer ticket en espera: +1 peso base cada
+ *   app.dispatch.aging-minutes de espera, para que ninguna cola quede postergada
+ * - En cada despacho, toda cola candidata (con tickets en espera) suma su peso a
+ *   su crédito; se elige la de mayor crédito y se le descuenta la suma de pesos
+ * - Una cola vacía pierde su crédito (no acumula mientras no tiene tickets)
+ *
+ * A largo plazo cada cola recibe asesores en proporción a su peso. El estado
+ * (créditos) vive en memoria y la decisión lee LiveQueueIndex y QueueConfigCache:
+ * O(cantidad de colas), sin consultas a la BD.
+ */
+@Service
+@Slf4j
+public class MultiQueueScheduler {
+
+    private final LiveQueueIndex liveQueueIndex;
+    private final QueueConfigCache queueConfigCache;
+
+    /**
+     * Minutos de espera del primer ticket que suman un peso base a su cola.
+     */
+    private final double agingMinutes;
+
+    /**
+     * Crédito por cola. Protegido por el lock de esta instancia.
+     */
+    private final Map<QueueType, Double> creditos = new EnumMap<>(QueueType.class);
+
+    public MultiQueueScheduler(LiveQueueIndex liveQueueIndex,
+                               QueueConfigCache queueConfigCache,
+                               @Value("${app.dispatch.aging-minutes:10}") double agingMinutes) {
+        this.liveQueueIndex = liveQueueIndex;
+        this.queueConfigCache = queueConfigCache;
+        this.agingMinutes = agingMinutes;
+
+        for (QueueType queueType : QueueType.values()) {
+            creditos.put(queueType, 0.0);
+        }
+    }
+
+    /**
+     * Colas del asesor con tickets en espera, en orden de preferencia.
+     * La primera es la elegida; las demás sirven de respaldo si su ticket
+     * ya fue tomado por otro despacho. No modifica los créditos.
+     *
+     * Sin LiveQueueIndex cargado, retorna las colas activas por prioridad.
+     */
+    public synchronized List<Candidata> ordenar(Set<QueueType> colasAsesor) {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Candidata> candidatas = new ArrayList<>(colasAsesor.size());
+
+        for (QueueType queueType : colasAsesor) {
+            QueueConfigSnapshot config = queueConfigCache.buscar(queueType).orElse(null);
+            if (config != null && !config.active()) {
+                continue;
+            }
+            double pesoBase = 1.0 / Math.max(1, config != null ? config.priority() : 1);
+
+            if (!liveQueueIndex.isCargado()) {
+                candidatas.add(new Candidata(queueType, pesoBase, pesoBase, null));
+                continue;
+            }
+
+            List<ActiveTicketResponse> primero = liveQueueIndex.primerosEnEspera(queueType, 1);
+            if (primero.isEmpty()) {
+                creditos.put(queueType, 0.0);
+                continue;
+            }
+
+            LocalDateTime llegada = primero.get(0).createdAt();
+            double esperaMinutos = llegada != null
+                ? Math.max(0, Duration.between(llegada, ahora).toMillis() / 60000.0)
+                : 0;
+            double peso = pesoBase * (1 + esperaMinutos / agingMinutes);
+            candidatas.add(new Candidata(queueType, peso, creditos.get(queueType) + peso, llegada));
+        }
+
+        candidatas.sort(Comparator.comparingDouble(Candidata::puntaje).reversed()
+            .thenComparing(Candidata::primeraLlegada, Comparator.nullsLast(Comparator.naturalOrder())));
+        return candidatas;
+    }
+
+    /**
+     * Registra que un asesor tomó un ticket de {@code servida}, elegida entre
+     * {@code candidatas} (resultado de ordenar). Se aplica al hacer commit:
+     * un despacho revertido no mueve los créditos.
+     */
+    public void registrarDespacho(QueueType servida, List<Candidata> candidatas) {
+        AfterCommit.run(() -> aplicarDespacho(servida, candidatas));
+    }
+
+    private synchronized void aplicarDespacho(QueueType servida, List<Candidata> candidatas) {
+        double total = 0;
+        for (Candidata candidata : candidatas) {
+            creditos.merge(candidata.queueType(), candidata.peso(), Double::sum);
+            total += candidata.peso();
+        }
+        creditos.merge(servida, -total, Double::sum);
+
+        log.debug("[SCHEDULER] Despacho desde {} entre {} colas. Créditos: {}",
+            servida, candidatas.size(), creditos);
+    }
+
+    /**
+     * Cola candidata para un despacho.
+     *
+     * @param peso           Peso efectivo (prioridad × envejecimiento)
+     * @param puntaje        Crédito acumulado + peso (criterio de elección)
+     * @param primeraLlegada Llegada del primer ticket en espera (desempate)
+     */
+    public record Candidata(QueueType queueType, double peso, double puntaje, LocalDateTime primeraLlegada) {}
+}
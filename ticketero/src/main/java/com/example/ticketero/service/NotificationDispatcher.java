@@ -0,0 +1,222 @@
+package com.example.ticketero.service;
+
+import com.example.ticketero.model.entity.NotificationIntent;
+import com.example.ticketero.repository.NotificationIntentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Entrega asíncrona de notificaciones (intenciones guardadas por NotificationService).
+ *
+ * Flujo por ciclo:
+ * 1. TX corta: reclama intenciones PENDING (FOR UPDATE SKIP LOCKED) y las marca PROCESSING
+ * 2. Envía cada una a Telegram desde el executor dedicado (sin TX abierta)
+ * 3. TX corta por resultado: SENT, o reintento con backoff exponencial, o FAILED
+ *
+ * Solo reclama tantas intenciones como threads ociosos tenga el executor: una
+ * intención reclamada empieza a enviarse de inmediato y no espera en la cola del
+ * executor, así que processing-timeout-seconds solo tiene que cubrir un envío
+ * (timeouts de Telegram), no el vaciado de un backlog. Un Telegram lento frena
+ * la entrega pero nunca la creación de tickets.
+ *
+ * Los resultados (SENT, reintento, FAILED) son condicionales al reclamo
+ * (PROCESSING con el mismo claimed_at): si la intención fue recuperada por
+ * timeout y reclamada de nuevo, el despacho anterior no pisa su estado.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationDispatcher {
+
+    private final NotificationIntentRepository notificationIntentRepository;
+    private final TelegramService telegramService;
+    private final MetricsService metricsService;
+    private final ThreadPoolTaskExecutor notificationExecutor;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.notifications.dispatcher.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.notifications.dispatcher.processing-timeout-seconds:120}")
+    private int processingTimeoutSeconds;
+
+    /**
+     * Reclama y despacha intenciones pendientes.
+     */
+    @Scheduled(fixedDelayString = "${app.notifications.dispatcher.poll-interval-ms:500}")
+    public void despacharPendientes() {
+        int capacidad = capacidadDisponible();
+        if (capacidad <= 0) {
+            log.debug("Executor de notificaciones sin capacidad, se omite el ciclo");
+            return;
+        }
+
+        // Precisión de milisegundos: se compara contra claimed_at guardado en la BD
+        LocalDateTime reclamo = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        List<NotificationIntent> reclamadas = transactionTemplate.execute(status -> reclamar(capacidad, reclamo));
+        if (reclamadas == null || reclamadas.isEmpty()) {
+            return;
+        }
+
+        log.debug("Despachando {} notificaciones", reclamadas.size());
+
+        for (NotificationIntent intent : reclamadas) {
+            try {
+                notificationExecutor.execute(() -> entregar(intent, reclamo));
+            } catch (TaskRejectedException e) {
+                log.warn("Executor lleno, notificación {} vuelve a PENDING", intent.getId());
+                transactionTemplate.executeWithoutResult(
+                    status -> notificationIntentRepository.releaseClaim(intent.getId()));
+            }
+        }
+    }
+
+    /**
+     * Reclama hasta {@code limite} intenciones y las marca PROCESSING con claimedAt = {@code reclamo}.
+     */
+    private List<NotificationIntent> reclamar(int limite, LocalDateTime reclamo) {
+        List<NotificationIntent> pendientes = notificationIntentRepository.findPendingForDispatch(
+            reclamo,
+            PageRequest.of(0, limite)
+        );
+
+        if (!pendientes.isEmpty()) {
+            notificationIntentRepository.markAsProcessing(
+                pendientes.stream().map(NotificationIntent::getId).toList(),
+                reclamo
+            );
+        }
+
+        return pendientes;
+    }
+
+    /**
+     * Entrega una intención a Telegram y registra el resultado.
+     * Se ejecuta en el executor de notificaciones.
+     */
+    private void entregar(NotificationIntent intent, LocalDateTime reclamo) {
+        String tipo = intent.getNotificationType().name();
+        long inicio = System.currentTimeMillis();
+
+        try {
+            telegramService.enviarMensaje(intent.getTelefono(), intent.getMensaje());
+
+            long duracion = System.currentTimeMillis() - inicio;
+            Integer marcadas = transactionTemplate.execute(
+                status -> notificationIntentRepository.markAsSent(intent.getId(), reclamo, LocalDateTime.now()));
+            if (marcadas == null || marcadas == 0) {
+                log.warn("Notificación {} entregada pero su reclamo ya no estaba vigente (recuperada por timeout)",
+                    intent.getId());
+            }
+
+            metricsService.incrementNotificationsSent(tipo);
+            metricsService.recordNotificationDeliveryTime(tipo, duracion);
+            metricsService.recordNotificationLag(tipo,
+                Duration.between(intent.getCreatedAt(), LocalDateTime.now()).toMillis());
+
+            log.debug("Notificación {} ({}) entregada en {} ms", intent.getId(), tipo, duracion);
+
+        } catch (Exception e) {
+            manejarFallo(intent, reclamo, tipo, e);
+        }
+    }
+
+    /**
+     * Programa reintento con backoff exponencial o marca como FAILED.
+     */
+    private void manejarFallo(NotificationIntent intent, LocalDateTime reclamo, String tipo, Exception e) {
+        String errorMsg = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        int nuevoRetry = intent.getRetryCount() + 1;
+
+        try {
+            if (nuevoRetry >= intent.getMaxRetries()) {
+                transactionTemplate.executeWithoutResult(status ->
+                    notificationIntentRepository.markAsFailed(intent.getId(), reclamo, errorMsg, LocalDateTime.now()));
+                metricsService.incrementNotificationsFailed(tipo);
+                log.error("Notificación {} ({}) marcada como FAILED después de {} intentos: {}",
+                    intent.getId(), tipo, nuevoRetry, errorMsg);
+            } else {
+                long delaySeconds = (long) Math.pow(2, nuevoRetry - 1); // 1s, 2s, 4s, 8s
+                transactionTemplate.executeWithoutResult(status ->
+                    notificationIntentRepository.scheduleRetry(
+                        intent.getId(),
+                        reclamo,
+                        nuevoRetry,
+                        LocalDateTime.now().plusSeconds(delaySeconds),
+                        errorMsg
+                    ));
+                metricsService.incrementNotificationsRetried(tipo);
+                log.warn("Notificación {} ({}) falló, reintento #{} en {}s: {}",
+                    intent.getId(), tipo, nuevoRetry, delaySeconds, errorMsg);
+            }
+        } catch (Exception dbError) {
+            // Queda en PROCESSING: la recuperación por timeout la devuelve a PENDING
+            metricsService.incrementErrors("notification-dispatcher");
+            log.error("Error registrando fallo de notificación {}: {}",
+                intent.getId(), dbError.getMessage());
+        }
+    }
+
+    /**
+     * Capacidad libre del executor: threads ociosos (descontando tareas ya encoladas).
+     * No cuenta el espacio de la cola, para que ninguna intención reclamada espere
+     * en ella más que el timeout de PROCESSING.
+     */
+    private int capacidadDisponible() {
+        int threadsLibres = notificationExecutor.getMaxPoolSize()
+            - notificationExecutor.getActiveCount()
+            - notificationExecutor.getQueueSize();
+        return Math.min(batchSize, Math.max(0, threadsLibres));
+    }
+
+    /**
+     * Devuelve a PENDING las intenciones que quedaron en PROCESSING más del timeout
+     * (instancia caída o reiniciada durante la entrega).
+     */
+    @Scheduled(fixedDelay = 60000)
+    @Transactional
+    public void recuperarEntregasAbandonadas() {
+        LocalDateTime limite = LocalDateTime.now().minusSeconds(processingTimeoutSeconds);
+        int recuperadas = notificationIntentRepository.releaseStaleClaims(limite);
+
+        if (recuperadas > 0) {
+            log.warn("{} notificaciones abandonadas en PROCESSING devueltas a PENDING", recuperadas);
+        }
+    }
+
+    /**
+     * Limpia intenciones enviadas antiguas.
+     * Se ejecuta diariamente a las 3:30 AM.
+     */
+    @Scheduled(cron = "0 30 3 * * *")
+    @Transactional
+    public void limpiarEnviadas() {
+        int eliminadas = notificationIntentRepository.deleteOldSent(LocalDateTime.now().minusDays(7));
+
+        if (eliminadas > 0) {
+            log.info("Limpieza de notificaciones: {} enviadas antiguas eliminadas", eliminadas);
+        }
+    }
+
+    /**
+     * Estadísticas para monitoreo.
+     */
+    public String getStats() {
+        return String.format("Notificaciones - Pending: %d, Failed: %d",
+            notificationIntentRepository.countPending(),
+            notificationIntentRepository.countFailed());
+    }
+}
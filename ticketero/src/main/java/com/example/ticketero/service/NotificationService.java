@@ -1,21 +1,27 @@
 package com.example.ticketero.service;
 
 import com.example.ticketero.model.entity.Advisor;
+import com.example.ticketero.model.entity.NotificationIntent;
 import com.example.ticketero.model.entity.Ticket;
+import com.example.ticketero.model.enums.NotificationType;
+import com.example.ticketero.repository.NotificationIntentRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 /**
- * Servicio para envío de notificaciones a usuarios
- * Coordina con TelegramService para enviar mensajes
+ * Servicio para notificaciones a usuarios.
+ *
+ * Renderiza el mensaje y lo guarda como intención en la TX del caller.
+ * La entrega a Telegram la hace NotificationDispatcher de forma asíncrona:
+ * la latencia de Telegram no retiene la TX ni la conexión de la request.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class NotificationService {
 
-    private final TelegramService telegramService;
+    private final NotificationIntentRepository notificationIntentRepository;
 
     /**
      * Notificación cuando se crea el ticket
@@ -45,20 +51,23 @@ public class NotificationService {
             ticket.getEstimatedWaitMinutes()
         );
         
-        enviarMensaje(ticket.getTelefono(), mensaje);
-        log.info("Notificación de creación enviada para ticket {}", ticket.getNumero());
+        registrarIntencion(ticket, NotificationType.TICKET_CREADO, mensaje);
+        log.info("Notificación de creación registrada para ticket {}", ticket.getNumero());
     }
 
     /**
      * Notificación cuando el turno está próximo
-     * Se envía cuando posición <= threshold (ej: 3)
+     * Se envía cuando el ticket entra a la ventana de QueueConfig.notificationThreshold
+     * (ver ProximoTurnoNotifier)
+     *
+     * @param posicion Posición actual del ticket
      */
-    public void notificarProximoTurno(Ticket ticket) {
-        if (ticket.getTelefono() == null || ticket.getTelefono().isBlank()) {
+    public void notificarProximoTurno(Long ticketId, String numero, String telefono, int posicion) {
+        if (telefono == null || telefono.isBlank()) {
             return;
         }
         
-        int ticketsAdelante = ticket.getPositionInQueue() - 1;
+        int ticketsAdelante = posicion - 1;
         
         String mensaje = String.format("""
             ⏰ <b>Tu turno está próximo</b>
@@ -69,14 +78,14 @@ public class NotificationService {
             
             Por favor, estate atento.
             """,
-            ticket.getNumero(),
-            ticket.getPositionInQueue(),
+            numero,
+            posicion,
             ticketsAdelante,
             ticketsAdelante != 1 ? "s" : ""
         );
         
-        enviarMensaje(ticket.getTelefono(), mensaje);
-        log.info("Notificación de próximo turno enviada para ticket {}", ticket.getNumero());
+        registrarIntencion(ticketId, numero, telefono, NotificationType.PROXIMO_TURNO, mensaje);
+        log.info("Notificación de próximo turno registrada para ticket {}", numero);
     }
 
     /**
@@ -110,8 +119,8 @@ public class NotificationService {
             asesorNombre
         );
 
-        enviarMensaje(ticket.getTelefono(), mensaje);
-        log.info("Notificación de turno activo enviada para ticket {}", ticket.getNumero());
+        registrarIntencion(ticket, NotificationType.TURNO_ACTIVO, mensaje);
+        log.info("Notificación de turno activo registrada para ticket {}", ticket.getNumero());
     }
 
     /**
@@ -149,21 +158,29 @@ public class NotificationService {
             ticket.getEstimatedWaitMinutes()
         );
         
-        enviarMensaje(ticket.getTelefono(), mensaje);
-        log.debug("Notificación de actualización de posición enviada para ticket {}", 
+        registrarIntencion(ticket, NotificationType.ACTUALIZACION_POSICION, mensaje);
+        log.debug("Notificación de actualización de posición registrada para ticket {}", 
             ticket.getNumero());
     }
 
     /**
-     * Envía mensaje a través de TelegramService
+     * Guarda la intención de notificación en la TX del caller.
+     * Si la TX de negocio hace rollback, la notificación tampoco se envía.
      */
-    private void enviarMensaje(String telefono, String mensaje) {
-        try {
-            telegramService.enviarMensaje(telefono, mensaje);
-            log.trace("Mensaje enviado a {}", telefono);
-        } catch (Exception e) {
-            log.error("Error enviando mensaje a {}: {}", telefono, e.getMessage());
-            // No lanzar excepción para que el flujo principal continúe
-        }
+    private void registrarIntencion(Ticket ticket, NotificationType tipo, String mensaje) {
+        registrarIntencion(ticket.getId(), ticket.getNumero(), ticket.getTelefono(), tipo, mensaje);
+    }
+
+    private void registrarIntencion(Long ticketId, String numero, String telefono,
+                                    NotificationType tipo, String mensaje) {
+        NotificationIntent intent = NotificationIntent.builder()
+            .ticketId(ticketId)
+            .notificationType(tipo)
+            .telefono(telefono)
+            .mensaje(mensaje)
+            .build();
+
+        notificationIntentRepository.save(intent);
+        log.trace("Intención {} registrada para ticket {}", tipo, numero);
     }
 }
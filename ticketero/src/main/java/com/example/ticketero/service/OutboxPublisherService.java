@@ -7,15 +7,25 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Servicio que implementa el patrón Outbox.
@@ -23,15 +33,26 @@ import java.util.List;
  *
  * Garantías:
  * - Atomicidad: El mensaje se guarda en DB en la misma TX que los datos de negocio
- * - Durabilidad: Si RabbitMQ falla, el mensaje queda en DB para reintento
- * - Idempotencia: SELECT FOR UPDATE previene procesamiento duplicado
+ * - Durabilidad: Solo se marca SENT cuando RabbitMQ confirma (publisher confirm ack);
+ *   si no, el mensaje queda en DB para reintento
+ * - Idempotencia: el lote se reclama (PENDING → PROCESSING) en una TX corta con
+ *   SELECT FOR UPDATE, así que ningún otro ciclo o instancia lo vuelve a leer
  *
  * Flujo:
- * 1. Cada segundo, lee hasta 50 mensajes PENDING con bloqueo pesimista
- * 2. Para cada mensaje, intenta publicar a RabbitMQ
- * 3. Si éxito: marca como SENT
- * 4. Si falla: incrementa retry_count con backoff exponencial
- * 5. Si reintentos agotados: marca como FAILED (requiere intervención manual)
+ * 1. Cada segundo, TX1: lee hasta app.outbox.batch-size mensajes PENDING con bloqueo
+ *    pesimista, los marca PROCESSING y hace commit (libera locks y conexión)
+ * 2. Sin TX: publica todo el lote por un mismo canal de la conexión de publicación,
+ *   sin esperar entre mensajes (todo el lote con confirms pendientes)
+ * 3. Sin TX: espera los confirms del lote (app.outbox.confirm-timeout-ms en total)
+ * 4. TX2: confirmados (ack y no returned) a SENT con un solo UPDATE; nack, returned,
+ *    sin confirm o error al publicar: un solo UPDATE incrementa retry_count con
+ *    backoff exponencial (sin confirm puede duplicarse; el worker es idempotente),
+ *    o marca FAILED si agotó los reintentos (intervención manual)
+ * 5. Un PROCESSING más antiguo que app.outbox.processing-timeout-seconds (instancia
+ *    caída entre TX1 y TX2) vuelve a PENDING
+ *
+ * Un lote completo cuesta un SELECT y a lo más tres UPDATE, sin importar su tamaño,
+ * y la espera de confirms no retiene locks ni conexiones de la BD.
  */
 @Service
 @RequiredArgsConstructor
@@ -39,56 +60,148 @@ import java.util.List;
 public class OutboxPublisherService {
 
     private final OutboxMessageRepository outboxRepository;
-    private final RabbitTemplate rabbitTemplate;
+    @Qualifier("outboxRabbitTemplate")
+    private final RabbitTemplate outboxRabbitTemplate;
     private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${app.rabbitmq.exchange}")
     private String exchangeName;
 
+    @Value("${app.outbox.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
     /**
      * Tamaño del batch de mensajes a procesar por ciclo.
      */
-    private static final int BATCH_SIZE = 50;
+    @Value("${app.outbox.batch-size:50}")
+    private int batchSize;
+
+    /**
+     * Tiempo tras el cual un lote PROCESSING se considera abandonado.
+     */
+    @Value("${app.outbox.processing-timeout-seconds:60}")
+    private long processingTimeoutSeconds;
 
     /**
      * Procesa mensajes pendientes del outbox.
      * Se ejecuta cada segundo para baja latencia.
      */
     @Scheduled(fixedDelay = 1000)
-    @Transactional
     public void processOutbox() {
+        // TX1: reclamar el lote (SELECT FOR UPDATE + PROCESSING) y liberar locks al commit
+        List<OutboxMessage> pendingMessages = transactionTemplate.execute(status -> reclamarLote());
+        if (pendingMessages == null || pendingMessages.isEmpty()) {
+            return;
+        }
+
+        log.debug("Procesando {} mensajes del outbox", pendingMessages.size());
+
+        // Publicar el lote completo por un mismo canal, sin esperar cada confirm
+        Map<OutboxMessage, CorrelationData> enVuelo = new LinkedHashMap<>();
+        Map<OutboxMessage, String> fallidos = new LinkedHashMap<>();
+        outboxRabbitTemplate.invoke(operations -> {
+            for (OutboxMessage message : pendingMessages) {
+                CorrelationData correlationData = new CorrelationData(String.valueOf(message.getId()));
+                try {
+                    publishToRabbitMQ(operations, message, correlationData);
+                    enVuelo.put(message, correlationData);
+                } catch (Exception e) {
+                    fallidos.put(message, e.getMessage());
+                }
+            }
+            return null;
+        });
+
+        // Esperar los confirms del lote y marcar SENT los confirmados con un solo UPDATE
+        List<Long> confirmados = new ArrayList<>(enVuelo.size());
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMs);
+        for (Map.Entry<OutboxMessage, CorrelationData> entrada : enVuelo.entrySet()) {
+            OutboxMessage message = entrada.getKey();
+            String error = esperarConfirm(entrada.getValue(), limite);
+            if (error == null) {
+                confirmados.add(message.getId());
+                log.debug("Mensaje outbox {} confirmado en {}", message.getId(), message.getRoutingKey());
+            } else {
+                fallidos.put(message, error);
+            }
+        }
+
+        // TX2: registrar el resultado del lote
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!confirmados.isEmpty()) {
+                outboxRepository.markAllAsSent(confirmados.toArray(Long[]::new), LocalDateTime.now());
+            }
+            if (!fallidos.isEmpty()) {
+                handlePublishFailures(fallidos);
+            }
+        });
+
+        if (!confirmados.isEmpty() || !fallidos.isEmpty()) {
+            log.info("Outbox procesado: {} enviados, {} fallidos", confirmados.size(), fallidos.size());
+        }
+    }
+
+    /**
+     * Lee hasta batchSize mensajes PENDING con bloqueo pesimista y los marca PROCESSING.
+     */
+    private List<OutboxMessage> reclamarLote() {
         LocalDateTime now = LocalDateTime.now();
 
         // Obtener mensajes pendientes con bloqueo (SELECT FOR UPDATE)
         List<OutboxMessage> pendingMessages = outboxRepository.findPendingWithLock(
             now,
-            PageRequest.of(0, BATCH_SIZE)
+            PageRequest.of(0, batchSize)
         );
 
-        if (pendingMessages.isEmpty()) {
-            return;
+        if (!pendingMessages.isEmpty()) {
+            outboxRepository.claimForPublishing(
+                pendingMessages.stream().map(OutboxMessage::getId).toArray(Long[]::new),
+                now
+            );
         }
+        return pendingMessages;
+    }
 
-        log.debug("Procesando {} mensajes del outbox", pendingMessages.size());
-
-        int sent = 0;
-        int failed = 0;
-
-        for (OutboxMessage message : pendingMessages) {
-            try {
-                publishToRabbitMQ(message);
-                outboxRepository.markAsSent(message.getId(), LocalDateTime.now());
-                sent++;
-                log.debug("Mensaje outbox {} enviado a {}", message.getId(), message.getRoutingKey());
+    /**
+     * Devuelve a PENDING los lotes PROCESSING abandonados (instancia caída
+     * entre el reclamo y el registro del resultado). Pueden publicarse dos veces:
+     * el worker es idempotente.
+     */
+    @Scheduled(fixedDelay = 60000)
+    @Transactional
+    public void recuperarLotesAbandonados() {
+        int liberados = outboxRepository.releaseStaleClaims(
+            LocalDateTime.now().minusSeconds(processingTimeoutSeconds));
 
-            } catch (Exception e) {
-                handlePublishFailure(message, e);
-                failed++;
-            }
+        if (liberados > 0) {
+            log.warn("Outbox: {} mensajes PROCESSING abandonados devueltos a PENDING", liberados);
         }
+    }
 
-        if (sent > 0 || failed > 0) {
-            log.info("Outbox procesado: {} enviados, {} fallidos", sent, failed);
+    /**
+     * Espera el publisher confirm de un mensaje hasta {@code limite} (System.nanoTime).
+     *
+     * @return null si RabbitMQ lo confirmó y lo enrutó; si no, el motivo del fallo
+     */
+    private String esperarConfirm(CorrelationData correlationData, long limite) {
+        try {
+            CorrelationData.Confirm confirm = correlationData.getFuture()
+                .get(Math.max(0, limite - System.nanoTime()), TimeUnit.NANOSECONDS);
+            if (!confirm.isAck()) {
+                return "Nack de RabbitMQ: " + confirm.getReason();
+            }
+            if (correlationData.getReturned() != null) {
+                return "Sin ruta en RabbitMQ: " + correlationData.getReturned().getReplyText();
+            }
+            return null;
+        } catch (TimeoutException e) {
+            return "Sin publisher confirm en " + confirmTimeoutMs + " ms";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "Interrumpido esperando publisher confirm";
+        } catch (ExecutionException e) {
+            return e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
         }
     }
 
@@ -99,9 +212,12 @@ public class OutboxPublisherService {
      * RabbitTemplate con Jackson2JsonMessageConverter lo serializará correctamente.
      * Antes: enviaba String JSON que se re-serializaba (doble encoding).
      *
+     * @param operations Operaciones sobre el canal del lote
      * @param message Mensaje del outbox
+     * @param correlationData Correlación del publisher confirm
      */
-    private void publishToRabbitMQ(OutboxMessage message) {
+    private void publishToRabbitMQ(RabbitOperations operations, OutboxMessage message,
+                                   CorrelationData correlationData) {
         try {
             // Parsear JSON string a objeto TicketQueueMessage
             TicketQueueMessage payload = objectMapper.readValue(
@@ -109,7 +225,7 @@ public class OutboxPublisherService {
                 TicketQueueMessage.class
             );
 
-            rabbitTemplate.convertAndSend(
+            operations.convertAndSend(
                 exchangeName,
                 message.getRoutingKey(),
                 payload,  // Enviar objeto, no String
@@ -118,7 +234,8 @@ public class OutboxPublisherService {
                     msg.getMessageProperties().setHeader("outbox_id", message.getId());
                     msg.getMessageProperties().setHeader("event_type", message.getEventType());
                     return msg;
-                }
+                },
+                correlationData
             );
         } catch (Exception e) {
             throw new RuntimeException("Error parseando payload outbox: " + e.getMessage(), e);
@@ -126,40 +243,33 @@ public class OutboxPublisherService {
     }
 
     /**
-     * Maneja un fallo de publicación.
-     * Implementa backoff exponencial antes del próximo reintento.
+     * Maneja los fallos de publicación de un lote con un solo UPDATE
+     * (backoff exponencial o FAILED si se agotaron los reintentos, ver registerFailures).
      *
-     * @param message Mensaje que falló
-     * @param e Excepción que causó el fallo
+     * @param fallidos Mensaje que falló → motivo del fallo
      */
-    private void handlePublishFailure(OutboxMessage message, Exception e) {
-        String errorMsg = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
-
-        log.warn("Error publicando mensaje outbox {}: {}", message.getId(), errorMsg);
-
-        // Incrementar retry y verificar si se agotaron
-        int newRetryCount = message.getRetryCount() + 1;
-
-        if (newRetryCount >= message.getMaxRetries()) {
-            // Reintentos agotados - marcar como FAILED
-            outboxRepository.markAsFailed(message.getId(), errorMsg, LocalDateTime.now());
-            log.error("Mensaje outbox {} marcado como FAILED después de {} intentos",
-                message.getId(), newRetryCount);
-        } else {
-            // Programar próximo reintento con backoff exponencial
-            long delaySeconds = (long) Math.pow(2, newRetryCount - 1); // 1s, 2s, 4s, 8s, 16s
-            LocalDateTime nextRetry = LocalDateTime.now().plusSeconds(delaySeconds);
-
-            outboxRepository.scheduleRetry(
-                message.getId(),
-                newRetryCount,
-                nextRetry,
-                errorMsg
-            );
+    private void handlePublishFailures(Map<OutboxMessage, String> fallidos) {
+        Long[] ids = new Long[fallidos.size()];
+        String[] errores = new String[fallidos.size()];
+        int i = 0;
+        for (Map.Entry<OutboxMessage, String> fallo : fallidos.entrySet()) {
+            OutboxMessage message = fallo.getKey();
+            ids[i] = message.getId();
+            errores[i] = fallo.getValue() != null ? fallo.getValue() : "Error desconocido";
+            i++;
 
-            log.info("Mensaje outbox {} programado para reintento #{} en {}s",
-                message.getId(), newRetryCount, delaySeconds);
+            // El estado resultante lo calcula el UPDATE; aquí solo se informa
+            int newRetryCount = message.getRetryCount() + 1;
+            if (newRetryCount >= message.getMaxRetries()) {
+                log.error("Mensaje outbox {} marcado como FAILED después de {} intentos: {}",
+                    message.getId(), newRetryCount, fallo.getValue());
+            } else {
+                log.warn("Error publicando mensaje outbox {}: {}. Reintento #{} en {}s",
+                    message.getId(), fallo.getValue(), newRetryCount, 1L << (newRetryCount - 1));
+            }
         }
+
+        outboxRepository.registerFailures(ids, errores, LocalDateTime.now());
     }
 
     /**
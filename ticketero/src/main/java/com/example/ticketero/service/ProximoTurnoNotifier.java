@@ -0,0 +1,57 @@
+package com.example.ticketero.service;
+
+import com.example.ticketero.model.enums.QueueType;
+import com.example.ticketero.repository.TicketRepository;
+import com.example.ticketero.repository.TicketRepository.TicketProximo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Notifica "Próximo Turno" cuando avanza la cabeza de una cola.
+ *
+ * La ventana de notificación son los tickets en espera con
+ * queue_seq <= cabeza + QueueConfig.notificationThreshold.
+ * Un solo UPDATE marca proximo_turno_notificado y retorna únicamente
+ * los tickets que recién entraron a la ventana: el resto de la cola
+ * no se lee ni se reescribe.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProximoTurnoNotifier {
+
+    private final TicketRepository ticketRepository;
+    private final QueueConfigCache queueConfigCache;
+    private final NotificationService notificationService;
+
+    /**
+     * Registra la notificación para los tickets que entraron a la ventana
+     * con la nueva cabeza de la cola.
+     *
+     * @param cabeza Cabeza de la cola tras el avance (ver liberarPosicionEnCola)
+     * @return cantidad de tickets notificados
+     */
+    @Transactional
+    public int notificarNuevosEnVentana(QueueType queueType, long cabeza) {
+        int threshold = queueConfigCache.obtener(queueType).notificationThreshold();
+
+        List<TicketProximo> nuevos = ticketRepository
+            .marcarProximoTurnoNotificado(queueType.name(), cabeza + threshold);
+
+        for (TicketProximo t : nuevos) {
+            int posicion = (int) Math.max(1, t.getQueueSeq() - cabeza);
+            notificationService.notificarProximoTurno(
+                t.getId(), t.getNumero(), t.getTelefono(), posicion);
+        }
+
+        if (!nuevos.isEmpty()) {
+            log.info("[PROCESS] Notificación 'Próximo Turno' registrada para {} tickets de {} (threshold={})",
+                nuevos.size(), queueType, threshold);
+        }
+        return nuevos.size();
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.ticketero.service;
+
+import com.example.ticketero.model.dto.QueueConfigSnapshot;
+import com.example.ticketero.model.enums.QueueType;
+import com.example.ticketero.repository.QueueConfigRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Configuración de colas en memoria (cuatro filas que casi nunca cambian).
+ *
+ * Mantiene una instantánea inmutable EnumMap QueueType → QueueConfigSnapshot,
+ * cargada al iniciar y reemplazada completa en cada recarga: las lecturas no
+ * toman locks ni tocan la BD.
+ *
+ * Al actualizar una configuración se recarga localmente y se publica una
+ * invalidación en ticketero-exchange (routing key queue-config.invalidate);
+ * cada instancia la recibe en su propia cola anónima y recarga
+ * (ver QueueConfigInvalidationListener).
+ */
+@Service
+@Slf4j
+public class QueueConfigCache {
+
+    /**
+     * Routing key de las invalidaciones de configuración.
+     */
+    public static final String ROUTING_KEY_INVALIDACION = "queue-config.invalidate";
+
+    private final QueueConfigRepository queueConfigRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final String exchangeName;
+
+    private volatile Map<QueueType, QueueConfigSnapshot> configuraciones;
+
+    public QueueConfigCache(QueueConfigRepository queueConfigRepository,
+                            RabbitTemplate rabbitTemplate,
+                            @Value("${app.rabbitmq.exchange}") String exchangeName) {
+        this.queueConfigRepository = queueConfigRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.exchangeName = exchangeName;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        if (configuraciones == null) {
+            recargar();
+        }
+    }
+
+    /**
+     * Relee todas las configuraciones y reemplaza la instantánea.
+     */
+    public synchronized void recargar() {
+        Map<QueueType, QueueConfigSnapshot> nuevas = new EnumMap<>(QueueType.class);
+        queueConfigRepository.findAll()
+            .forEach(config -> nuevas.put(config.getQueueType(), QueueConfigSnapshot.from(config)));
+
+        configuraciones = Collections.unmodifiableMap(nuevas);
+        log.info("Configuración de colas cargada: {}", nuevas.keySet());
+    }
+
+    /**
+     * Configuración de una cola.
+     */
+    public QueueConfigSnapshot obtener(QueueType queueType) {
+        return buscar(queueType)
+            .orElseThrow(() -> new RuntimeException("Queue config not found: " + queueType));
+    }
+
+    /**
+     * Configuración de una cola, si existe.
+     */
+    public Optional<QueueConfigSnapshot> buscar(QueueType queueType) {
+        Map<QueueType, QueueConfigSnapshot> actuales = configuraciones;
+        if (actuales == null) {
+            // Lectura anterior a ApplicationReadyEvent
+            cargar();
+            actuales = configuraciones;
+        }
+        return Optional.ofNullable(actuales.get(queueType));
+    }
+
+    /**
+     * Recarga localmente y avisa a las demás instancias.
+     * Si RabbitMQ no está disponible, las demás instancias siguen con la
+     * configuración anterior hasta su próxima recarga.
+     */
+    public void invalidar(QueueType queueType) {
+        recargar();
+
+        try {
+            rabbitTemplate.convertAndSend(exchangeName, ROUTING_KEY_INVALIDACION, queueType.name());
+        } catch (AmqpException e) {
+            log.warn("No se pudo publicar invalidación de configuración de {}: {}",
+                queueType, e.getMessage());
+        }
+    }
+}
@@ -1,29 +1,35 @@
 package com.example.ticketero.service;
 
+import com.example.ticketero.model.dto.ActiveTicketResponse;
+import com.example.ticketero.model.dto.QueueConfigSnapshot;
+import com.example.ticketero.model.dto.QueueConfigUpdateRequest;
 import com.example.ticketero.model.entity.QueueConfig;
+import com.example.ticketero.model.entity.QueueEvent;
 import com.example.ticketero.model.entity.Ticket;
-import com.example.ticketero.model.entity.TicketEvent;
-import com.example.ticketero.model.enums.EventType;
 import com.example.ticketero.model.enums.QueueType;
 import com.example.ticketero.model.enums.TicketStatus;
 import com.example.ticketero.repository.QueueConfigRepository;
-import com.example.ticketero.repository.TicketEventRepository;
+import com.example.ticketero.repository.QueueEventRepository;
+import com.example.ticketero.repository.QueueStateRepository;
 import com.example.ticketero.repository.TicketRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
-
-import static com.example.ticketero.util.LogSanitizer.sanitize;
 
 /**
  * Service for ticket queue management.
- * Calculates positions, estimated wait times, and updates queue states.
+ * Positions are derived from the per-queue enqueue sequence and head pointer
+ * (see QueueState); estimates and stats are computed on read.
  */
 @Service
 @RequiredArgsConstructor
@@ -32,133 +38,117 @@ public class QueueManagementService {
 
     private final TicketRepository ticketRepository;
     private final QueueConfigRepository queueConfigRepository;
-    private final TicketEventRepository ticketEventRepository;
+    private final QueueEventRepository queueEventRepository;
+    private final QueueStateRepository queueStateRepository;
+    private final LiveQueueIndex liveQueueIndex;
+    private final WaitTimeEstimator waitTimeEstimator;
+    private final QueueConfigCache queueConfigCache;
+
+    @Value("${app.queue-events.retention-days:30}")
+    private int queueEventRetentionDays;
 
     /**
-     * Calcula la posición real de un nuevo ticket en la cola
+     * Reserva el número de encolado (queue_seq) de un nuevo ticket.
+     * Un único UPDATE atómico sobre queue_state (antes: COUNT(*) de todos los WAITING).
+     * Debe ejecutarse en la misma TX que guarda el ticket.
      */
-    @Transactional(readOnly = true)
-    public int calcularPosicionEnCola(QueueType queueType) {
-        log.debug("Calculando posición en cola: {}", queueType);
-        
-        // Contar tickets WAITING en esta cola
-        int waiting = ticketRepository.countWaitingBefore(
-            queueType,
-            LocalDateTime.now().plusYears(100) // Todos los tickets
-        );
-        
-        int nuevaPosicion = waiting + 1;
-        log.debug("Posición calculada para {}: {}", queueType, nuevaPosicion);
-        
-        return nuevaPosicion;
+    @Transactional
+    public ReservaCola asignarPosicionEnCola(QueueType queueType) {
+        return asignarPosicionesEnCola(queueType, 1);
     }
 
     /**
-     * Calcula el tiempo estimado de espera basado en posición y config de cola
+     * Reserva números de encolado consecutivos para un lote de tickets con un solo UPDATE.
+     *
+     * @return Primer queue_seq y primera posición (el lote ocupa [primera, primera + cantidad - 1])
      */
-    @Transactional(readOnly = true)
-    public int calcularTiempoEstimado(QueueType queueType, int position) {
-        QueueConfig config = queueConfigRepository.findByQueueType(queueType)
-            .orElseThrow(() -> new RuntimeException("Queue config not found: " + queueType));
-        
-        int avgTime = config.getAvgServiceTimeMinutes();
-        
-        // Tiempo = (posición - 1) × tiempo promedio
-        // La posición 1 tiene tiempo 0 (es el siguiente)
-        int tiempoEstimado = (position - 1) * avgTime;
-        
-        log.debug("Tiempo estimado para posición {} en {}: {} min", 
-            position, queueType, tiempoEstimado);
-        
-        return tiempoEstimado;
+    @Transactional
+    public ReservaCola asignarPosicionesEnCola(QueueType queueType, int cantidad) {
+        QueueStateRepository.Punteros punteros = queueStateRepository.reservarSecuencia(queueType.name(), cantidad);
+        long primerSeq = punteros.getTailSeq() - cantidad + 1;
+        ReservaCola reserva = new ReservaCola(primerSeq, (int) (primerSeq - punteros.getHeadSeq()));
+
+        log.debug("Posiciones asignadas para {}: {}-{} (seq {})", queueType,
+            reserva.primeraPosicion(), reserva.primeraPosicion() + cantidad - 1, primerSeq);
+        return reserva;
     }
 
     /**
-     * Actualiza las posiciones de todos los tickets activos en una cola
-     * Se llama cuando un ticket avanza o se completa
+     * Registra que un ticket salió de WAITING (fue llamado).
+     * Solo avanza la cabeza de la cola y registra un QUEUE_ADVANCED:
+     * los demás tickets no se reescriben ni reciben eventos propios.
+     *
+     * @return cabeza de la cola tras el avance
      */
     @Transactional
-    public void actualizarPosicionesEnCola(QueueType queueType) {
-        log.info("Actualizando posiciones en cola: {}", queueType);
-        
-        List<Ticket> ticketsActivos = ticketRepository.findActiveByQueue(queueType);
-        
-        if (ticketsActivos.isEmpty()) {
-            log.debug("No hay tickets activos en cola {}", queueType);
-            return;
+    public long liberarPosicionEnCola(QueueType queueType) {
+        return queueStateRepository.avanzarCabeza(queueType.name())
+            .map(cabeza -> {
+                log.debug("Cola {} avanzó a cabeza {}", queueType, cabeza);
+                return cabeza;
+            })
+            .orElseGet(() -> obtenerCabeza(queueType));
+    }
+
+    /**
+     * Puntero de cabeza de la cola (tickets que ya salieron).
+     */
+    @Transactional(readOnly = true)
+    public long obtenerCabeza(QueueType queueType) {
+        return queueStateRepository.findHeadSeq(queueType.name()).orElse(0L);
+    }
+
+    /**
+     * Posición actual de un ticket en espera: queue_seq - cabeza.
+     * Tickets previos a la secuencia (sin queue_seq) conservan su posición guardada.
+     */
+    public int calcularPosicionActual(Ticket ticket, long cabeza) {
+        if (ticket.getQueueSeq() == null) {
+            return ticket.getPositionInQueue() != null ? ticket.getPositionInQueue() : 1;
         }
-        
-        int position = 1;
-        for (Ticket ticket : ticketsActivos) {
-            Integer oldPosition = ticket.getPositionInQueue();
-            
-            if (oldPosition == null || !oldPosition.equals(position)) {
-                // Actualizar posición
-                ticket.setPositionInQueue(position);
-                
-                // Recalcular tiempo estimado
-                int estimatedTime = calcularTiempoEstimado(queueType, position);
-                ticket.setEstimatedWaitMinutes(estimatedTime);
-                
-                ticketRepository.save(ticket);
-                
-                // Registrar evento
-                registrarEvento(ticket, EventType.POSITION_UPDATED, oldPosition, position);
-                
-                log.debug("Ticket {} actualizado: posición {} → {}", 
-                    ticket.getNumero(), oldPosition, position);
-            }
-            
-            position++;
+        return (int) Math.max(1, ticket.getQueueSeq() - cabeza);
+    }
+
+    /**
+     * Posición actual de un ticket en espera.
+     * Usa el rango exacto de LiveQueueIndex; antes de que esté cargado, la cabeza de su cola.
+     */
+    @Transactional(readOnly = true)
+    public int calcularPosicionActual(Ticket ticket) {
+        if (ticket.getQueueSeq() != null && TicketStatus.WAITING.equals(ticket.getStatus())
+                && liveQueueIndex.isCargado()) {
+            return liveQueueIndex.contarAdelante(ticket.getQueueType(), ticket.getQueueSeq()) + 1;
         }
-        
-        log.info("Posiciones actualizadas en {}. Total tickets activos: {}", 
-            queueType, ticketsActivos.size());
+        return calcularPosicionActual(ticket, obtenerCabeza(ticket.getQueueType()));
     }
 
     /**
-     * Obtiene el siguiente ticket de una cola (el primero en WAITING)
+     * Obtiene el siguiente ticket de una cola (el primero en WAITING).
+     * Se lee de LiveQueueIndex, sin consultar la BD.
      */
-    @Transactional
-    public Optional<Ticket> obtenerSiguienteTicket(QueueType queueType) {
-        log.debug("Buscando siguiente ticket en cola: {}", queueType);
+    public Optional<ActiveTicketResponse> obtenerSiguienteTicket(QueueType queueType) {
+        List<ActiveTicketResponse> primeros = liveQueueIndex.primerosEnEspera(queueType, 1);
         
-        List<Ticket> waiting = ticketRepository.findByQueueAndStatus(
-            queueType,
-            TicketStatus.WAITING
-        );
-        
-        if (waiting.isEmpty()) {
+        if (primeros.isEmpty()) {
             log.debug("No hay tickets esperando en cola {}", queueType);
             return Optional.empty();
         }
         
-        // El primero es el siguiente
-        Ticket siguiente = waiting.get(0);
+        log.debug("Siguiente ticket en cola {}: {}", queueType, primeros.get(0).numero());
         
-        log.info("Siguiente ticket en cola {}: {}", queueType, siguiente.getNumero());
-        
-        return Optional.of(siguiente);
+        return Optional.of(primeros.get(0));
     }
 
     /**
      * Obtiene tickets que están próximos (posición <= threshold)
-     * Para enviar notificación "Faltan X turnos"
+     * Para enviar notificación "Faltan X turnos".
+     * Se lee de LiveQueueIndex: solo recorre los primeros threshold tickets.
      */
     @Transactional(readOnly = true)
-    public List<Ticket> obtenerTicketsProximos(QueueType queueType) {
-        QueueConfig config = queueConfigRepository.findByQueueType(queueType)
-            .orElseThrow(() -> new RuntimeException("Queue config not found: " + queueType));
-        
-        int threshold = config.getNotificationThreshold();
-        
-        List<Ticket> activos = ticketRepository.findActiveByQueue(queueType);
+    public List<ActiveTicketResponse> obtenerTicketsProximos(QueueType queueType) {
+        int threshold = obtenerConfiguracion(queueType).notificationThreshold();
         
-        List<Ticket> proximos = activos.stream()
-            .filter(t -> t.getPositionInQueue() != null 
-                && t.getPositionInQueue() <= threshold
-                && t.getStatus() == TicketStatus.WAITING)
-            .collect(Collectors.toList());
+        List<ActiveTicketResponse> proximos = liveQueueIndex.primerosEnEspera(queueType, threshold);
         
         log.debug("Tickets próximos en {} (threshold={}): {}", 
             queueType, threshold, proximos.size());
@@ -167,30 +157,90 @@ public class QueueManagementService {
     }
 
     /**
-     * Registra un evento en el historial del ticket
+     * Reconstruye el historial de posiciones de un ticket desde queue_event.
+     * La primera entrada es la posición al encolar; luego una por cada avance
+     * de la cola mientras el ticket estuvo en espera.
+     * Para tickets reencolados solo cubre el último queue_seq.
      */
-    public void registrarEvento(Ticket ticket, EventType eventType, 
-                                Integer oldPosition, Integer newPosition) {
-        TicketEvent event = TicketEvent.builder()
-            .ticket(ticket)
-            .eventType(eventType)
-            .oldPosition(oldPosition)
-            .newPosition(newPosition)
-            .notes(String.format("Posición actualizada de %d a %d", oldPosition, newPosition))
-            .build();
-        
-        ticketEventRepository.save(event);
-        
-        log.trace("Evento registrado: {} para ticket {}", eventType, sanitize(ticket.getNumero()));
+    @Transactional(readOnly = true)
+    public List<CambioPosicion> reconstruirHistorialPosiciones(Ticket ticket) {
+        List<CambioPosicion> historial = new ArrayList<>();
+        if (ticket.getQueueSeq() == null) {
+            return historial;
+        }
+
+        historial.add(new CambioPosicion(ticket.getCreatedAt(), ticket.getPositionInQueue()));
+
+        LocalDateTime hasta = ticket.getCalledAt() != null ? ticket.getCalledAt() : LocalDateTime.now();
+        List<QueueEvent> avances = queueEventRepository.findAdvancesBetween(
+            ticket.getQueueType(), ticket.getCreatedAt(), hasta, ticket.getQueueSeq());
+
+        for (QueueEvent avance : avances) {
+            historial.add(new CambioPosicion(avance.getCreatedAt(),
+                (int) (ticket.getQueueSeq() - avance.getHeadSeq())));
+        }
+        return historial;
     }
 
     /**
-     * Obtiene configuración de una cola
+     * Limpia eventos de cola antiguos: el historial de posiciones solo se
+     * reconstruye para tickets dentro del período de retención.
+     * Se ejecuta diariamente a las 3:45 AM.
      */
-    @Transactional(readOnly = true)
-    public QueueConfig obtenerConfiguracion(QueueType queueType) {
-        return queueConfigRepository.findByQueueType(queueType)
+    @Scheduled(cron = "0 45 3 * * *")
+    @Transactional
+    public void limpiarEventosAntiguos() {
+        int eliminados = queueEventRepository.deleteOlderThan(
+            LocalDateTime.now().minusDays(queueEventRetentionDays));
+
+        if (eliminados > 0) {
+            log.info("Limpieza de queue_event: {} eventos antiguos eliminados", eliminados);
+        }
+    }
+
+    /**
+     * Obtiene configuración de una cola (desde QueueConfigCache, sin BD)
+     */
+    public QueueConfigSnapshot obtenerConfiguracion(QueueType queueType) {
+        return queueConfigCache.obtener(queueType);
+    }
+
+    /**
+     * Actualiza la configuración de una cola. Al confirmar la TX recarga
+     * QueueConfigCache y publica la invalidación a las demás instancias.
+     */
+    @Transactional
+    public QueueConfigSnapshot actualizarConfiguracion(QueueType queueType, QueueConfigUpdateRequest request) {
+        QueueConfig config = queueConfigRepository.findByQueueType(queueType)
             .orElseThrow(() -> new RuntimeException("Queue config not found: " + queueType));
+
+        if (request.avgServiceTimeMinutes() != null) {
+            config.setAvgServiceTimeMinutes(request.avgServiceTimeMinutes());
+        }
+        if (request.notificationThreshold() != null) {
+            config.setNotificationThreshold(request.notificationThreshold());
+        }
+        if (request.priority() != null) {
+            config.setPriority(request.priority());
+        }
+        if (request.maxQueueSize() != null) {
+            config.setMaxQueueSize(request.maxQueueSize());
+        }
+        if (request.isActive() != null) {
+            config.setIsActive(request.isActive());
+        }
+
+        config = queueConfigRepository.save(config);
+        log.info("Configuración de cola {} actualizada", queueType);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                queueConfigCache.invalidar(queueType);
+            }
+        });
+
+        return QueueConfigSnapshot.from(config);
     }
 
     /**
@@ -198,24 +248,41 @@ public class QueueManagementService {
      */
     @Transactional(readOnly = true)
     public QueueStats obtenerEstadisticas(QueueType queueType) {
-        long waiting = ticketRepository.countByQueueTypeAndStatus(queueType, TicketStatus.WAITING);
-        long called = ticketRepository.countByQueueTypeAndStatus(queueType, TicketStatus.CALLED);
+        // Activos desde la cola viva; el resto requiere la BD
+        long waiting = liveQueueIndex.isCargado()
+            ? liveQueueIndex.contarEnEspera(queueType)
+            : ticketRepository.countByQueueTypeAndStatus(queueType, TicketStatus.WAITING);
+        long called = liveQueueIndex.isCargado()
+            ? liveQueueIndex.contarLlamados(queueType)
+            : ticketRepository.countByQueueTypeAndStatus(queueType, TicketStatus.CALLED);
         long inProgress = ticketRepository.countByQueueTypeAndStatus(queueType, TicketStatus.IN_PROGRESS);
         long completed = ticketRepository.countByQueueTypeAndStatus(queueType, TicketStatus.COMPLETED);
         
-        QueueConfig config = obtenerConfiguracion(queueType);
-        
         return new QueueStats(
             queueType,
             (int) waiting,
             (int) called,
             (int) inProgress,
             (int) completed,
-            config.getAvgServiceTimeMinutes(),
-            waiting > 0 ? (int) waiting * config.getAvgServiceTimeMinutes() : 0
+            waitTimeEstimator.tiempoServicioMinutos(queueType),
+            waitTimeEstimator.estimarEsperaMinutos(queueType, (int) waiting + 1),
+            waitTimeEstimator.contarAsesoresActivos(queueType)
         );
     }
 
+    /**
+     * Reserva de números de encolado.
+     *
+     * @param primerSeq       queue_seq del primer ticket reservado
+     * @param primeraPosicion Posición del primer ticket al momento de reservar
+     */
+    public record ReservaCola(long primerSeq, int primeraPosicion) {}
+
+    /**
+     * Posición de un ticket a partir de un instante.
+     */
+    public record CambioPosicion(LocalDateTime at, Integer position) {}
+
     /**
      * Record for queue statistics.
      */
@@ -226,6 +293,7 @@ public class QueueManagementService {
         int inProgress,
         int completed,
         int avgServiceTimeMinutes,
-        int estimatedWaitTime
+        int estimatedWaitTime,
+        int activeAdvisors
     ) {}
 }
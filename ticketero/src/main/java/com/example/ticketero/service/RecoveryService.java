@@ -1,5 +1,6 @@
 package com.example.ticketero.service;
 
+import com.example.ticketero.config.TicketQueueTopology;
 import com.example.ticketero.model.entity.Advisor;
 import com.example.ticketero.model.entity.RecoveryEvent;
 import com.example.ticketero.model.entity.Ticket;
@@ -41,6 +42,10 @@ public class RecoveryService {
     private final TicketRepository ticketRepository;
     private final RecoveryEventRepository recoveryEventRepository;
     private final RabbitTemplate rabbitTemplate;
+    private final QueueManagementService queueManagementService;
+    private final LiveQueueIndex liveQueueIndex;
+    private final AdvisorPullDispatcher pullDispatcher;
+    private final TicketQueueTopology ticketQueueTopology;
 
     @Value("${app.rabbitmq.exchange}")
     private String exchangeName;
@@ -119,6 +124,7 @@ public class RecoveryService {
         advisor.setLastHeartbeat(LocalDateTime.now());
         advisorRepository.incrementRecoveryCount(advisor.getId());
         advisorRepository.save(advisor);
+        pullDispatcher.asesorDisponible(advisor.getId());
 
         log.info("Asesor {} recuperado exitosamente", advisor.getName());
     }
@@ -140,10 +146,25 @@ public class RecoveryService {
         ticket.setCalledAt(null);
         ticket.setStartedAt(null);
         
+        // Vuelve al final de la cola con un nuevo queue_seq (la cabeza ya avanzó al llamarlo)
+        QueueManagementService.ReservaCola reserva =
+            queueManagementService.asignarPosicionEnCola(ticket.getQueueType());
+        ticket.setQueueSeq(reserva.primerSeq());
+        ticket.setPositionInQueue(reserva.primeraPosicion());
+        
         ticketRepository.save(ticket);
+        liveQueueIndex.registrarEncolado(ticket);
+
+        // Despacho pull: lo toma un asesor disponible, sin pasar por RabbitMQ
+        if (pullDispatcher.isPull()) {
+            pullDispatcher.ticketsEncolados(ticket.getQueueType());
+            log.info("Ticket {} re-encolado para despacho pull", ticket.getNumero());
+            return;
+        }
         
         // Enviar a RabbitMQ con persistencia
-        String queueName = ticket.getQueueType().name().toLowerCase() + "-queue";
+        String queueName = ticketQueueTopology.routingKey(
+            ticket.getQueueType(), ticket.getBranchOffice(), ticket.getId());
 
         try {
             rabbitTemplate.convertAndSend(
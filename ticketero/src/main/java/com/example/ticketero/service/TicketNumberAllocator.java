@@ -0,0 +1,164 @@
+package com.example.ticketero.service;
+
+import com.example.ticketero.model.enums.QueueType;
+import com.example.ticketero.repository.TicketNumberDayRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Asignador de números de ticket por cola y por día (estrategia hi/lo).
+ *
+ * Reemplaza la generación aleatoria, que producía números duplicados.
+ *
+ * Funcionamiento:
+ * - Cada cola tiene una secuencia en PostgreSQL (ticket_number_caja_seq, ...)
+ *   que entrega el "hi" de un bloque de números
+ * - El bloque [(hi - 1) × blockSize + 1, hi × blockSize] se reparte en memoria,
+ *   por lo que solo 1 de cada blockSize tickets va a la base de datos
+ * - Al cambiar de día, la primera instancia que lo detecta reinicia la
+ *   secuencia (coordinado por la fila de ticket_number_day)
+ * - Cada bloque se reserva en una TX corta que lee el día vigente con FOR SHARE
+ *   antes del nextval: un bloque nunca mezcla la secuencia de un día con la fecha
+ *   de otro, aunque el bloque se agote justo a medianoche o el reloj de la
+ *   instancia vaya atrasado (en ese caso los números se asignan al día vigente)
+ *
+ * Los números son únicos por (cola, día) en todo el cluster y crecientes dentro
+ * de cada instancia. Un reinicio de la aplicación deja huecos (el resto del bloque).
+ */
+@Service
+@Slf4j
+public class TicketNumberAllocator {
+
+    private final TicketNumberDayRepository ticketNumberDayRepository;
+    private final TransactionTemplate nuevaTransaccion;
+    private final int blockSize;
+
+    /**
+     * Estado por cola. El mapa no cambia después del constructor;
+     * cada estado se modifica solo bajo su propio lock.
+     */
+    private final Map<QueueType, EstadoCola> estados = new EnumMap<>(QueueType.class);
+
+    public TicketNumberAllocator(
+        TicketNumberDayRepository ticketNumberDayRepository,
+        PlatformTransactionManager transactionManager,
+        @Value("${app.tickets.numero.block-size:20}") int blockSize
+    ) {
+        this.ticketNumberDayRepository = ticketNumberDayRepository;
+        this.nuevaTransaccion = new TransactionTemplate(transactionManager);
+        this.nuevaTransaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = blockSize;
+
+        for (QueueType queueType : QueueType.values()) {
+            estados.put(queueType, new EstadoCola());
+        }
+    }
+
+    /**
+     * Asigna el siguiente número de ticket para una cola en el día actual.
+     * Solo accede a la base de datos cuando el bloque en memoria se agota.
+     */
+    @Transactional
+    public NumeroAsignado asignarNumero(QueueType queueType) {
+        EstadoCola estado = estados.get(queueType);
+        LocalDate hoy = LocalDate.now();
+
+        estado.lock.lock();
+        try {
+            if (estado.fecha == null || hoy.isAfter(estado.fecha) || estado.siguiente > estado.limite) {
+                reservarBloque(queueType, estado, hoy);
+            }
+
+            long valor = estado.siguiente++;
+            return new NumeroAsignado(formatear(queueType, valor), estado.fecha);
+        } finally {
+            estado.lock.unlock();
+        }
+    }
+
+    /**
+     * Reserva un nuevo bloque desde la secuencia de la cola.
+     * Si el día vigente en la BD es anterior a hoy, coordina el reinicio diario y reintenta.
+     */
+    private void reservarBloque(QueueType queueType, EstadoCola estado, LocalDate hoy) {
+        String secuencia = nombreSecuencia(queueType);
+
+        // TX propias y cortas: los locks de la fila no deben durar lo que dure el ticket
+        Bloque bloque;
+        while ((bloque = nuevaTransaccion.execute(status -> leerBloque(queueType, secuencia, hoy))) == null) {
+            nuevaTransaccion.executeWithoutResult(status -> {
+                if (ticketNumberDayRepository.avanzarDia(queueType.name(), hoy) == 1) {
+                    ticketNumberDayRepository.reiniciarSecuencia(secuencia);
+                    log.info("Numeración de cola {} reiniciada para el día {}", queueType, hoy);
+                }
+            });
+        }
+
+        if (bloque.fecha().isAfter(hoy)) {
+            log.warn("Cola {}: el día vigente {} es posterior al reloj local {}. Se numera con el día vigente",
+                queueType, bloque.fecha(), hoy);
+        }
+
+        estado.fecha = bloque.fecha();
+        estado.siguiente = (bloque.hi() - 1) * blockSize + 1;
+        estado.limite = bloque.hi() * blockSize;
+
+        log.debug("Bloque de números reservado para {}: {}-{}",
+            queueType, estado.siguiente, estado.limite);
+    }
+
+    /**
+     * Lee el día vigente (FOR SHARE) y, si no es anterior a hoy, toma el siguiente
+     * "hi" en la misma TX: el día no puede avanzar entre ambas lecturas.
+     *
+     * @return bloque reservado, o null si primero hay que avanzar el día
+     */
+    private Bloque leerBloque(QueueType queueType, String secuencia, LocalDate hoy) {
+        LocalDate vigente = ticketNumberDayRepository.findDiaVigente(queueType).getServiceDate();
+        if (vigente.isBefore(hoy)) {
+            return null;
+        }
+        return new Bloque(vigente, ticketNumberDayRepository.siguienteBloque(secuencia));
+    }
+
+    private String formatear(QueueType queueType, long valor) {
+        return String.format("%c%03d", queueType.getPrefijo(), valor);
+    }
+
+    private String nombreSecuencia(QueueType queueType) {
+        return "ticket_number_" + queueType.name().toLowerCase() + "_seq";
+    }
+
+    /**
+     * Número asignado junto con su día de atención.
+     */
+    public record NumeroAsignado(
+        String numero,
+        LocalDate serviceDate
+    ) {}
+
+    /**
+     * "hi" reservado junto con el día de su secuencia.
+     */
+    private record Bloque(LocalDate fecha, long hi) {}
+
+    /**
+     * Bloque vigente de una cola.
+     */
+    private static final class EstadoCola {
+        private final ReentrantLock lock = new ReentrantLock();
+        private LocalDate fecha;
+        private long siguiente = 1;
+        private long limite = 0;
+    }
+}
@@ -1,45 +1,56 @@
 package com.example.ticketero.service;
 
 import com.example.ticketero.exception.NoAdvisorAvailableException;
+import com.example.ticketero.model.dto.QueueConfigSnapshot;
 import com.example.ticketero.model.entity.Advisor;
 import com.example.ticketero.model.entity.Ticket;
 import com.example.ticketero.model.entity.TicketEvent;
-import com.example.ticketero.model.enums.AdvisorStatus;
 import com.example.ticketero.model.enums.EventType;
 import com.example.ticketero.model.enums.QueueType;
 import com.example.ticketero.model.enums.TicketStatus;
 import com.example.ticketero.repository.AdvisorRepository;
-import com.example.ticketero.repository.QueueConfigRepository;
 import com.example.ticketero.repository.TicketEventRepository;
 import com.example.ticketero.repository.TicketRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * Servicio que procesa tickets en una ÚNICA transacción.
+ * Servicio que procesa tickets en transacciones cortas.
  *
- * Este servicio resuelve el problema de fragmentación transaccional donde
- * antes había múltiples TX independientes (TX2 → TX3 → TX4 → TX5) que
- * podían dejar el sistema en estado inconsistente si fallaba alguna.
+ * El tiempo de atención no retiene una conexión de BD ni el thread del listener:
+ * cada paso es una transición de estado explícita y condicional
+ * (UPDATE ... WHERE status = origen), que hace commit de inmediato:
  *
- * Flujo en UNA sola TX:
- * 1. Verificar idempotencia (ticket en WAITING)
- * 2. Obtener advisor disponible (SELECT FOR UPDATE)
- * 3. Asignar advisor a ticket (status → CALLED)
- * 4. Actualizar posiciones en cola
- * 5. Iniciar atención (status → IN_PROGRESS)
- * 6. Simular tiempo de atención (configurable)
- * 7. Completar atención (status → COMPLETED)
- * 8. Liberar advisor (status → AVAILABLE)
- * 9. Registrar eventos de auditoría
+ * TX1 - Llamar (WAITING → CALLED):
+ *   1. Reclamar advisor disponible (SELECT FOR UPDATE SKIP LOCKED LIMIT 1)
+ *   2. Asignar advisor a ticket y marcar advisor BUSY
+ *   3. Avanzar cabeza de la cola y notificar próximos turnos / turno activo
+ * TX2 - Iniciar (CALLED → IN_PROGRESS) y guardar service_due_at
+ * Luego se programa el completado en CompletionScheduler, que al vencer
+ * ejecuta TX3 (IN_PROGRESS → COMPLETED, advisor BUSY → AVAILABLE).
  *
- * Si CUALQUIER paso falla, TODA la TX hace rollback.
- * El mensaje de RabbitMQ se re-encola (NACK).
+ * Cada TX registra su evento de auditoría. Si una falla, solo ella hace rollback
+ * y el mensaje se re-encola (NACK): al re-entregarse, el ticket continúa desde
+ * el estado ya confirmado (CALLED o IN_PROGRESS). Un UPDATE que afecta 0 filas
+ * significa que otro worker (o RecoveryService) ya movió el ticket.
+ *
+ * Lote (app.rabbitmq.batch.size > 1): procesarLote hace TX1 para todos los
+ * tickets del lote con un solo SELECT de asesores, y TX2 para todos los llamados.
+ *
+ * Despacho pull (app.dispatch.mode=pull): atenderSiguiente parte del asesor
+ * en vez del ticket; TX1 bloquea al asesor, MultiQueueScheduler elige entre
+ * sus colas (prioridad y antigüedad) y se reclama el ticket WAITING más
+ * antiguo de esa cola. TX2 y el completado son los mismos.
  */
 @Service
 @RequiredArgsConstructor
@@ -49,67 +60,255 @@ public class TicketProcessingService {
     private final TicketRepository ticketRepository;
     private final AdvisorRepository advisorRepository;
     private final TicketEventRepository ticketEventRepository;
-    private final QueueConfigRepository queueConfigRepository;
+    private final QueueConfigCache queueConfigCache;
     private final NotificationService notificationService;
+    private final QueueManagementService queueManagementService;
+    private final LiveQueueIndex liveQueueIndex;
+    private final ProximoTurnoNotifier proximoTurnoNotifier;
+    private final CompletionScheduler completionScheduler;
+    private final MultiQueueScheduler multiQueueScheduler;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.atencion.segundos-por-minuto:1}")
+    private int segundosPorMinuto;
 
     /**
-     * Procesa un ticket completo en una única transacción.
+     * Llama e inicia la atención de un ticket, y programa su completado.
+     * No es @Transactional: cada paso abre y confirma su propia TX.
      *
      * @param ticketId ID del ticket a procesar
      * @param queueType Tipo de cola
-     * @return true si procesó exitosamente, false si ya estaba procesado (idempotencia)
+     * @return true si la atención quedó en curso (completado programado),
+     *         false si ya estaba procesado (idempotencia)
      * @throws NoAdvisorAvailableException si no hay advisors disponibles
-     * @throws InterruptedException si el thread es interrumpido durante simulación
      */
-    @Transactional
-    public boolean procesarTicketCompleto(Long ticketId, QueueType queueType)
-            throws InterruptedException {
+    public boolean procesarTicketCompleto(Long ticketId, QueueType queueType) {
 
         log.info("[PROCESS] Iniciando procesamiento de ticket ID: {} en cola: {}",
             ticketId, queueType);
 
         // =====================================================================
-        // PASO 1: Verificar idempotencia
+        // TX1: Llamar (WAITING → CALLED). Reanuda si ya estaba CALLED/IN_PROGRESS.
         // =====================================================================
+        Atencion atencion = transactionTemplate.execute(status -> llamar(ticketId, queueType));
+        if (atencion == null) {
+            return false;
+        }
+
+        return iniciarYProgramar(atencion);
+    }
+
+    /**
+     * Llama e inicia la atención de un lote de tickets de una cola (worker en modo batch).
+     * TX1 reclama de una vez hasta tantos asesores como tickets en espera y llama a
+     * los que alcancen; TX2 inicia todas esas atenciones. Dos commits por lote.
+     *
+     * @param ticketIds Tickets del lote, en orden de llegada
+     * @return tickets sin asesor disponible (a reintentar); el resto quedó en curso
+     *         o ya estaba procesado
+     */
+    public List<Long> procesarLote(QueueType queueType, List<Long> ticketIds) {
+        log.info("[PROCESS] Procesando lote de {} tickets en cola: {}", ticketIds.size(), queueType);
+
+        LlamadasLote llamadas = transactionTemplate.execute(status -> llamarLote(queueType, ticketIds));
+
+        List<Atencion> porIniciar = llamadas.atenciones().stream()
+            .filter(a -> TicketStatus.CALLED.equals(a.status()))
+            .toList();
+        Map<Long, LocalDateTime> vencimientos = porIniciar.isEmpty()
+            ? Map.of()
+            : transactionTemplate.execute(status -> iniciarLote(porIniciar));
+
+        for (Atencion atencion : llamadas.atenciones()) {
+            LocalDateTime vencimiento = atencion.serviceDueAt();
+            if (TicketStatus.CALLED.equals(atencion.status())) {
+                vencimiento = vencimientos.get(atencion.ticketId());
+                if (vencimiento == null) {
+                    continue;
+                }
+            }
+            completionScheduler.programar(atencion.ticketId(), vencimiento);
+        }
+
+        return llamadas.sinAsesor();
+    }
+
+    /**
+     * Despacho pull: el asesor (AVAILABLE) toma el siguiente ticket de las colas
+     * que atiende (elegido por MultiQueueScheduler), lo llama e inicia la atención.
+     *
+     * @param advisorId Asesor que quedó disponible
+     * @return true si el asesor tomó un ticket; false si ya no estaba AVAILABLE
+     *         (o lo tomó otro despacho) o no hay tickets en sus colas
+     */
+    public boolean atenderSiguiente(Long advisorId) {
+        Atencion atencion = transactionTemplate.execute(status -> llamarSiguiente(advisorId));
+        if (atencion == null) {
+            return false;
+        }
+
+        log.info("[PULL] Asesor {} tomó ticket {}", advisorId, atencion.numero());
+        return iniciarYProgramar(atencion);
+    }
+
+    /**
+     * TX2 (si el ticket está CALLED) y programación del completado.
+     */
+    private boolean iniciarYProgramar(Atencion atencion) {
+        // =====================================================================
+        // TX2: Iniciar atención (CALLED → IN_PROGRESS) con su vencimiento.
+        // NOTA: En producción real, el advisor completa manualmente desde su
+        // dashboard. Para testing, el vencimiento es el tiempo de servicio
+        // configurado (escalado por app.atencion.segundos-por-minuto).
+        // =====================================================================
+        LocalDateTime vencimiento = atencion.serviceDueAt();
+        if (TicketStatus.CALLED.equals(atencion.status())) {
+            vencimiento = transactionTemplate.execute(status -> iniciar(atencion));
+            if (vencimiento == null) {
+                return false;
+            }
+        }
+
+        // =====================================================================
+        // Programar completado (TX3 en CompletionScheduler), sin bloquear el listener
+        // =====================================================================
+        completionScheduler.programar(atencion.ticketId(), vencimiento);
+        return true;
+    }
+
+    /**
+     * TX1: reclama un advisor y llama al ticket.
+     *
+     * @return atención en curso, o null si el ticket ya no está pendiente
+     */
+    private Atencion llamar(Long ticketId, QueueType queueType) {
         Ticket ticket = ticketRepository.findById(ticketId)
             .orElseThrow(() -> new RuntimeException("Ticket not found: " + ticketId));
 
+        // Re-entrega de un ticket ya llamado: continuar desde su estado
+        if (enCurso(ticket)) {
+            return reanudar(ticket);
+        }
+
         // FIX BUG: Usar .equals() en lugar de == para comparar enums
         if (!TicketStatus.WAITING.equals(ticket.getStatus())) {
             log.info("[PROCESS] Ticket {} ya procesado (status: {}). Idempotencia OK.",
                 ticket.getNumero(), ticket.getStatus());
-            return false;
+            return null;
         }
 
-        // =====================================================================
-        // PASO 2: Obtener advisor disponible con bloqueo pesimista
-        // =====================================================================
-        List<Advisor> disponibles = advisorRepository
-            .findAvailableForQueueWithLock(queueType.name());
+        // Reclamar advisor disponible (SKIP LOCKED: no espera a otros workers)
+        Advisor advisor = advisorRepository.claimAvailableForQueue(queueType.getBit())
+            .orElseThrow(() -> {
+                log.warn("[PROCESS] No hay advisors disponibles para cola: {}", queueType);
+                return new NoAdvisorAvailableException(
+                    "No hay asesores disponibles para " + queueType);
+            });
+        log.info("[PROCESS] Advisor {} seleccionado para ticket {}",
+            advisor.getName(), ticket.getNumero());
+
+        return asignar(ticket, advisor);
+    }
+
+    /**
+     * TX1 de un lote: reanuda los tickets ya llamados, reclama asesores para los
+     * WAITING (un SELECT ... LIMIT n SKIP LOCKED) y los asigna en orden de llegada.
+     */
+    private LlamadasLote llamarLote(QueueType queueType, List<Long> ticketIds) {
+        Map<Long, Ticket> tickets = new HashMap<>();
+        ticketRepository.findAllById(ticketIds).forEach(t -> tickets.put(t.getId(), t));
+
+        List<Atencion> atenciones = new ArrayList<>();
+        List<Ticket> enEspera = new ArrayList<>();
+        for (Long ticketId : ticketIds) {
+            Ticket ticket = tickets.get(ticketId);
+            if (ticket == null) {
+                log.warn("[PROCESS] Ticket {} no existe. Se descarta del lote.", ticketId);
+            } else if (enCurso(ticket)) {
+                atenciones.add(reanudar(ticket));
+            } else if (TicketStatus.WAITING.equals(ticket.getStatus())) {
+                enEspera.add(ticket);
+            } else {
+                log.info("[PROCESS] Ticket {} ya procesado (status: {}). Idempotencia OK.",
+                    ticket.getNumero(), ticket.getStatus());
+            }
+        }
 
-        if (disponibles.isEmpty()) {
-            log.warn("[PROCESS] No hay advisors disponibles para cola: {}", queueType);
-            throw new NoAdvisorAvailableException(
-                "No hay asesores disponibles para " + queueType);
+        List<Long> sinAsesor = new ArrayList<>();
+        if (enEspera.isEmpty()) {
+            return new LlamadasLote(atenciones, sinAsesor);
         }
 
-        Advisor advisor = disponibles.get(0);
-        log.info("[PROCESS] Advisor {} seleccionado para ticket {}",
-            advisor.getName(), ticket.getNumero());
+        List<Advisor> asesores = advisorRepository.claimAvailableForQueue(queueType.getBit(), enEspera.size());
+        int siguienteAsesor = 0;
+        for (Ticket ticket : enEspera) {
+            if (siguienteAsesor >= asesores.size()) {
+                sinAsesor.add(ticket.getId());
+                continue;
+            }
+            // Si el ticket ya no estaba WAITING, el asesor queda para el siguiente
+            Atencion atencion = asignar(ticket, asesores.get(siguienteAsesor));
+            if (atencion != null) {
+                atenciones.add(atencion);
+                siguienteAsesor++;
+            }
+        }
+
+        log.info("[PROCESS] Lote {}: {} asesores para {} tickets en espera, {} sin asesor",
+            queueType, asesores.size(), enEspera.size(), sinAsesor.size());
+        return new LlamadasLote(atenciones, sinAsesor);
+    }
+
+    /**
+     * TX1 del despacho pull: bloquea al asesor, elige la cola y reclama el ticket al frente.
+     * Si el ticket de la cola elegida ya lo tomó otro despacho, prueba la siguiente.
+     *
+     * @return atención en curso, o null si no hay asesor disponible o ticket en espera
+     */
+    private Atencion llamarSiguiente(Long advisorId) {
+        Advisor advisor = advisorRepository.claimIfAvailable(advisorId).orElse(null);
+        if (advisor == null || advisor.getQueueTypes().isEmpty()) {
+            return null;
+        }
+
+        List<MultiQueueScheduler.Candidata> candidatas = multiQueueScheduler.ordenar(advisor.getQueueTypes());
+        for (MultiQueueScheduler.Candidata candidata : candidatas) {
+            Ticket ticket = ticketRepository.claimNextWaiting(candidata.queueType().name())
+                .orElse(null);
+            if (ticket != null) {
+                multiQueueScheduler.registrarDespacho(candidata.queueType(), candidatas);
+                return asignar(ticket, advisor);
+            }
+        }
 
+        log.debug("[PULL] Sin tickets en espera para asesor {} ({})", advisor.getName(), advisor.getQueueTypes());
+        return null;
+    }
+
+    /**
+     * Asigna un advisor ya bloqueado a un ticket WAITING (WAITING → CALLED).
+     *
+     * @return atención en curso, o null si el ticket ya no estaba WAITING
+     */
+    private Atencion asignar(Ticket ticket, Advisor advisor) {
+        Long ticketId = ticket.getId();
+        QueueType queueType = ticket.getQueueType();
         LocalDateTime ahora = LocalDateTime.now();
 
-        // =====================================================================
-        // PASO 3: Asignar advisor a ticket (CALLED)
-        // =====================================================================
-        advisor.setStatus(AdvisorStatus.BUSY);
-        advisor.setLastActiveAt(ahora);
-        advisor.setLastHeartbeat(ahora);
+        // Asignar advisor a ticket (WAITING → CALLED); 0 filas = otro worker lo tomó
+        if (ticketRepository.assignAdvisorIfWaiting(
+                ticketId, advisor.getId(), ahora, advisor.getModuleNumber()) == 0) {
+            log.info("[PROCESS] Ticket {} ya no está en WAITING. Idempotencia OK.", ticket.getNumero());
+            return null;
+        }
+        advisorRepository.markBusyIfAvailable(advisor.getId(), ahora);
+
+        // Lectura fresca tras los UPDATE directos
+        ticket = ticketRepository.findById(ticketId).orElseThrow();
+        advisor = advisorRepository.findById(advisor.getId()).orElseThrow();
 
-        ticket.setAssignedAdvisor(advisor);
-        ticket.setAssignedModuleNumber(advisor.getModuleNumber());
-        ticket.setStatus(TicketStatus.CALLED);
-        ticket.setCalledAt(ahora);
+        long cabeza = queueManagementService.liberarPosicionEnCola(queueType);
+        liveQueueIndex.registrarLlamado(ticket);
 
         registrarEvento(ticket, EventType.CALLED, advisor,
             String.format("Asignado a módulo %d", advisor.getModuleNumber()));
@@ -117,14 +316,12 @@ public class TicketProcessingService {
         log.info("[PROCESS] Ticket {} asignado a {} (Módulo {})",
             ticket.getNumero(), advisor.getName(), advisor.getModuleNumber());
 
-        // =====================================================================
-        // PASO 4: Actualizar posiciones de otros tickets en cola
-        // =====================================================================
-        actualizarPosicionesEnCola(queueType);
+        // Notificar próximos turnos (solo los tickets que entraron a la ventana
+        // con la cabeza recién avanzada). Son intenciones en la misma TX: se
+        // confirman o revierten junto con el avance de la cola.
+        proximoTurnoNotifier.notificarNuevosEnVentana(queueType, cabeza);
 
-        // =====================================================================
-        // PASO 5: Notificar turno activo (fuera de TX crítica, puede fallar)
-        // =====================================================================
+        // Notificar turno activo (no crítico, puede fallar)
         try {
             notificationService.notificarTurnoActivo(ticket, advisor);
         } catch (Exception e) {
@@ -132,52 +329,68 @@ public class TicketProcessingService {
                 e.getMessage());
         }
 
-        // =====================================================================
-        // PASO 6: Iniciar atención (IN_PROGRESS)
-        // =====================================================================
-        ticket.setStatus(TicketStatus.IN_PROGRESS);
-        ticket.setStartedAt(LocalDateTime.now());
-
-        registrarEvento(ticket, EventType.STARTED, advisor, "Atención iniciada");
-
-        log.info("[PROCESS] Ticket {} en atención por {}",
-            ticket.getNumero(), advisor.getName());
+        return new Atencion(ticket.getId(), ticket.getNumero(), queueType, advisor.getId(),
+            TicketStatus.CALLED, null);
+    }
 
-        // =====================================================================
-        // PASO 7: Simular tiempo de atención
-        // NOTA: En producción real, esto NO debería existir.
-        // El advisor completa manualmente desde su dashboard.
-        // Para testing, simulamos con sleep configurable.
-        // =====================================================================
-        int serviceTimeSeconds = obtenerTiempoServicioSegundos(queueType);
-        simularAtencion(serviceTimeSeconds);
+    /**
+     * Si el ticket ya fue llamado (re-entrega): CALLED o IN_PROGRESS.
+     */
+    private boolean enCurso(Ticket ticket) {
+        return TicketStatus.CALLED.equals(ticket.getStatus())
+            || TicketStatus.IN_PROGRESS.equals(ticket.getStatus());
+    }
 
-        // =====================================================================
-        // PASO 8: Completar atención (COMPLETED)
-        // =====================================================================
-        ticket.setStatus(TicketStatus.COMPLETED);
-        ticket.setCompletedAt(LocalDateTime.now());
+    /**
+     * Atención de un ticket ya llamado, para continuar desde su estado.
+     */
+    private Atencion reanudar(Ticket ticket) {
+        if (ticket.getAssignedAdvisor() == null) {
+            throw new IllegalStateException("Ticket sin advisor asignado: " + ticket.getNumero());
+        }
+        log.info("[PROCESS] Ticket {} ya en {}. Reanudando.", ticket.getNumero(), ticket.getStatus());
+        return new Atencion(ticket.getId(), ticket.getNumero(), ticket.getQueueType(),
+            ticket.getAssignedAdvisor().getId(), ticket.getStatus(), ticket.getServiceDueAt());
+    }
 
-        registrarEvento(ticket, EventType.COMPLETED, advisor, "Atención completada");
+    /**
+     * TX2 de un lote: inicia todas las atenciones llamadas.
+     *
+     * @return vencimiento por ticket (sin los que ya no estaban CALLED)
+     */
+    private Map<Long, LocalDateTime> iniciarLote(List<Atencion> atenciones) {
+        Map<Long, LocalDateTime> vencimientos = new HashMap<>();
+        for (Atencion atencion : atenciones) {
+            LocalDateTime vencimiento = iniciar(atencion);
+            if (vencimiento != null) {
+                vencimientos.put(atencion.ticketId(), vencimiento);
+            }
+        }
+        return vencimientos;
+    }
 
-        // =====================================================================
-        // PASO 9: Liberar advisor (AVAILABLE)
-        // =====================================================================
-        advisor.setStatus(AdvisorStatus.AVAILABLE);
-        advisor.setTotalTicketsServed(advisor.getTotalTicketsServed() + 1);
-        advisor.setLastActiveAt(LocalDateTime.now());
-        actualizarTiempoPromedioAsesor(advisor, ticket);
+    /**
+     * TX2: inicia la atención.
+     *
+     * @return vencimiento de la atención, o null si el ticket ya no estaba CALLED
+     */
+    private LocalDateTime iniciar(Atencion atencion) {
+        // Precisión de la BD: CompletionScheduler compara el vencimiento con service_due_at
+        LocalDateTime ahora = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        LocalDateTime vencimiento = ahora.plusSeconds(obtenerTiempoServicioSegundos(atencion.queueType()));
+        if (ticketRepository.startIfCalled(atencion.ticketId(), ahora, vencimiento) == 0) {
+            log.info("[PROCESS] Ticket {} ya no está en CALLED. Idempotencia OK.", atencion.numero());
+            return null;
+        }
 
-        // =====================================================================
-        // PASO 10: Guardar cambios (flush al commit)
-        // =====================================================================
-        ticketRepository.save(ticket);
-        advisorRepository.save(advisor);
+        Ticket ticket = ticketRepository.findById(atencion.ticketId()).orElseThrow();
+        Advisor advisor = advisorRepository.getReferenceById(atencion.advisorId());
+        liveQueueIndex.registrarSalida(ticket);
 
-        log.info("[PROCESS] Ticket {} COMPLETADO. Advisor {} liberado. Total servidos: {}",
-            ticket.getNumero(), advisor.getName(), advisor.getTotalTicketsServed());
+        registrarEvento(ticket, EventType.STARTED, advisor, "Atención iniciada");
 
-        return true;
+        log.info("[PROCESS] Ticket {} en atención hasta {}", ticket.getNumero(), vencimiento);
+        return vencimiento;
     }
 
     /**
@@ -195,94 +408,25 @@ public class TicketProcessingService {
         ticketEventRepository.save(event);
     }
 
-    /**
-     * Umbral de posición para notificar "Próximo Turno".
-     * Cuando posición <= este valor, se envía notificación.
-     */
-    private static final int THRESHOLD_PROXIMO_TURNO = 3;
-
-    /**
-     * Actualiza las posiciones de tickets en espera.
-     * Envía notificación "Próximo Turno" cuando posición <= 3.
-     */
-    private void actualizarPosicionesEnCola(QueueType queueType) {
-        List<Ticket> ticketsEnEspera = ticketRepository
-            .findByQueueAndStatus(queueType, TicketStatus.WAITING);
-
-        int posicion = 1;
-        for (Ticket t : ticketsEnEspera) {
-            if (!t.getPositionInQueue().equals(posicion)) {
-                t.setPositionInQueue(posicion);
-                ticketRepository.save(t);
-            }
-
-            // Notificar "Próximo Turno" si está cerca y no se ha notificado
-            if (posicion <= THRESHOLD_PROXIMO_TURNO
-                    && Boolean.FALSE.equals(t.getProximoTurnoNotificado())) {
-                try {
-                    notificationService.notificarProximoTurno(t);
-                    t.setProximoTurnoNotificado(true);
-                    ticketRepository.save(t);
-                    log.info("[PROCESS] Notificación 'Próximo Turno' enviada a ticket {}",
-                        t.getNumero());
-                } catch (Exception e) {
-                    log.warn("[PROCESS] Error enviando notificación próximo turno: {}",
-                        e.getMessage());
-                }
-            }
-
-            posicion++;
-        }
-
-        log.debug("[PROCESS] Posiciones actualizadas en cola {}: {} tickets",
-            queueType, ticketsEnEspera.size());
-    }
-
     /**
      * Obtiene tiempo de servicio en segundos según la cola.
-     * Para testing: minutos → segundos (acelerado 60x).
+     * Escala: app.atencion.segundos-por-minuto (1 = acelerado 60x para testing).
+     * WaitTimeEstimator usa la misma escala para las duraciones observadas.
      */
     private int obtenerTiempoServicioSegundos(QueueType queueType) {
-        return queueConfigRepository.findByQueueType(queueType)
-            .map(config -> config.getAvgServiceTimeMinutes())
-            .orElse(5); // 5 segundos por defecto en testing
+        return queueConfigCache.buscar(queueType)
+            .map(QueueConfigSnapshot::avgServiceTimeMinutes)
+            .orElse(5) * segundosPorMinuto;
     }
 
     /**
-     * Simula el tiempo de atención.
-     * En testing: X "minutos" = X segundos (acelerado).
-     * En producción: Este método NO debería existir.
-     *
-     * @throws InterruptedException si el thread es interrumpido
+     * Ticket en proceso entre transacciones.
      */
-    private void simularAtencion(int segundos) throws InterruptedException {
-        log.debug("[PROCESS] Simulando atención de {} segundos", segundos);
-        Thread.sleep(segundos * 1000L);
-    }
+    private record Atencion(Long ticketId, String numero, QueueType queueType, Long advisorId,
+                            TicketStatus status, LocalDateTime serviceDueAt) {}
 
     /**
-     * Actualiza el tiempo promedio de atención del asesor.
-     * Usa promedio móvil simple.
+     * Resultado de TX1 de un lote.
      */
-    private void actualizarTiempoPromedioAsesor(Advisor advisor, Ticket ticket) {
-        if (ticket.getStartedAt() != null && ticket.getCompletedAt() != null) {
-            long segundos = java.time.temporal.ChronoUnit.SECONDS.between(
-                ticket.getStartedAt(),
-                ticket.getCompletedAt()
-            );
-
-            double minutos = segundos / 60.0;
-            int totalServed = advisor.getTotalTicketsServed();
-            int avgActual = advisor.getAvgServiceTimeMinutes();
-
-            int nuevoPromedio = (int) Math.round(
-                (avgActual * (totalServed - 1) + minutos) / totalServed
-            );
-
-            advisor.setAvgServiceTimeMinutes(nuevoPromedio);
-
-            log.debug("[PROCESS] Tiempo atención: {}s. Promedio advisor {}: {} min",
-                segundos, advisor.getName(), nuevoPromedio);
-        }
-    }
+    private record LlamadasLote(List<Atencion> atenciones, List<Long> sinAsesor) {}
 }
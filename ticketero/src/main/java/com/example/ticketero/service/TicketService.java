@@ -1,7 +1,11 @@
 package com.example.ticketero.service;
 
+import com.example.ticketero.config.TicketQueueTopology;
 import com.example.ticketero.exception.TicketNotFoundException;
+import com.example.ticketero.model.dto.ActiveTicketResponse;
 import com.example.ticketero.model.dto.QueuePositionResponse;
+import com.example.ticketero.model.dto.TicketBatchCreateRequest;
+import com.example.ticketero.model.dto.TicketBatchResponse;
 import com.example.ticketero.model.dto.TicketCreateRequest;
 import com.example.ticketero.model.dto.TicketQueueMessage;
 import com.example.ticketero.model.dto.TicketResponse;
@@ -14,12 +18,23 @@ import com.example.ticketero.repository.OutboxMessageRepository;
 import com.example.ticketero.repository.TicketRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -37,7 +52,16 @@ public class TicketService {
     private final QueueManagementService queueManagementService;
     private final NotificationService notificationService;
     private final MetricsService metricsService;
+    private final TicketNumberAllocator ticketNumberAllocator;
+    private final LiveQueueIndex liveQueueIndex;
+    private final WaitTimeEstimator waitTimeEstimator;
+    private final AdvisorPullDispatcher pullDispatcher;
+    private final TicketQueueTopology ticketQueueTopology;
     private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Value("${app.tickets.posicion.max-numeros-adelante:10}")
+    private int maxNumerosAdelante;
 
     /**
      * Crea un nuevo ticket con gestión REAL de cola
@@ -48,34 +72,21 @@ public class TicketService {
         log.info("Creando ticket para nationalId: {}, cola: {}", 
             request.nationalId(), request.queueType());
 
-        // 1. Calcular posición REAL en cola
-        int posicion = queueManagementService.calcularPosicionEnCola(request.queueType());
+        // 1. Asignar posición REAL en cola (incremento atómico, sin COUNT)
+        QueueManagementService.ReservaCola reserva =
+            queueManagementService.asignarPosicionEnCola(request.queueType());
+        int posicion = reserva.primeraPosicion();
         
-        // 2. Calcular tiempo estimado REAL
-        int tiempoEstimado = queueManagementService.calcularTiempoEstimado(
-            request.queueType(),
-            posicion
-        );
-
-        // 3. Generar número de ticket
-        String numeroTicket = generarNumeroTicket(request.queueType());
+        // 2. Calcular tiempo estimado (atención observada y asesores activos, en memoria)
+        int tiempoEstimado = waitTimeEstimator.estimarEsperaMinutos(request.queueType(), posicion);
 
-        // 4. Crear ticket con datos REALES
-        Ticket ticket = Ticket.builder()
-            .codigoReferencia(UUID.randomUUID())
-            .numero(numeroTicket)
-            .nationalId(request.nationalId())
-            .telefono(request.telefono())
-            .branchOffice(request.branchOffice())
-            .queueType(request.queueType())
-            .status(TicketStatus.WAITING)
-            .positionInQueue(posicion)
-            .estimatedWaitMinutes(tiempoEstimado)
-            .build();
+        // 3-4. Asignar número y crear ticket con datos REALES
+        Ticket ticket = construirTicket(request, reserva.primerSeq(), posicion, tiempoEstimado);
 
         // FIX PATRÓN OUTBOX: saveAndFlush garantiza que ticket está en DB
         // antes de guardar el mensaje outbox en la MISMA transacción
         ticket = ticketRepository.saveAndFlush(ticket);
+        liveQueueIndex.registrarEncolado(ticket);
 
         log.info("Ticket creado: {} (posición: {}, espera: {} min)",
             ticket.getNumero(), posicion, tiempoEstimado);
@@ -84,8 +95,14 @@ public class TicketService {
         metricsService.incrementTicketsCreated(request.queueType());
 
         // 6. PATRÓN OUTBOX: Guardar mensaje en outbox (misma TX que ticket)
-        // El OutboxPublisherService lo enviará a RabbitMQ
-        guardarEnOutbox(ticket);
+        // El OutboxPublisherService lo enviará a RabbitMQ.
+        // En despacho pull no hay workers: se avisa a los asesores al commit.
+        if (pullDispatcher.isPull()) {
+            pullDispatcher.ticketsEncolados(ticket.getQueueType());
+        } else {
+            outboxMessageRepository.save(construirMensajeOutbox(ticket));
+            log.info("Ticket {} guardado en outbox", ticket.getNumero());
+        }
 
         // 7. Notificar posición inicial con datos REALES
         notificationService.notificarTicketCreado(ticket);
@@ -95,17 +112,135 @@ public class TicketService {
     }
 
     /**
-     * PATRÓN OUTBOX: Guarda mensaje en tabla outbox para envío posterior.
+     * Crea tickets en lote (carga matinal de citas, reenvío de buffers de kiosco).
+     *
+     * A diferencia de N llamadas a crearTicket:
+     * - Cada item se valida por separado: los inválidos se reportan sin abortar el lote
+     * - Las posiciones se reservan con un UPDATE por cola (no uno por ticket)
+     * - Tickets, mensajes outbox e intenciones de notificación se insertan con
+     *   saveAll en la misma TX y Hibernate los envía en lotes JDBC
+     *
+     * @return Resultado por item, en el mismo orden del request
+     */
+    @Transactional
+    public TicketBatchResponse crearTicketsEnLote(TicketBatchCreateRequest request) {
+        List<TicketCreateRequest> items = request.tickets();
+        TicketBatchResponse.ItemResult[] resultados = new TicketBatchResponse.ItemResult[items.size()];
+
+        // 1. Validar cada item y agrupar los válidos por cola
+        Map<QueueType, List<Integer>> indicesPorCola = new EnumMap<>(QueueType.class);
+        for (int i = 0; i < items.size(); i++) {
+            String error = validarItem(items.get(i));
+            if (error != null) {
+                resultados[i] = TicketBatchResponse.ItemResult.rechazado(i, error);
+            } else {
+                indicesPorCola.computeIfAbsent(items.get(i).queueType(), q -> new ArrayList<>()).add(i);
+            }
+        }
+
+        // 2. Reservar posiciones por cola y construir tickets
+        List<Ticket> tickets = new ArrayList<>();
+        List<Integer> indices = new ArrayList<>();
+
+        for (Map.Entry<QueueType, List<Integer>> entry : indicesPorCola.entrySet()) {
+            QueueType queueType = entry.getKey();
+            List<Integer> indicesCola = entry.getValue();
+
+            QueueManagementService.ReservaCola reserva =
+                queueManagementService.asignarPosicionesEnCola(queueType, indicesCola.size());
+
+            for (int k = 0; k < indicesCola.size(); k++) {
+                int posicion = reserva.primeraPosicion() + k;
+                tickets.add(construirTicket(items.get(indicesCola.get(k)), reserva.primerSeq() + k,
+                    posicion, waitTimeEstimator.estimarEsperaMinutos(queueType, posicion)));
+                indices.add(indicesCola.get(k));
+            }
+
+            metricsService.incrementTicketsCreated(queueType, indicesCola.size());
+        }
+
+        // 3. Insertar en lotes (IDs por secuencia: disponibles sin flush)
+        ticketRepository.saveAll(tickets);
+        tickets.forEach(liveQueueIndex::registrarEncolado);
+        if (pullDispatcher.isPull()) {
+            indicesPorCola.keySet().forEach(pullDispatcher::ticketsEncolados);
+        } else {
+            outboxMessageRepository.saveAll(tickets.stream().map(this::construirMensajeOutbox).toList());
+        }
+        tickets.forEach(notificationService::notificarTicketCreado);
+
+        for (int i = 0; i < tickets.size(); i++) {
+            resultados[indices.get(i)] = TicketBatchResponse.ItemResult.creado(indices.get(i), toResponse(tickets.get(i)));
+        }
+
+        log.info("Lote procesado: {} tickets creados, {} rechazados",
+            tickets.size(), items.size() - tickets.size());
+
+        return new TicketBatchResponse(
+            items.size(),
+            tickets.size(),
+            items.size() - tickets.size(),
+            Arrays.asList(resultados)
+        );
+    }
+
+    /**
+     * Valida un item del lote con las mismas reglas que POST /api/tickets.
+     *
+     * @return Mensaje de error, o null si es válido
+     */
+    private String validarItem(TicketCreateRequest item) {
+        if (item == null) {
+            return "Item vacío";
+        }
+
+        Set<ConstraintViolation<TicketCreateRequest>> violaciones = validator.validate(item);
+        if (violaciones.isEmpty()) {
+            return null;
+        }
+
+        return violaciones.stream()
+            .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+            .sorted()
+            .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Construye un ticket WAITING con número asignado (sin persistir).
+     */
+    private Ticket construirTicket(TicketCreateRequest request, long queueSeq, int posicion, int tiempoEstimado) {
+        // Número único por cola y día
+        TicketNumberAllocator.NumeroAsignado numeroTicket =
+            ticketNumberAllocator.asignarNumero(request.queueType());
+
+        return Ticket.builder()
+            .codigoReferencia(UUID.randomUUID())
+            .numero(numeroTicket.numero())
+            .serviceDate(numeroTicket.serviceDate())
+            .nationalId(request.nationalId())
+            .telefono(request.telefono())
+            .branchOffice(request.branchOffice())
+            .queueType(request.queueType())
+            .status(TicketStatus.WAITING)
+            .queueSeq(queueSeq)
+            .positionInQueue(posicion)
+            .estimatedWaitMinutes(tiempoEstimado)
+            .build();
+    }
+
+    /**
+     * PATRÓN OUTBOX: Construye el mensaje outbox para envío posterior.
      *
      * Beneficios:
      * - Atomicidad: El mensaje se guarda en la misma TX que el ticket
      * - Durabilidad: Si RabbitMQ falla, el mensaje se reintenta automáticamente
      * - Consistencia: El ticket SIEMPRE existe en DB antes del mensaje
      *
-     * @param ticket Ticket creado
+     * @param ticket Ticket creado (con ID asignado)
      */
-    private void guardarEnOutbox(Ticket ticket) {
-        String routingKey = getQueueName(ticket.getQueueType());
+    private OutboxMessage construirMensajeOutbox(Ticket ticket) {
+        String routingKey = ticketQueueTopology.routingKey(
+            ticket.getQueueType(), ticket.getBranchOffice(), ticket.getId());
 
         // Crear payload como JSON
         TicketQueueMessage messageContent = new TicketQueueMessage(
@@ -122,8 +257,8 @@ public class TicketService {
             throw new RuntimeException("Error serializando mensaje outbox", e);
         }
 
-        // Guardar en outbox (misma TX que ticket)
-        OutboxMessage outbox = OutboxMessage.builder()
+        // Se guarda en la misma TX que el ticket
+        return OutboxMessage.builder()
             .aggregateType("TICKET")
             .aggregateId(ticket.getId())
             .eventType("TICKET_CREATED")
@@ -131,28 +266,6 @@ public class TicketService {
             .routingKey(routingKey)
             .status("PENDING")
             .build();
-
-        outboxMessageRepository.save(outbox);
-
-        log.info("Ticket {} guardado en outbox para cola: {}",
-            ticket.getNumero(), routingKey);
-    }
-
-    /**
-     * Obtiene el nombre de la cola RabbitMQ según el tipo
-     */
-    private String getQueueName(QueueType queueType) {
-        return queueType.name().toLowerCase() + "-queue";
-    }
-
-    /**
-     * Genera número de ticket basado en el tipo de cola
-     */
-    private String generarNumeroTicket(QueueType queueType) {
-        // Prefijo según tipo de cola
-        char prefijo = queueType.name().charAt(0);
-        int numero = (int) (Math.random() * 999) + 1;
-        return String.format("%c%03d", prefijo, numero);
     }
 
     /**
@@ -165,45 +278,89 @@ public class TicketService {
         Ticket ticket = ticketRepository.findByCodigoReferencia(codigoReferencia)
             .orElseThrow(() -> new TicketNotFoundException(codigoReferencia));
         
-        return toResponse(ticket);
+        if (!TicketStatus.WAITING.equals(ticket.getStatus())) {
+            return toResponse(ticket);
+        }
+
+        // Posición derivada de la cabeza de la cola (no se reescribe en cada despacho)
+        int posicion = queueManagementService.calcularPosicionActual(ticket);
+        return toResponse(ticket, posicion,
+            waitTimeEstimator.estimarEsperaMinutos(ticket.getQueueType(), posicion));
     }
 
     /**
-     * Obtiene posición actual en cola de un ticket
+     * Obtiene posición actual en cola de un ticket del día.
+     * La cola se deduce del prefijo del número (C001 → CAJA).
      */
     @Transactional(readOnly = true)
     public QueuePositionResponse obtenerPosicionEnCola(String numero) {
         log.info("Consultando posición de ticket: {}", numero);
         
-        Ticket ticket = ticketRepository.findByNumero(numero)
-            .orElseThrow(() -> new RuntimeException("Ticket not found: " + numero));
+        QueueType queueType = QueueType.fromNumero(numero)
+            .orElseThrow(() -> new TicketNotFoundException(numero));
+
+        int avgServiceTime = waitTimeEstimator.tiempoServicioMinutos(queueType);
+
+        // Ticket en espera: todo desde la cola viva en O(log n), sin BD
+        Optional<ActiveTicketResponse> enCola = liveQueueIndex.isCargado()
+            ? liveQueueIndex.buscar(queueType, numero.toUpperCase(), LocalDate.now())
+            : Optional.empty();
+        if (enCola.isPresent() && enCola.get().status() == TicketStatus.WAITING) {
+            ActiveTicketResponse t = enCola.get();
+            int adelante = t.positionInQueue() - 1;
+            return new QueuePositionResponse(
+                t.numero(),
+                queueType,
+                t.positionInQueue(),
+                adelante,
+                waitTimeEstimator.estimarEsperaMinutos(queueType, t.positionInQueue()),
+                avgServiceTime,
+                liveQueueIndex.numerosAdelante(queueType, t.queueSeq(), maxNumerosAdelante)
+            );
+        }
+
+        // Ticket que ya salió de la cola (o índice aún no cargado): BD
+        Ticket ticket = ticketRepository
+            .findByQueueTypeAndNumeroAndServiceDate(queueType, numero.toUpperCase(), LocalDate.now())
+            .orElseThrow(() -> new TicketNotFoundException(numero));
         
-        // Obtener tickets adelante
-        List<Ticket> ticketsAdelante = ticketRepository.findByQueueAndStatus(
-            ticket.getQueueType(),
-            TicketStatus.WAITING
-        ).stream()
-        .filter(t -> t.getPositionInQueue() < ticket.getPositionInQueue())
-        .collect(Collectors.toList());
+        int posicion = queueManagementService.calcularPosicionActual(ticket);
+        List<String> ticketsAdelante = obtenerNumerosAdelante(ticket);
         
         return new QueuePositionResponse(
             ticket.getNumero(),
             ticket.getQueueType(),
-            ticket.getPositionInQueue(),
-            ticketsAdelante.size(),
-            ticket.getEstimatedWaitMinutes(),
-            queueManagementService.obtenerConfiguracion(ticket.getQueueType())
-                .getAvgServiceTimeMinutes(),
-            ticketsAdelante.stream()
-                .map(Ticket::getNumero)
-                .collect(Collectors.toList())
+            posicion,
+            posicion - 1,
+            waitTimeEstimator.estimarEsperaMinutos(queueType, posicion),
+            avgServiceTime,
+            ticketsAdelante
         );
     }
 
     /**
-     * Convierte Ticket a TicketResponse
+     * Primeros números en espera delante del ticket (máximo maxNumerosAdelante),
+     * con LIMIT sobre el índice parcial de queue_seq.
+     */
+    private List<String> obtenerNumerosAdelante(Ticket ticket) {
+        if (ticket.getQueueSeq() == null || !TicketStatus.WAITING.equals(ticket.getStatus())) {
+            return List.of();
+        }
+        return ticketRepository.findNumerosAdelante(
+            ticket.getQueueType(), ticket.getQueueSeq(), PageRequest.of(0, maxNumerosAdelante));
+    }
+
+    /**
+     * Convierte Ticket a TicketResponse con la posición y espera guardadas
      */
     private TicketResponse toResponse(Ticket ticket) {
+        return toResponse(ticket, ticket.getPositionInQueue(), ticket.getEstimatedWaitMinutes());
+    }
+
+    /**
+     * Convierte Ticket a TicketResponse con la posición y espera indicadas
+     */
+    private TicketResponse toResponse(Ticket ticket, Integer posicion, Integer tiempoEstimado) {
         TicketResponse.AdvisorInfo advisorInfo = null;
         
         if (ticket.getAssignedAdvisor() != null) {
@@ -216,8 +373,8 @@ public class TicketService {
         }
         
         int ticketsAheadOfYou = 0;
-        if (ticket.getPositionInQueue() != null) {
-            ticketsAheadOfYou = ticket.getPositionInQueue() - 1;
+        if (posicion != null) {
+            ticketsAheadOfYou = posicion - 1;
         }
         
         return new TicketResponse(
@@ -225,8 +382,8 @@ public class TicketService {
             ticket.getNumero(),
             ticket.getQueueType(),
             ticket.getStatus(),
-            ticket.getPositionInQueue(),
-            ticket.getEstimatedWaitMinutes(),
+            posicion,
+            tiempoEstimado,
             ticketsAheadOfYou,
             ticket.getBranchOffice(),
             advisorInfo,
@@ -238,11 +395,10 @@ public class TicketService {
     }
 
     /**
-     * Obtiene todos los tickets de una cola
+     * Obtiene los tickets activos de una cola (desde la cola viva)
      */
-    @Transactional(readOnly = true)
-    public List<Ticket> obtenerTicketsPorCola(QueueType queueType) {
-        return ticketRepository.findActiveByQueue(queueType);
+    public List<ActiveTicketResponse> obtenerTicketsPorCola(QueueType queueType) {
+        return liveQueueIndex.activos(queueType);
     }
 
     /**
@@ -0,0 +1,245 @@
+package com.example.ticketero.service;
+
+import com.example.ticketero.model.dto.QueueConfigSnapshot;
+import com.example.ticketero.model.entity.Advisor;
+import com.example.ticketero.model.enums.AdvisorStatus;
+import com.example.ticketero.model.enums.QueueType;
+import com.example.ticketero.repository.AdvisorRepository;
+import com.example.ticketero.util.AfterCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Estimación de tiempo de espera por cola, mantenida en memoria.
+ *
+ * Por cola guarda:
+ * - Tiempo de atención como promedio móvil exponencial (EWMA) de las duraciones
+ *   observadas (startedAt → completedAt), actualizado en cada atención completada
+ * - Cantidad de asesores activos (AVAILABLE o BUSY) que atienden la cola
+ *
+ * Espera estimada = (posición - 1) × tiempo de atención / asesores activos.
+ *
+ * El EWMA parte de QueueConfig.avgServiceTimeMinutes y vuelve a partir de él
+ * cuando ese valor cambia (en cualquier instancia: se lee de QueueConfigCache).
+ * Las duraciones observadas se convierten a minutos reales con
+ * app.atencion.segundos-por-minuto, la misma escala con que TicketProcessingService
+ * simula la atención. Los cambios se aplican después del commit; los asesores se
+ * releen periódicamente de la BD para incorporar cambios hechos por otras instancias.
+ * Ninguna estimación ejecuta consultas de agregación.
+ */
+@Service
+@Slf4j
+public class WaitTimeEstimator {
+
+    /**
+     * Tiempo de atención si la cola no tiene configuración.
+     */
+    private static final int TIEMPO_SERVICIO_DEFECTO_MINUTOS = 5;
+
+    private final QueueConfigCache queueConfigCache;
+    private final AdvisorRepository advisorRepository;
+
+    /**
+     * Peso de la última atención en el EWMA (0 < alpha <= 1).
+     */
+    private final double alpha;
+
+    /**
+     * Segundos reales por minuto de atención configurado (60 = tiempo real).
+     */
+    private final int segundosPorMinuto;
+
+    /**
+     * Estado por cola. El mapa no cambia después del constructor.
+     */
+    private final Map<QueueType, ServicioCola> colas = new EnumMap<>(QueueType.class);
+
+    /**
+     * Colas atendidas por cada asesor activo. Protegido por el lock de esta instancia.
+     */
+    private final Map<Long, Set<QueueType>> asesoresActivos = new HashMap<>();
+
+    public WaitTimeEstimator(QueueConfigCache queueConfigCache,
+                             AdvisorRepository advisorRepository,
+                             @Value("${app.estimacion.ewma-alpha:0.2}") double alpha,
+                             @Value("${app.atencion.segundos-por-minuto:1}") int segundosPorMinuto) {
+        this.queueConfigCache = queueConfigCache;
+        this.advisorRepository = advisorRepository;
+        this.alpha = alpha;
+        this.segundosPorMinuto = Math.max(1, segundosPorMinuto);
+
+        for (QueueType queueType : QueueType.values()) {
+            colas.put(queueType, new ServicioCola());
+        }
+    }
+
+    /**
+     * Inicializa el tiempo de atención desde QueueConfig y los asesores activos.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        for (QueueType queueType : QueueType.values()) {
+            segundosServicio(queueType);
+        }
+        recargarAsesores();
+        log.info("Estimador de espera cargado: {} asesores activos", asesoresActivos.size());
+    }
+
+    /**
+     * Relee los asesores (tabla pequeña) para corregir cambios de otras instancias.
+     */
+    @Scheduled(fixedDelayString = "${app.estimacion.refresco-asesores-ms:60000}",
+               initialDelayString = "${app.estimacion.refresco-asesores-ms:60000}")
+    public void recargarAsesores() {
+        List<Advisor> asesores = advisorRepository.findAll();
+
+        synchronized (this) {
+            asesoresActivos.clear();
+            colas.values().forEach(c -> c.asesores.set(0));
+            for (Advisor asesor : asesores) {
+                aplicarEstadoAsesor(asesor.getId(), asesor.getStatus(), copiar(asesor.getQueueTypes()));
+            }
+        }
+    }
+
+    // =========================================================================
+    // Lecturas
+    // =========================================================================
+
+    /**
+     * Espera estimada en minutos para un ticket en la posición dada.
+     * La posición 1 tiene espera 0 (es el siguiente).
+     */
+    public int estimarEsperaMinutos(QueueType queueType, int posicion) {
+        if (posicion <= 1) {
+            return 0;
+        }
+        double segundos = (posicion - 1) * segundosServicio(queueType)
+            / Math.max(1, contarAsesoresActivos(queueType));
+        return (int) Math.round(segundos / 60.0);
+    }
+
+    /**
+     * Tiempo de atención estimado de la cola, en minutos (mínimo 1).
+     */
+    public int tiempoServicioMinutos(QueueType queueType) {
+        return (int) Math.max(1, Math.round(segundosServicio(queueType) / 60.0));
+    }
+
+    /**
+     * Asesores AVAILABLE o BUSY que atienden la cola.
+     */
+    public int contarAsesoresActivos(QueueType queueType) {
+        return colas.get(queueType).asesores.get();
+    }
+
+    // =========================================================================
+    // Escrituras (se aplican después del commit)
+    // =========================================================================
+
+    /**
+     * Incorpora la duración de una atención completada al EWMA de su cola,
+     * llevada a la escala de QueueConfig (segundos por minuto configurado).
+     */
+    public void registrarAtencion(QueueType queueType, LocalDateTime inicio, LocalDateTime fin) {
+        if (inicio == null || fin == null || fin.isBefore(inicio)) {
+            return;
+        }
+        double segundos = Duration.between(inicio, fin).toMillis() / 1000.0 * 60.0 / segundosPorMinuto;
+        AfterCommit.run(() -> colas.get(queueType).observar(segundos, alpha));
+    }
+
+    /**
+     * Actualiza el conteo de asesores activos tras un cambio de estado.
+     */
+    public void registrarEstadoAsesor(Advisor asesor) {
+        Long id = asesor.getId();
+        AdvisorStatus status = asesor.getStatus();
+        Set<QueueType> queueTypes = copiar(asesor.getQueueTypes());
+
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                aplicarEstadoAsesor(id, status, queueTypes);
+            }
+        });
+    }
+
+    // =========================================================================
+    // Internos
+    // =========================================================================
+
+    private void aplicarEstadoAsesor(Long id, AdvisorStatus status, Set<QueueType> queueTypes) {
+        Set<QueueType> anteriores = asesoresActivos.remove(id);
+        if (anteriores != null) {
+            anteriores.forEach(q -> colas.get(q).asesores.decrementAndGet());
+        }
+
+        if (status == AdvisorStatus.AVAILABLE || status == AdvisorStatus.BUSY) {
+            asesoresActivos.put(id, queueTypes);
+            queueTypes.forEach(q -> colas.get(q).asesores.incrementAndGet());
+        }
+    }
+
+    private static Set<QueueType> copiar(Set<QueueType> queueTypes) {
+        Set<QueueType> copia = EnumSet.noneOf(QueueType.class);
+        copia.addAll(queueTypes);
+        return copia;
+    }
+
+    /**
+     * Tiempo de atención en segundos. Sin atenciones observadas desde el último
+     * cambio de avgServiceTimeMinutes, el de QueueConfig.
+     */
+    private double segundosServicio(QueueType queueType) {
+        ServicioCola cola = colas.get(queueType);
+        int minutos = queueConfigCache.buscar(queueType)
+            .map(QueueConfigSnapshot::avgServiceTimeMinutes)
+            .orElse(TIEMPO_SERVICIO_DEFECTO_MINUTOS);
+        if (cola.minutosConfigurados != minutos) {
+            cola.sembrar(minutos);
+        }
+        return cola.segundosServicio;
+    }
+
+    /**
+     * Tiempo de atención y asesores de una cola.
+     */
+    private static final class ServicioCola {
+
+        private volatile double segundosServicio = Double.NaN;
+
+        /**
+         * avgServiceTimeMinutes con que se sembró el EWMA (-1 = sin sembrar).
+         */
+        private volatile int minutosConfigurados = -1;
+
+        private final AtomicInteger asesores = new AtomicInteger();
+
+        synchronized void sembrar(int minutos) {
+            if (minutosConfigurados != minutos) {
+                minutosConfigurados = minutos;
+                segundosServicio = minutos * 60.0;
+            }
+        }
+
+        synchronized void observar(double segundos, double alpha) {
+            segundosServicio = Double.isNaN(segundosServicio)
+                ? segundos
+                : alpha * segundos + (1 - alpha) * segundosServicio;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.ticketero.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Runs an action once the current transaction commits.
+ *
+ * <p>Used to apply in-memory state (indexes, estimators, schedulers) only after
+ * the database change it mirrors is durable; on rollback the action is dropped.
+ * Without an active transaction the action runs immediately.</p>
+ *
+ * <p>Usage example:</p>
+ * <pre>
+ * AfterCommit.run(() -&gt; index.remove(ticketId));
+ * </pre>
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Runs the action after commit (or now if no transaction is active).
+     *
+     * @param action the action to run
+     */
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.ticketero.util;
+
+/**
+ * Fenwick tree (binary indexed tree) over a fixed range of int counters.
+ * Point updates and prefix sums in O(log n).
+ *
+ * <p>Not thread-safe: callers guard access with their own lock.</p>
+ *
+ * <p>Usage example:</p>
+ * <pre>
+ * FenwickTree tree = new FenwickTree(1024);
+ * tree.add(10, 1);
+ * int before = tree.prefixSum(9); // counters in [0, 9]
+ * </pre>
+ */
+public final class FenwickTree {
+
+    private final int[] tree;
+
+    /**
+     * @param size number of counters (valid indexes are [0, size - 1])
+     */
+    public FenwickTree(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+        this.tree = new int[size + 1];
+    }
+
+    /**
+     * @return number of counters
+     */
+    public int size() {
+        return tree.length - 1;
+    }
+
+    /**
+     * Adds {@code delta} to the counter at {@code index}.
+     */
+    public void add(int index, int delta) {
+        checkIndex(index);
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Sum of counters in [0, index]. Returns 0 for a negative index.
+     */
+    public int prefixSum(int index) {
+        if (index < 0) {
+            return 0;
+        }
+        int sum = 0;
+        for (int i = Math.min(index, size() - 1) + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("index " + index + " out of [0, " + size() + ")");
+        }
+    }
+}
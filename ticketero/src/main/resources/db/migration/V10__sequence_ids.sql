@@ -0,0 +1,18 @@
+-- ============================================================================
+-- V10: IDs por secuencia con incremento 50 (habilita batching JDBC de inserts)
+-- ============================================================================
+-- Con GenerationType.IDENTITY Hibernate necesita el ID de cada fila al
+-- insertarla, por lo que ejecuta un INSERT por entidad e ignora
+-- hibernate.jdbc.batch_size. Con secuencias + optimizador pooled-lo:
+-- - Un nextval reserva 50 IDs (el valor retornado es el menor del bloque)
+-- - Los INSERT se acumulan y se envían en lotes de batch_size
+-- - El DEFAULT nextval(...) de cada columna sigue funcionando para inserts
+--   manuales: cada nextval es el inicio de un bloque distinto, sin colisiones
+-- ============================================================================
+
+ALTER SEQUENCE ticket_id_seq INCREMENT BY 50;
+ALTER SEQUENCE ticket_event_id_seq INCREMENT BY 50;
+ALTER SEQUENCE outbox_message_id_seq INCREMENT BY 50;
+ALTER SEQUENCE recovery_event_id_seq INCREMENT BY 50;
+ALTER SEQUENCE advisor_id_seq INCREMENT BY 50;
+ALTER SEQUENCE notification_intent_id_seq INCREMENT BY 50;
@@ -0,0 +1,59 @@
+-- ============================================================================
+-- V11: Posiciones derivadas de secuencia de encolado y puntero de cabeza
+-- ============================================================================
+-- Antes, cada atención reescribía position_in_queue de TODOS los tickets en
+-- espera (O(n) escrituras por cliente atendido). Ahora:
+-- - ticket.queue_seq: número de encolado, monotónico por cola (nunca cambia)
+-- - queue_state.tail_seq: último queue_seq asignado
+-- - queue_state.head_seq: tickets que ya salieron de la cola
+-- - Posición actual = queue_seq - head_seq (lectura aritmética)
+-- - Atender un ticket = head_seq + 1 (una sola escritura)
+-- - En espera = tail_seq - head_seq (reemplaza waiting_count)
+-- ============================================================================
+
+-- 1. Secuencia de encolado por ticket
+ALTER TABLE ticket
+    ADD COLUMN queue_seq BIGINT;
+
+-- Backfill: tickets que ya salieron de la cola primero, luego los WAITING en
+-- su orden actual, para que queue_seq - head_seq reproduzca la posición vigente
+WITH ordenados AS (
+    SELECT id,
+           ROW_NUMBER() OVER (
+               PARTITION BY queue_type
+               ORDER BY CASE WHEN status = 'WAITING' THEN 1 ELSE 0 END,
+                        CASE WHEN status = 'WAITING' THEN position_in_queue END,
+                        created_at,
+                        id
+           ) AS seq
+    FROM ticket
+)
+UPDATE ticket t
+SET queue_seq = o.seq
+FROM ordenados o
+WHERE t.id = o.id;
+
+-- 2. Punteros por cola
+ALTER TABLE queue_state
+    ADD COLUMN tail_seq BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN head_seq BIGINT NOT NULL DEFAULT 0;
+
+UPDATE queue_state qs
+SET tail_seq = COALESCE((SELECT MAX(t.queue_seq) FROM ticket t WHERE t.queue_type = qs.queue_type), 0),
+    head_seq = COALESCE((SELECT MAX(t.queue_seq) FROM ticket t WHERE t.queue_type = qs.queue_type), 0)
+             - (SELECT COUNT(*) FROM ticket t WHERE t.queue_type = qs.queue_type AND t.status = 'WAITING');
+
+ALTER TABLE queue_state
+    DROP CONSTRAINT chk_queue_state_waiting,
+    DROP COLUMN waiting_count,
+    ADD CONSTRAINT chk_queue_state_seq CHECK (head_seq >= 0 AND head_seq <= tail_seq);
+
+-- 3. Tickets en espera por orden de encolado (tickets adelante, siguiente ticket)
+CREATE INDEX idx_ticket_queue_seq_waiting
+    ON ticket(queue_type, queue_seq)
+    WHERE status = 'WAITING';
+
+COMMENT ON COLUMN ticket.queue_seq IS 'Orden de encolado en su cola. Posición actual = queue_seq - queue_state.head_seq';
+COMMENT ON COLUMN ticket.position_in_queue IS 'Posición al momento de encolar (la posición vigente se deriva de queue_seq)';
+COMMENT ON COLUMN queue_state.tail_seq IS 'Último queue_seq asignado en la cola';
+COMMENT ON COLUMN queue_state.head_seq IS 'Tickets que ya salieron de la cola (llamados)';
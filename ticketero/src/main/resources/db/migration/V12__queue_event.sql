@@ -0,0 +1,31 @@
+-- ============================================================================
+-- V12: Eventos de avance de cola (reemplazan POSITION_UPDATED por ticket)
+-- ============================================================================
+-- Antes, cada atención insertaba un ticket_event POSITION_UPDATED por cada
+-- ticket que cambiaba de posición (200 en espera = 200 inserts por atención).
+-- Ahora se inserta UNA fila por avance de la cabeza de la cola:
+-- - QUEUE_ADVANCED(queue_type, head_seq, created_at)
+-- - Posición de un ticket en el instante t = queue_seq - head_seq vigente en t
+-- - ticket_event queda solo para el ciclo de vida propio del ticket
+--   (CREATED, CALLED, STARTED, COMPLETED, ...)
+-- ============================================================================
+
+CREATE TABLE queue_event (
+    id BIGSERIAL PRIMARY KEY,
+    queue_type VARCHAR(50) NOT NULL,
+    event_type VARCHAR(30) NOT NULL DEFAULT 'QUEUE_ADVANCED',
+    head_seq BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT chk_queue_event_type CHECK (event_type IN ('QUEUE_ADVANCED'))
+);
+
+-- Mismo esquema de IDs que el resto de entidades (pooled-lo, ver V10)
+ALTER SEQUENCE queue_event_id_seq INCREMENT BY 50;
+
+-- Reconstrucción del historial de un ticket: avances de su cola en su ventana de espera
+CREATE INDEX idx_queue_event_queue_created
+    ON queue_event(queue_type, created_at);
+
+COMMENT ON TABLE queue_event IS 'Avances de la cabeza de cada cola (historial de posiciones derivable)';
+COMMENT ON COLUMN queue_event.head_seq IS 'queue_state.head_seq después del avance';
@@ -0,0 +1,33 @@
+-- ============================================================================
+-- V13: Colas del asesor como máscara de bits (reemplaza queue_types JSON)
+-- ============================================================================
+-- Antes, la búsqueda de asesor disponible filtraba con
+--   queue_types LIKE '%CAJA%'
+-- que no puede usar índices (seq scan + locks en cada despacho) y la entidad
+-- parseaba el JSON con un ObjectMapper nuevo en cada getQueueTypes().
+-- Ahora:
+-- - queue_mask: un bit por QueueType (CAJA=1, PERSONAL=2, EMPRESAS=4, GERENCIA=8)
+-- - Filtro: (queue_mask & :bit) <> 0
+-- - Índice parcial de asesores AVAILABLE ordenado por total_tickets_served:
+--   el predicado de estado es literal en las consultas, así que el índice
+--   aplica también con planes genéricos; la máscara se evalúa sobre esas filas
+-- ============================================================================
+
+ALTER TABLE advisor ADD COLUMN queue_mask INTEGER NOT NULL DEFAULT 0;
+
+UPDATE advisor SET queue_mask =
+      (CASE WHEN queue_types::jsonb @> '["CAJA"]'     THEN 1 ELSE 0 END)
+    | (CASE WHEN queue_types::jsonb @> '["PERSONAL"]' THEN 2 ELSE 0 END)
+    | (CASE WHEN queue_types::jsonb @> '["EMPRESAS"]' THEN 4 ELSE 0 END)
+    | (CASE WHEN queue_types::jsonb @> '["GERENCIA"]' THEN 8 ELSE 0 END);
+
+ALTER TABLE advisor ALTER COLUMN queue_mask DROP DEFAULT;
+ALTER TABLE advisor ADD CONSTRAINT chk_advisor_queue_mask CHECK (queue_mask BETWEEN 0 AND 15);
+
+ALTER TABLE advisor DROP COLUMN queue_types;
+
+CREATE INDEX idx_advisor_available
+    ON advisor(total_tickets_served)
+    WHERE status = 'AVAILABLE';
+
+COMMENT ON COLUMN advisor.queue_mask IS 'Colas que atiende el asesor: bit por QueueType (CAJA=1, PERSONAL=2, EMPRESAS=4, GERENCIA=8)';
@@ -0,0 +1,16 @@
+-- ============================================================================
+-- V14: Vencimiento de la atención persistido en el ticket
+-- ============================================================================
+-- La atención ya no se simula con Thread.sleep en el thread del listener:
+-- al iniciar (CALLED → IN_PROGRESS) se guarda service_due_at y CompletionScheduler
+-- programa el completado. Al arrancar, los IN_PROGRESS pendientes se recargan
+-- desde este índice parcial.
+-- ============================================================================
+
+ALTER TABLE ticket ADD COLUMN service_due_at TIMESTAMP;
+
+CREATE INDEX idx_ticket_service_due
+    ON ticket(service_due_at)
+    WHERE status = 'IN_PROGRESS';
+
+COMMENT ON COLUMN ticket.service_due_at IS 'Instante en que se completa la atención en curso (IN_PROGRESS)';
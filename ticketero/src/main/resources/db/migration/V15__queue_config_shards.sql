@@ -0,0 +1,15 @@
+-- ============================================================================
+-- V15: Sub-colas RabbitMQ por tipo de cola
+-- ============================================================================
+-- La topología de RabbitMQ (colas, bindings, reintentos y listeners) se genera
+-- desde queue_config al arrancar. Con shards > 1 el tipo de cola se reparte en
+-- N colas de RabbitMQ ({cola}, {cola}.1 ... {cola}.N-1) según la sucursal, para
+-- que una cola con mucho tráfico use más consumidores y más cores del broker.
+-- Los cambios se aplican al reiniciar la aplicación.
+-- ============================================================================
+
+ALTER TABLE queue_config ADD COLUMN shards INTEGER NOT NULL DEFAULT 1;
+
+ALTER TABLE queue_config ADD CONSTRAINT chk_queue_config_shards CHECK (shards >= 1);
+
+COMMENT ON COLUMN queue_config.shards IS 'Sub-colas RabbitMQ del tipo de cola (se lee al arrancar)';
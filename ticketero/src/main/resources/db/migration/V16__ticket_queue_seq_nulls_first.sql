@@ -0,0 +1,15 @@
+-- ============================================================================
+-- V16: Despacho pull por orden de encolado
+-- ============================================================================
+-- El despacho pull toma el ticket al frente de la cola por queue_seq (el mismo
+-- orden de las posiciones), con los tickets sin queue_seq primero. El índice
+-- se recrea con NULLS FIRST para que ese ORDER BY ... LIMIT 1 lo recorra en
+-- orden sin ordenar la cola completa. Las consultas por rango de queue_seq
+-- (próximo turno, tickets adelante) lo siguen usando igual.
+-- ============================================================================
+
+DROP INDEX IF EXISTS idx_ticket_queue_seq_waiting;
+
+CREATE INDEX idx_ticket_queue_seq_waiting
+    ON ticket(queue_type, queue_seq NULLS FIRST)
+    WHERE status = 'WAITING';
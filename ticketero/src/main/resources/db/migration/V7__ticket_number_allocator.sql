@@ -0,0 +1,76 @@
+-- ============================================================================
+-- V7: Asignador de números de ticket por cola y por día
+-- ============================================================================
+-- Reemplaza la generación aleatoria (Math.random) que producía colisiones.
+-- - service_date: día de atención del ticket (la numeración reinicia cada día)
+-- - Una secuencia por cola entrega el "hi" de bloques hi/lo; cada instancia
+--   reparte los números del bloque en memoria sin ir a la base de datos
+-- - ticket_number_day: marca el día vigente de cada secuencia, para que solo
+--   una instancia la reinicie al cambiar de día
+-- - Índice único (queue_type, numero, service_date): búsqueda por número en
+--   un solo acceso indexado y garantía de no duplicados
+-- ============================================================================
+
+-- 1. Día de atención del ticket
+ALTER TABLE ticket
+    ADD COLUMN service_date DATE;
+
+UPDATE ticket SET service_date = CAST(created_at AS DATE) WHERE service_date IS NULL;
+
+ALTER TABLE ticket
+    ALTER COLUMN service_date SET NOT NULL,
+    ALTER COLUMN service_date SET DEFAULT CURRENT_DATE;
+
+-- 2. Alinear largo de numero con la entidad (C999 → C1000 en días de alta demanda)
+ALTER TABLE ticket
+    ALTER COLUMN numero TYPE VARCHAR(10);
+
+-- 3. Renumerar tickets históricos: los números aleatorios pueden estar
+--    duplicados y el índice único no podría crearse
+UPDATE ticket t
+SET numero = LEFT(t.queue_type, 1) || LPAD(CAST(r.rn AS VARCHAR), 3, '0')
+FROM (
+    SELECT id,
+           ROW_NUMBER() OVER (PARTITION BY queue_type, service_date ORDER BY created_at, id) AS rn
+    FROM ticket
+) r
+WHERE t.id = r.id;
+
+CREATE UNIQUE INDEX uq_ticket_queue_numero_dia
+    ON ticket(queue_type, numero, service_date);
+
+-- 4. Secuencias "hi" por cola (el "lo" lo reparte la aplicación)
+CREATE SEQUENCE ticket_number_caja_seq START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE ticket_number_personal_seq START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE ticket_number_empresas_seq START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE ticket_number_gerencia_seq START WITH 1 INCREMENT BY 1;
+
+-- 5. Día vigente de cada secuencia
+CREATE TABLE ticket_number_day (
+    queue_type VARCHAR(50) PRIMARY KEY,
+    service_date DATE NOT NULL
+);
+
+INSERT INTO ticket_number_day (queue_type, service_date) VALUES
+('CAJA', CURRENT_DATE),
+('PERSONAL', CURRENT_DATE),
+('EMPRESAS', CURRENT_DATE),
+('GERENCIA', CURRENT_DATE);
+
+-- Los números de hoy ya usados por la renumeración no deben reasignarse:
+-- cada secuencia parte después del último bloque ocupado hoy
+SELECT setval('ticket_number_caja_seq',
+    GREATEST(1, (SELECT COUNT(*) FROM ticket WHERE queue_type = 'CAJA' AND service_date = CURRENT_DATE)),
+    (SELECT COUNT(*) > 0 FROM ticket WHERE queue_type = 'CAJA' AND service_date = CURRENT_DATE));
+SELECT setval('ticket_number_personal_seq',
+    GREATEST(1, (SELECT COUNT(*) FROM ticket WHERE queue_type = 'PERSONAL' AND service_date = CURRENT_DATE)),
+    (SELECT COUNT(*) > 0 FROM ticket WHERE queue_type = 'PERSONAL' AND service_date = CURRENT_DATE));
+SELECT setval('ticket_number_empresas_seq',
+    GREATEST(1, (SELECT COUNT(*) FROM ticket WHERE queue_type = 'EMPRESAS' AND service_date = CURRENT_DATE)),
+    (SELECT COUNT(*) > 0 FROM ticket WHERE queue_type = 'EMPRESAS' AND service_date = CURRENT_DATE));
+SELECT setval('ticket_number_gerencia_seq',
+    GREATEST(1, (SELECT COUNT(*) FROM ticket WHERE queue_type = 'GERENCIA' AND service_date = CURRENT_DATE)),
+    (SELECT COUNT(*) > 0 FROM ticket WHERE queue_type = 'GERENCIA' AND service_date = CURRENT_DATE));
+
+COMMENT ON COLUMN ticket.service_date IS 'Día de atención. La numeración por cola reinicia cada día';
+COMMENT ON TABLE ticket_number_day IS 'Día vigente de cada secuencia ticket_number_*_seq (reinicio diario coordinado)';
@@ -0,0 +1,24 @@
+-- ============================================================================
+-- V8: Estado por cola para asignar posiciones en O(1)
+-- ============================================================================
+-- Reemplaza el COUNT(*) de tickets WAITING que se ejecutaba en cada creación.
+-- - waiting_count: tickets en espera de la cola
+-- - Crear ticket: UPDATE ... SET waiting_count = waiting_count + 1 RETURNING
+--   (el lock de la fila serializa a los kioscos: no hay posiciones repetidas)
+-- - Llamar ticket: waiting_count - 1
+-- ============================================================================
+
+CREATE TABLE queue_state (
+    queue_type VARCHAR(50) PRIMARY KEY,
+    waiting_count INTEGER NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT chk_queue_state_waiting CHECK (waiting_count >= 0)
+);
+
+-- Inicializar con los tickets que hoy están en espera
+INSERT INTO queue_state (queue_type, waiting_count)
+SELECT q.queue_type,
+       (SELECT COUNT(*) FROM ticket t WHERE t.queue_type = q.queue_type AND t.status = 'WAITING')
+FROM (VALUES ('CAJA'), ('PERSONAL'), ('EMPRESAS'), ('GERENCIA')) AS q(queue_type);
+
+COMMENT ON TABLE queue_state IS 'Contador de tickets en espera por cola (asignación atómica de posición)';
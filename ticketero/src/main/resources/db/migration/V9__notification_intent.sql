@@ -0,0 +1,51 @@
+-- ============================================================================
+-- V9: Intenciones de notificación (entrega asíncrona a Telegram)
+-- ============================================================================
+-- Las notificaciones ya no se envían dentro de la TX de negocio:
+-- - Se guarda una intención en la misma TX que el ticket (durable)
+-- - NotificationDispatcher las reclama (FOR UPDATE SKIP LOCKED) y las entrega
+--   con un executor propio y acotado, con reintentos y backoff exponencial
+-- - La latencia de Telegram ya no retiene conexiones de Hikari
+-- ============================================================================
+
+CREATE TABLE notification_intent (
+    id BIGSERIAL PRIMARY KEY,
+
+    ticket_id BIGINT REFERENCES ticket(id) ON DELETE CASCADE,
+    notification_type VARCHAR(30) NOT NULL,   -- TICKET_CREADO, PROXIMO_TURNO, ...
+
+    -- Mensaje ya renderizado al momento del evento
+    telefono VARCHAR(20) NOT NULL,
+    mensaje TEXT NOT NULL,
+
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    claimed_at TIMESTAMP,                     -- Inicio de la entrega (PROCESSING)
+    processed_at TIMESTAMP,
+
+    retry_count INTEGER NOT NULL DEFAULT 0,
+    max_retries INTEGER NOT NULL DEFAULT 5,
+    next_retry_at TIMESTAMP,
+    error_message TEXT,
+
+    CONSTRAINT chk_notification_status CHECK (status IN ('PENDING', 'PROCESSING', 'SENT', 'FAILED'))
+);
+
+-- Reclamo de pendientes (parcial: solo PENDING)
+CREATE INDEX idx_notification_pending
+    ON notification_intent(created_at)
+    WHERE status = 'PENDING';
+
+-- Recuperación de entregas abandonadas (instancia caída durante PROCESSING)
+CREATE INDEX idx_notification_processing
+    ON notification_intent(claimed_at)
+    WHERE status = 'PROCESSING';
+
+-- Limpieza de enviadas antiguas
+CREATE INDEX idx_notification_processed
+    ON notification_intent(processed_at)
+    WHERE status = 'SENT';
+
+COMMENT ON TABLE notification_intent IS 'Notificaciones por entregar - se escriben en la TX de negocio y se envían de forma asíncrona';
+COMMENT ON COLUMN notification_intent.status IS 'PENDING=por enviar, PROCESSING=enviando, SENT=enviada, FAILED=reintentos agotados';
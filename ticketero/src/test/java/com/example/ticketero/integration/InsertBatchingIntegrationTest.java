@@ -0,0 +1,123 @@
+package com.example.ticketero.integration;
+
+import com.example.ticketero.model.entity.Ticket;
+import com.example.ticketero.model.entity.TicketEvent;
+import com.example.ticketero.model.enums.EventType;
+import com.example.ticketero.model.enums.QueueType;
+import com.example.ticketero.repository.TicketEventRepository;
+import com.example.ticketero.repository.TicketRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.RabbitMQContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica que los IDs por secuencia (pooled-lo, allocationSize=50)
+ * permiten a Hibernate agrupar los INSERT en lotes de hibernate.jdbc.batch_size.
+ *
+ * Con IDENTITY cada entidad genera su propio INSERT (N statements);
+ * con secuencias se preparan ~N / batch_size statements.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Testcontainers
+@ActiveProfiles("test")
+class InsertBatchingIntegrationTest {
+
+    private static final int EVENTOS = 40;
+    private static final int BATCH_SIZE = 20;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("ticketero_test")
+            .withUsername("test")
+            .withPassword("test");
+
+    @Container
+    static RabbitMQContainer rabbitmq = new RabbitMQContainer("rabbitmq:3.13-alpine")
+            .withExposedPorts(5672);
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+
+        registry.add("spring.rabbitmq.host", rabbitmq::getHost);
+        registry.add("spring.rabbitmq.port", rabbitmq::getAmqpPort);
+        registry.add("spring.rabbitmq.username", () -> "guest");
+        registry.add("spring.rabbitmq.password", () -> "guest");
+    }
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private TicketEventRepository ticketEventRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void insertsDeEventosDebenEnviarseEnLotes() {
+        // Given: ticket existente (fuera de la medición)
+        Ticket ticket = transactionTemplate.execute(status -> ticketRepository.saveAndFlush(
+            Ticket.builder()
+                .codigoReferencia(UUID.randomUUID())
+                .numero("Z001")
+                .nationalId("12345678")
+                .branchOffice("Sucursal Centro")
+                .queueType(QueueType.CAJA)
+                .positionInQueue(1)
+                .build()
+        ));
+
+        statistics.clear();
+
+        // When: 40 eventos en una TX
+        transactionTemplate.executeWithoutResult(status -> {
+            Ticket managed = ticketRepository.getReferenceById(ticket.getId());
+            List<TicketEvent> eventos = new ArrayList<>();
+            for (int i = 1; i <= EVENTOS; i++) {
+                eventos.add(TicketEvent.builder()
+                    .ticket(managed)
+                    .eventType(EventType.POSITION_UPDATED)
+                    .oldPosition(i + 1)
+                    .newPosition(i)
+                    .build());
+            }
+            ticketEventRepository.saveAll(eventos);
+        });
+
+        // Then: 40 entidades insertadas con ~2 lotes + 1 nextval (bloque de 50 IDs)
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(EVENTOS);
+        assertThat(statistics.getPrepareStatementCount())
+            .isLessThanOrEqualTo(EVENTOS / BATCH_SIZE + 2);
+    }
+}
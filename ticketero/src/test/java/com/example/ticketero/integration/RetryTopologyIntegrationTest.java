@@ -0,0 +1,220 @@
+package com.example.ticketero.integration;
+
+import com.example.ticketero.config.QueueNaming;
+import com.example.ticketero.config.RabbitMQConfig;
+import com.example.ticketero.config.TicketQueueTopology;
+import com.example.ticketero.consumer.TicketWorker;
+import com.example.ticketero.consumer.WorkerCapacityController;
+import com.example.ticketero.exception.NoAdvisorAvailableException;
+import com.example.ticketero.model.dto.TicketQueueMessage;
+import com.example.ticketero.model.enums.QueueType;
+import com.example.ticketero.service.AdvisorPullDispatcher;
+import com.example.ticketero.service.TicketProcessingService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.GetResponse;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.RabbitMQContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifica la topología de reintentos de RabbitMQConfig contra un RabbitMQ real:
+ * un mensaje publicado en un tier de reintento vuelve a su cola de trabajo
+ * al expirar el TTL, y el parking lot lo retiene. También recorre los tiers
+ * con TicketWorker (reenvío con confirm y ACK) hasta el parking lot.
+ */
+@Testcontainers
+class RetryTopologyIntegrationTest {
+
+    private static final String EXCHANGE = "ticketero-retry-test";
+    private static final String COLA = "caja-queue";
+    private static final long[] DELAYS_MS = {300, 1000};
+    private static final int MAX_ATTEMPTS = 2;
+
+    @Container
+    static RabbitMQContainer rabbitmq = new RabbitMQContainer("rabbitmq:3.13-alpine")
+            .withExposedPorts(5672);
+
+    private static CachingConnectionFactory connectionFactory;
+    private static RabbitTemplate rabbitTemplate;
+    private static RabbitTemplate confirmTemplate;
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeAll
+    static void declararTopologia() {
+        connectionFactory = new CachingConnectionFactory(rabbitmq.getHost(), rabbitmq.getAmqpPort());
+        connectionFactory.setUsername("guest");
+        connectionFactory.setPassword("guest");
+        connectionFactory.setPublisherConfirmType(CachingConnectionFactory.ConfirmType.CORRELATED);
+        connectionFactory.setPublisherReturns(true);
+        rabbitTemplate = new RabbitTemplate(connectionFactory);
+
+        // Como outboxRabbitTemplate: JSON, confirms y mandatory
+        confirmTemplate = new RabbitTemplate(connectionFactory);
+        confirmTemplate.setMessageConverter(new Jackson2JsonMessageConverter());
+        confirmTemplate.setUsePublisherConnection(true);
+        confirmTemplate.setMandatory(true);
+
+        RabbitAdmin admin = new RabbitAdmin(connectionFactory);
+        DirectExchange exchange = new DirectExchange(EXCHANGE, true, false);
+        Queue trabajo = new Queue(COLA, true);
+        admin.declareExchange(exchange);
+        admin.declareQueue(trabajo);
+        admin.declareBinding(BindingBuilder.bind(trabajo).to(exchange).with(COLA));
+
+        RabbitMQConfig.topologiaReintentos(EXCHANGE, List.of(COLA), DELAYS_MS)
+            .getDeclarables()
+            .forEach(d -> {
+                if (d instanceof Queue q) {
+                    admin.declareQueue(q);
+                } else if (d instanceof Binding b) {
+                    admin.declareBinding(b);
+                }
+            });
+    }
+
+    @AfterAll
+    static void cerrar() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    @DisplayName("a message in a retry tier should return to its work queue when the TTL expires")
+    void mensajeEnTierDeReintentoVuelveALaColaAlExpirar() {
+        // Given
+        String reintento = QueueNaming.colaReintento(COLA, 0);
+
+        // When
+        long inicio = System.currentTimeMillis();
+        rabbitTemplate.convertAndSend(EXCHANGE, reintento, "ticket-1");
+
+        // Then: no está en la cola de trabajo antes del TTL, sí después
+        assertThat(rabbitTemplate.receive(COLA)).isNull();
+        Message devuelto = rabbitTemplate.receive(COLA, 5000);
+        assertThat(devuelto).isNotNull();
+        assertThat(new String(devuelto.getBody())).isEqualTo("ticket-1");
+        assertThat(System.currentTimeMillis() - inicio).isGreaterThanOrEqualTo(DELAYS_MS[0]);
+        assertThat(rabbitTemplate.receive(reintento)).isNull();
+    }
+
+    @Test
+    @DisplayName("the parking lot should hold the message instead of returning it")
+    void parkingLotRetieneElMensaje() {
+        // Given
+        String parkingLot = QueueNaming.colaParkingLot(COLA);
+
+        // When
+        rabbitTemplate.convertAndSend(EXCHANGE, parkingLot, "ticket-2");
+
+        // Then
+        assertThat(rabbitTemplate.receive(COLA, 1500)).isNull();
+        Message retenido = rabbitTemplate.receive(parkingLot, 2000);
+        assertThat(retenido).isNotNull();
+        assertThat(new String(retenido.getBody())).isEqualTo("ticket-2");
+    }
+
+    @Test
+    @DisplayName("a failing ticket should escalate through the tiers by error count and end in the parking lot")
+    void ticketConErroresRecorreLosTiersHastaElParkingLot() throws Exception {
+        // Given: la primera entrega no encuentra asesor; las siguientes fallan
+        TicketProcessingService procesamiento = mock(TicketProcessingService.class);
+        when(procesamiento.procesarTicketCompleto(7L, QueueType.CAJA))
+            .thenThrow(new NoAdvisorAvailableException("Sin asesores"))
+            .thenThrow(new IllegalStateException("Error de prueba"));
+        TicketWorker worker = worker(procesamiento);
+        confirmTemplate.convertAndSend(EXCHANGE, COLA, new TicketQueueMessage(7L, "C007", QueueType.CAJA, null));
+
+        try (Channel channel = connectionFactory.createConnection().createChannel(false)) {
+            // When / Then: sin asesor → tier 0 sin contar error
+            Entrega primera = entregar(worker, channel, 2000);
+            assertThat(primera.intentos()).isNull();
+
+            // Primer error → tier 0 (el reintento sin asesor no cuenta)
+            Entrega segunda = entregar(worker, channel, 5000);
+            assertThat(segunda.intentos()).isEqualTo(1);
+            assertThat(segunda.errores()).isZero();
+            assertThat(segunda.recibidaEn() - primera.procesadaEn()).isGreaterThanOrEqualTo(DELAYS_MS[0]);
+
+            // Segundo error → tier 1
+            Entrega tercera = entregar(worker, channel, 5000);
+            assertThat(tercera.intentos()).isEqualTo(2);
+            assertThat(tercera.errores()).isEqualTo(1);
+            assertThat(tercera.recibidaEn() - segunda.procesadaEn()).isGreaterThanOrEqualTo(DELAYS_MS[0]);
+
+            // Tercer error (> max-attempts) → parking lot
+            Entrega cuarta = entregar(worker, channel, 5000);
+            assertThat(cuarta.intentos()).isEqualTo(3);
+            assertThat(cuarta.errores()).isEqualTo(2);
+            assertThat(cuarta.recibidaEn() - tercera.procesadaEn()).isGreaterThanOrEqualTo(DELAYS_MS[1]);
+        }
+
+        // Then: todas las entregas recibieron ACK (nada vuelve al cerrar el canal)
+        // y el ticket quedó en el parking lot con sus contadores
+        assertThat(rabbitTemplate.receive(COLA, 1500)).isNull();
+        Message estacionado = rabbitTemplate.receive(QueueNaming.colaParkingLot(COLA), 2000);
+        assertThat(estacionado).isNotNull();
+        assertThat(objectMapper.readValue(estacionado.getBody(), TicketQueueMessage.class).ticketId()).isEqualTo(7L);
+        assertThat(estacionado.getMessageProperties().<Integer>getHeader("x-ticketero-intentos")).isEqualTo(4);
+        assertThat(estacionado.getMessageProperties().<Integer>getHeader("x-ticketero-errores")).isEqualTo(3);
+    }
+
+    private static TicketWorker worker(TicketProcessingService procesamiento) {
+        TicketWorker worker = new TicketWorker(procesamiento, confirmTemplate,
+            mock(WorkerCapacityController.class), mock(TicketQueueTopology.class),
+            mock(AdvisorPullDispatcher.class), null);
+        ReflectionTestUtils.setField(worker, "exchangeName", EXCHANGE);
+        ReflectionTestUtils.setField(worker, "retryDelaysMs", DELAYS_MS);
+        ReflectionTestUtils.setField(worker, "maxAttempts", MAX_ATTEMPTS);
+        ReflectionTestUtils.setField(worker, "confirmTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(worker, "batchSize", 1);
+        return worker;
+    }
+
+    /**
+     * Espera el siguiente mensaje en la cola de trabajo y lo entrega al worker
+     * como lo haría su listener (ACK manual por el mismo canal).
+     */
+    private static Entrega entregar(TicketWorker worker, Channel channel, long timeoutMs) throws Exception {
+        long limite = System.currentTimeMillis() + timeoutMs;
+        GetResponse respuesta = channel.basicGet(COLA, false);
+        while (respuesta == null && System.currentTimeMillis() < limite) {
+            Thread.sleep(20);
+            respuesta = channel.basicGet(COLA, false);
+        }
+        assertThat(respuesta).as("mensaje en %s", COLA).isNotNull();
+        long recibidaEn = System.currentTimeMillis();
+
+        Map<String, Object> headers = respuesta.getProps().getHeaders() != null
+            ? respuesta.getProps().getHeaders()
+            : Map.of();
+        Integer intentos = (Integer) headers.get("x-ticketero-intentos");
+        Integer errores = (Integer) headers.get("x-ticketero-errores");
+        TicketQueueMessage mensaje = objectMapper.readValue(respuesta.getBody(), TicketQueueMessage.class);
+
+        worker.procesarTicket(mensaje, channel, respuesta.getEnvelope().getDeliveryTag(), COLA, intentos, errores);
+        return new Entrega(intentos, errores, recibidaEn, System.currentTimeMillis());
+    }
+
+    private record Entrega(Integer intentos, Integer errores, long recibidaEn, long procesadaEn) {}
+}
@@ -0,0 +1,158 @@
+package com.example.ticketero.service;
+
+import com.example.ticketero.model.dto.ActiveTicketResponse;
+import com.example.ticketero.model.entity.Ticket;
+import com.example.ticketero.model.enums.QueueType;
+import com.example.ticketero.model.enums.TicketStatus;
+import com.example.ticketero.repository.TicketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for LiveQueueIndex.
+ * Verifies rank counts across window rebuilds, stale tickets, status transitions,
+ * capped reads and updates received while loading.
+ */
+@ExtendWith(MockitoExtension.class)
+class LiveQueueIndexTest {
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    private LiveQueueIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(ticketRepository.findActiveSnapshots()).thenReturn(List.of());
+        index = new LiveQueueIndex(ticketRepository);
+        index.cargar();
+    }
+
+    @Test
+    @DisplayName("contarAdelante should count only waiting tickets, also after the window moves")
+    void contarAdelante_shouldTrackEnqueueAndDispatch() {
+        // Given: 3000 tickets encolados (fuerza reconstrucciones de la ventana)
+        for (long seq = 1; seq <= 3000; seq++) {
+            index.registrarEncolado(ticket(QueueType.CAJA, seq, "C" + seq));
+        }
+
+        // When: se llaman los primeros 2500 y uno fuera de orden
+        for (long seq = 1; seq <= 2500; seq++) {
+            index.registrarLlamado(ticket(QueueType.CAJA, seq, "C" + seq));
+        }
+        index.registrarSalida(ticket(QueueType.CAJA, 2700, "C2700"));
+
+        // Then
+        assertThat(index.contarAdelante(QueueType.CAJA, 2501)).isZero();
+        assertThat(index.contarAdelante(QueueType.CAJA, 2800)).isEqualTo(298);
+        assertThat(index.contarLlamados(QueueType.CAJA)).isEqualTo(2500);
+        assertThat(index.contarEnEspera(QueueType.PERSONAL)).isZero();
+        assertThat(index.buscar(QueueType.CAJA, "C2800", LocalDate.now()))
+            .map(ActiveTicketResponse::positionInQueue)
+            .contains(299);
+    }
+
+    @Test
+    @DisplayName("reads should list the front of the queue up to the limit")
+    void lecturas_shouldBeOrderedAndCapped() {
+        // Given
+        for (long seq = 1; seq <= 50; seq++) {
+            index.registrarEncolado(ticket(QueueType.EMPRESAS, seq, "E" + seq));
+        }
+        index.registrarLlamado(ticket(QueueType.EMPRESAS, 1, "E1"));
+
+        // When
+        List<String> numeros = index.numerosAdelante(QueueType.EMPRESAS, 40, 3);
+        List<ActiveTicketResponse> activos = index.activos(QueueType.EMPRESAS);
+
+        // Then
+        assertThat(numeros).containsExactly("E2", "E3", "E4");
+        assertThat(index.primerosEnEspera(QueueType.EMPRESAS, 2))
+            .extracting(ActiveTicketResponse::numero, ActiveTicketResponse::positionInQueue)
+            .containsExactly(tuple("E2", 1), tuple("E3", 2));
+        assertThat(activos).hasSize(50);
+        assertThat(activos.get(0).status()).isEqualTo(TicketStatus.CALLED);
+    }
+
+    @Test
+    @DisplayName("rank lookups should count waiting tickets ahead of any queue_seq, present or not")
+    void rango_shouldCountWaitingTicketsAheadOfAnySeq() {
+        // Given
+        for (long seq = 1; seq <= 50; seq++) {
+            index.registrarEncolado(ticket(QueueType.EMPRESAS, seq, "E" + seq));
+        }
+        index.registrarSalida(ticket(QueueType.EMPRESAS, 1, "E1"));
+        index.registrarLlamado(ticket(QueueType.EMPRESAS, 10, "E10"));
+
+        // When / Then: un queue_seq que ya salió de la espera se ubica igual
+        assertThat(index.contarAdelante(QueueType.EMPRESAS, 1)).isZero();
+        assertThat(index.contarAdelante(QueueType.EMPRESAS, 10)).isEqualTo(8);
+        assertThat(index.contarAdelante(QueueType.EMPRESAS, 11)).isEqualTo(8);
+        assertThat(index.contarAdelante(QueueType.EMPRESAS, 1000)).isEqualTo(48);
+        assertThat(index.contarAdelante(QueueType.PERSONAL, 1000)).isZero();
+        assertThat(index.numerosAdelante(QueueType.EMPRESAS, 3, 10)).containsExactly("E2");
+    }
+
+    @Test
+    @DisplayName("a ticket left waiting far behind the tail should still be counted ahead")
+    void contarAdelante_shouldCountStaleTicketsOutsideTheWindow() {
+        // Given: un ticket olvidado en espera y la cola avanzando mucho más allá
+        index.registrarEncolado(ticket(QueueType.CAJA, 1, "C1"));
+        long cola = 1L + LiveQueueIndex.VENTANA_MAXIMA * 4L;
+        for (long seq = cola; seq < cola + 10; seq++) {
+            index.registrarEncolado(ticket(QueueType.CAJA, seq, "C" + seq));
+        }
+
+        // When
+        index.registrarLlamado(ticket(QueueType.CAJA, cola, "C" + cola));
+
+        // Then
+        assertThat(index.contarAdelante(QueueType.CAJA, cola + 5)).isEqualTo(5);
+        assertThat(index.contarAdelante(QueueType.CAJA, 2)).isEqualTo(1);
+        assertThat(index.primerosEnEspera(QueueType.CAJA, 2))
+            .extracting(ActiveTicketResponse::numero)
+            .containsExactly("C1", "C" + (cola + 1));
+    }
+
+    @Test
+    @DisplayName("cargar should keep updates committed while the database snapshot was read")
+    void cargar_shouldReplayUpdatesReceivedDuringLoad() {
+        // Given: la lectura de la BD no ve un alta commiteada mientras se ejecutaba
+        index.registrarEncolado(ticket(QueueType.CAJA, 1, "C1"));
+        when(ticketRepository.findActiveSnapshots()).thenAnswer(invocation -> {
+            index.registrarEncolado(ticket(QueueType.CAJA, 2, "C2"));
+            return List.of();
+        });
+
+        // When
+        index.cargar();
+
+        // Then: la lectura reemplaza C1 y el alta diferida se reaplica
+        assertThat(index.activos(QueueType.CAJA))
+            .extracting(ActiveTicketResponse::numero)
+            .containsExactly("C2");
+        assertThat(index.contarAdelante(QueueType.CAJA, 3)).isEqualTo(1);
+    }
+
+    private static Ticket ticket(QueueType queueType, long seq, String numero) {
+        return Ticket.builder()
+            .id(seq)
+            .numero(numero)
+            .queueType(queueType)
+            .queueSeq(seq)
+            .serviceDate(LocalDate.now())
+            .status(TicketStatus.WAITING)
+            .build();
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.ticketero.service;
+
+import com.example.ticketero.model.dto.ActiveTicketResponse;
+import com.example.ticketero.model.dto.QueueConfigSnapshot;
+import com.example.ticketero.model.enums.QueueType;
+import com.example.ticketero.model.enums.TicketStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for MultiQueueScheduler.
+ * Verifies priority-weighted shares and aging of long-waiting queues.
+ */
+@ExtendWith(MockitoExtension.class)
+class MultiQueueSchedulerTest {
+
+    @Mock
+    private LiveQueueIndex liveQueueIndex;
+
+    @Mock
+    private QueueConfigCache queueConfigCache;
+
+    private MultiQueueScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new MultiQueueScheduler(liveQueueIndex, queueConfigCache, 10);
+        when(liveQueueIndex.isCargado()).thenReturn(true);
+    }
+
+    @Test
+    @DisplayName("ordenar should split dispatches in proportion to priority weights")
+    void ordenar_shouldShareByPriority() {
+        // Given: CAJA priority 1 (peso 1), PERSONAL priority 2 (peso 0.5), ambas con espera reciente
+        configurar(QueueType.CAJA, 1, LocalDateTime.now());
+        configurar(QueueType.PERSONAL, 2, LocalDateTime.now());
+        Set<QueueType> colas = EnumSet.of(QueueType.CAJA, QueueType.PERSONAL);
+
+        // When
+        Map<QueueType, Integer> despachos = new EnumMap<>(QueueType.class);
+        for (int i = 0; i < 30; i++) {
+            List<MultiQueueScheduler.Candidata> candidatas = scheduler.ordenar(colas);
+            QueueType elegida = candidatas.get(0).queueType();
+            scheduler.registrarDespacho(elegida, candidatas);
+            despachos.merge(elegida, 1, Integer::sum);
+        }
+
+        // Then
+        assertThat(despachos.get(QueueType.CAJA)).isEqualTo(20);
+        assertThat(despachos.get(QueueType.PERSONAL)).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("ordenar should favor a low-priority queue whose head has waited long, and skip empty queues")
+    void ordenar_shouldAgeWaitingQueues() {
+        // Given: GERENCIA priority 4 con un ticket esperando 60 min; CAJA priority 1 recién llegado
+        configurar(QueueType.CAJA, 1, LocalDateTime.now());
+        configurar(QueueType.GERENCIA, 4, LocalDateTime.now().minusMinutes(60));
+        when(queueConfigCache.buscar(QueueType.EMPRESAS)).thenReturn(Optional.of(config(QueueType.EMPRESAS, 1)));
+        when(liveQueueIndex.primerosEnEspera(eq(QueueType.EMPRESAS), any(Integer.class))).thenReturn(List.of());
+
+        // When
+        List<MultiQueueScheduler.Candidata> candidatas =
+            scheduler.ordenar(EnumSet.of(QueueType.CAJA, QueueType.EMPRESAS, QueueType.GERENCIA));
+
+        // Then: peso GERENCIA = 0.25 × (1 + 60/10) = 1.75 > CAJA = 1
+        assertThat(candidatas).extracting(MultiQueueScheduler.Candidata::queueType)
+            .containsExactly(QueueType.GERENCIA, QueueType.CAJA);
+    }
+
+    private void configurar(QueueType queueType, int priority, LocalDateTime llegada) {
+        when(queueConfigCache.buscar(queueType)).thenReturn(Optional.of(config(queueType, priority)));
+        when(liveQueueIndex.primerosEnEspera(eq(queueType), any(Integer.class))).thenReturn(List.of(
+            new ActiveTicketResponse(1L, "X1", queueType, TicketStatus.WAITING, 1L, 1, null,
+                llegada.toLocalDate(), llegada, null)));
+    }
+
+    private static QueueConfigSnapshot config(QueueType queueType, int priority) {
+        return new QueueConfigSnapshot(queueType, queueType.name(), 5, 3, priority, null, true);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.ticketero.service;
+
+import com.example.ticketero.model.entity.TicketNumberDay;
+import com.example.ticketero.model.enums.QueueType;
+import com.example.ticketero.repository.TicketNumberDayRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for TicketNumberAllocator.
+ * Verifies hi/lo block arithmetic and that the sequence is hit once per block.
+ */
+@ExtendWith(MockitoExtension.class)
+class TicketNumberAllocatorTest {
+
+    @Mock
+    private TicketNumberDayRepository ticketNumberDayRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private static final LocalDate HOY = LocalDate.now();
+    private static final LocalDate AYER = HOY.minusDays(1);
+
+    private TicketNumberAllocator allocator;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        allocator = new TicketNumberAllocator(ticketNumberDayRepository, transactionManager, 20);
+    }
+
+    @Test
+    @DisplayName("asignarNumero should hand out a whole block per sequence call")
+    void asignarNumero_shouldUseOneSequenceCallPerBlock() {
+        // Given
+        when(ticketNumberDayRepository.findDiaVigente(QueueType.CAJA)).thenReturn(dia(QueueType.CAJA, HOY));
+        when(ticketNumberDayRepository.siguienteBloque("ticket_number_caja_seq")).thenReturn(1L, 2L);
+
+        // When
+        List<String> numeros = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            numeros.add(allocator.asignarNumero(QueueType.CAJA).numero());
+        }
+
+        // Then
+        assertThat(numeros.get(0)).isEqualTo("C001");
+        assertThat(numeros.get(19)).isEqualTo("C020");
+        assertThat(numeros.get(20)).isEqualTo("C021");
+        assertThat(numeros).doesNotHaveDuplicates();
+        verify(ticketNumberDayRepository, times(2)).siguienteBloque("ticket_number_caja_seq");
+    }
+
+    @Test
+    @DisplayName("asignarNumero should reset the sequence only when this instance advances the day")
+    void asignarNumero_shouldResetSequenceOnDayRollover() {
+        // Given
+        when(ticketNumberDayRepository.findDiaVigente(QueueType.GERENCIA))
+            .thenReturn(dia(QueueType.GERENCIA, AYER), dia(QueueType.GERENCIA, HOY));
+        when(ticketNumberDayRepository.findDiaVigente(QueueType.PERSONAL))
+            .thenReturn(dia(QueueType.PERSONAL, AYER), dia(QueueType.PERSONAL, HOY));
+        when(ticketNumberDayRepository.avanzarDia(eq("GERENCIA"), any())).thenReturn(1);
+        when(ticketNumberDayRepository.avanzarDia(eq("PERSONAL"), any())).thenReturn(0);
+        when(ticketNumberDayRepository.siguienteBloque(anyString())).thenReturn(1L);
+
+        // When
+        allocator.asignarNumero(QueueType.GERENCIA);
+        allocator.asignarNumero(QueueType.PERSONAL);
+
+        // Then
+        verify(ticketNumberDayRepository).reiniciarSecuencia("ticket_number_gerencia_seq");
+        verify(ticketNumberDayRepository, never()).reiniciarSecuencia("ticket_number_personal_seq");
+    }
+
+    @Test
+    @DisplayName("asignarNumero should number a new block with the stored day once another instance advanced it")
+    void asignarNumero_shouldUseStoredDayWhenAlreadyAdvanced() {
+        // Given: el primer bloque es de hoy; antes del segundo otra instancia
+        // (con el reloj adelantado) ya avanzó el día y reinició la secuencia
+        LocalDate manana = HOY.plusDays(1);
+        when(ticketNumberDayRepository.findDiaVigente(QueueType.EMPRESAS))
+            .thenReturn(dia(QueueType.EMPRESAS, HOY), dia(QueueType.EMPRESAS, manana));
+        when(ticketNumberDayRepository.siguienteBloque("ticket_number_empresas_seq")).thenReturn(5L, 1L);
+
+        // When
+        List<TicketNumberAllocator.NumeroAsignado> asignados = new ArrayList<>();
+        for (int i = 0; i < 21; i++) {
+            asignados.add(allocator.asignarNumero(QueueType.EMPRESAS));
+        }
+
+        // Then
+        assertThat(asignados.get(19)).isEqualTo(new TicketNumberAllocator.NumeroAsignado("E100", HOY));
+        assertThat(asignados.get(20)).isEqualTo(new TicketNumberAllocator.NumeroAsignado("E001", manana));
+        verify(ticketNumberDayRepository, never()).avanzarDia(anyString(), any());
+        verify(ticketNumberDayRepository, never()).reiniciarSecuencia(anyString());
+    }
+
+    private static TicketNumberDay dia(QueueType queueType, LocalDate fecha) {
+        return new TicketNumberDay(queueType, fecha);
+    }
+}
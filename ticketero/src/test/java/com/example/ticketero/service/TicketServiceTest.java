@@ -1,5 +1,8 @@
 package com.example.ticketero.service;
 
+import com.example.ticketero.config.TicketQueueTopology;
+import com.example.ticketero.model.dto.TicketBatchCreateRequest;
+import com.example.ticketero.model.dto.TicketBatchResponse;
 import com.example.ticketero.model.dto.TicketCreateRequest;
 import com.example.ticketero.model.dto.TicketResponse;
 import com.example.ticketero.model.entity.Ticket;
@@ -8,6 +11,8 @@ import com.example.ticketero.model.enums.TicketStatus;
 import com.example.ticketero.repository.OutboxMessageRepository;
 import com.example.ticketero.repository.TicketRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -17,10 +22,13 @@ import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -46,9 +54,27 @@ class TicketServiceTest {
     @Mock
     private MetricsService metricsService;
 
+    @Mock
+    private TicketNumberAllocator ticketNumberAllocator;
+
+    @Mock
+    private LiveQueueIndex liveQueueIndex;
+
+    @Mock
+    private WaitTimeEstimator waitTimeEstimator;
+
+    @Mock
+    private AdvisorPullDispatcher pullDispatcher;
+
+    @Mock
+    private TicketQueueTopology ticketQueueTopology;
+
     @Spy
     private ObjectMapper objectMapper = new ObjectMapper();
 
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
     @InjectMocks
     private TicketService ticketService;
 
@@ -82,8 +108,11 @@ class TicketServiceTest {
     @DisplayName("crearTicket should calculate position and estimated time")
     void crearTicket_shouldCalculatePositionAndTime() {
         // Given
-        when(queueManagementService.calcularPosicionEnCola(QueueType.CAJA)).thenReturn(1);
-        when(queueManagementService.calcularTiempoEstimado(QueueType.CAJA, 1)).thenReturn(5);
+        when(queueManagementService.asignarPosicionEnCola(QueueType.CAJA))
+                .thenReturn(new QueueManagementService.ReservaCola(1L, 1));
+        when(waitTimeEstimator.estimarEsperaMinutos(QueueType.CAJA, 1)).thenReturn(5);
+        when(ticketNumberAllocator.asignarNumero(QueueType.CAJA))
+                .thenReturn(new TicketNumberAllocator.NumeroAsignado("C001", LocalDate.now()));
         when(ticketRepository.saveAndFlush(any(Ticket.class))).thenReturn(ticket);
 
         // When
@@ -97,8 +126,8 @@ class TicketServiceTest {
         assertThat(response.status()).isEqualTo(TicketStatus.WAITING);
 
         // Verify interactions
-        verify(queueManagementService).calcularPosicionEnCola(QueueType.CAJA);
-        verify(queueManagementService).calcularTiempoEstimado(QueueType.CAJA, 1);
+        verify(queueManagementService).asignarPosicionEnCola(QueueType.CAJA);
+        verify(waitTimeEstimator).estimarEsperaMinutos(QueueType.CAJA, 1);
         verify(ticketRepository).saveAndFlush(any(Ticket.class));
         verify(outboxMessageRepository).save(any());
         verify(notificationService).notificarTicketCreado(any(Ticket.class));
@@ -109,8 +138,11 @@ class TicketServiceTest {
     @DisplayName("crearTicket should save message to outbox for reliable messaging")
     void crearTicket_shouldSaveToOutbox() {
         // Given
-        when(queueManagementService.calcularPosicionEnCola(QueueType.PERSONAL)).thenReturn(3);
-        when(queueManagementService.calcularTiempoEstimado(QueueType.PERSONAL, 3)).thenReturn(15);
+        when(queueManagementService.asignarPosicionEnCola(QueueType.PERSONAL))
+                .thenReturn(new QueueManagementService.ReservaCola(10L, 3));
+        when(waitTimeEstimator.estimarEsperaMinutos(QueueType.PERSONAL, 3)).thenReturn(15);
+        when(ticketNumberAllocator.asignarNumero(QueueType.PERSONAL))
+                .thenReturn(new TicketNumberAllocator.NumeroAsignado("P002", LocalDate.now()));
 
         Ticket personalTicket = Ticket.builder()
                 .id(2L)
@@ -144,4 +176,45 @@ class TicketServiceTest {
         // Verify outbox pattern: message saved to outbox table
         verify(outboxMessageRepository).save(any());
     }
+
+    @Test
+    @DisplayName("crearTicketsEnLote should reserve positions once per queue and report invalid items")
+    void crearTicketsEnLote_shouldReservePositionsPerQueueAndRejectInvalidItems() {
+        // Given
+        when(queueManagementService.asignarPosicionesEnCola(QueueType.CAJA, 2))
+                .thenReturn(new QueueManagementService.ReservaCola(20L, 4));
+        when(waitTimeEstimator.estimarEsperaMinutos(QueueType.CAJA, 4)).thenReturn(15);
+        when(waitTimeEstimator.estimarEsperaMinutos(QueueType.CAJA, 5)).thenReturn(20);
+        when(ticketNumberAllocator.asignarNumero(QueueType.CAJA))
+                .thenReturn(new TicketNumberAllocator.NumeroAsignado("C010", LocalDate.now()),
+                        new TicketNumberAllocator.NumeroAsignado("C011", LocalDate.now()));
+
+        TicketBatchCreateRequest batch = new TicketBatchCreateRequest(List.of(
+                request,
+                new TicketCreateRequest("abc", null, "Sucursal Centro", QueueType.CAJA),
+                new TicketCreateRequest("87654321", null, "Sucursal Norte", QueueType.CAJA)
+        ));
+
+        // When
+        TicketBatchResponse response = ticketService.crearTicketsEnLote(batch);
+
+        // Then
+        assertThat(response.creados()).isEqualTo(2);
+        assertThat(response.rechazados()).isEqualTo(1);
+        assertThat(response.resultados()).extracting(TicketBatchResponse.ItemResult::index)
+                .containsExactly(0, 1, 2);
+        assertThat(response.resultados().get(0).ticket().positionInQueue()).isEqualTo(4);
+        assertThat(response.resultados().get(0).ticket().estimatedWaitMinutes()).isEqualTo(15);
+        assertThat(response.resultados().get(1).error()).contains("nationalId");
+        assertThat(response.resultados().get(2).ticket().positionInQueue()).isEqualTo(5);
+        assertThat(response.resultados().get(2).ticket().estimatedWaitMinutes()).isEqualTo(20);
+
+        // Verify: one position reservation and batched inserts
+        verify(queueManagementService).asignarPosicionesEnCola(QueueType.CAJA, 2);
+        verify(waitTimeEstimator).estimarEsperaMinutos(QueueType.CAJA, 4);
+        verify(waitTimeEstimator).estimarEsperaMinutos(QueueType.CAJA, 5);
+        verify(ticketRepository).saveAll(anyList());
+        verify(outboxMessageRepository).saveAll(anyList());
+        verify(metricsService).incrementTicketsCreated(QueueType.CAJA, 2);
+    }
 }
@@ -0,0 +1,109 @@
+package com.example.ticketero.service;
+
+import com.example.ticketero.model.dto.QueueConfigSnapshot;
+import com.example.ticketero.model.entity.Advisor;
+import com.example.ticketero.model.enums.AdvisorStatus;
+import com.example.ticketero.model.enums.QueueType;
+import com.example.ticketero.repository.AdvisorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for WaitTimeEstimator.
+ * Verifies the EWMA update, its time scale, re-seeding on config changes
+ * and scaling by active advisors.
+ */
+@ExtendWith(MockitoExtension.class)
+class WaitTimeEstimatorTest {
+
+    @Mock
+    private QueueConfigCache queueConfigCache;
+
+    @Mock
+    private AdvisorRepository advisorRepository;
+
+    private WaitTimeEstimator estimator;
+
+    private int minutosCaja = 10;
+
+    @BeforeEach
+    void setUp() {
+        when(queueConfigCache.buscar(any(QueueType.class))).thenAnswer(inv ->
+            inv.getArgument(0) == QueueType.CAJA
+                ? Optional.of(new QueueConfigSnapshot(QueueType.CAJA, "Caja", minutosCaja, 3, 1, null, true))
+                : Optional.empty());
+        when(advisorRepository.findAll()).thenReturn(List.of(
+            asesor(1L, AdvisorStatus.AVAILABLE, QueueType.CAJA),
+            asesor(2L, AdvisorStatus.BUSY, QueueType.CAJA),
+            asesor(3L, AdvisorStatus.OFFLINE, QueueType.CAJA)));
+
+        estimator = new WaitTimeEstimator(queueConfigCache, advisorRepository, 0.5, 60);
+        estimator.cargar();
+    }
+
+    @Test
+    @DisplayName("estimarEsperaMinutos should divide the queue ahead among active advisors")
+    void estimarEspera_shouldScaleWithActiveAdvisors() {
+        assertThat(estimator.contarAsesoresActivos(QueueType.CAJA)).isEqualTo(2);
+        assertThat(estimator.estimarEsperaMinutos(QueueType.CAJA, 1)).isZero();
+        assertThat(estimator.estimarEsperaMinutos(QueueType.CAJA, 5)).isEqualTo(20);
+
+        // Un asesor sale a descanso: la espera se duplica
+        estimator.registrarEstadoAsesor(asesor(2L, AdvisorStatus.BREAK, QueueType.CAJA));
+
+        assertThat(estimator.contarAsesoresActivos(QueueType.CAJA)).isEqualTo(1);
+        assertThat(estimator.estimarEsperaMinutos(QueueType.CAJA, 5)).isEqualTo(40);
+    }
+
+    @Test
+    @DisplayName("registrarAtencion should move the service time towards observed durations")
+    void registrarAtencion_shouldUpdateEwma() {
+        LocalDateTime inicio = LocalDateTime.now();
+
+        // EWMA(alpha=0.5): 10 → 6 → 4 minutos
+        estimator.registrarAtencion(QueueType.CAJA, inicio, inicio.plusMinutes(2));
+        assertThat(estimator.tiempoServicioMinutos(QueueType.CAJA)).isEqualTo(6);
+
+        estimator.registrarAtencion(QueueType.CAJA, inicio, inicio.plusMinutes(2));
+        assertThat(estimator.tiempoServicioMinutos(QueueType.CAJA)).isEqualTo(4);
+        assertThat(estimator.estimarEsperaMinutos(QueueType.CAJA, 3)).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("registrarAtencion should rescale accelerated durations and restart from a new config")
+    void registrarAtencion_shouldUseConfigTimeScale() {
+        // Given: atenciones aceleradas 60x (1 segundo por minuto configurado)
+        WaitTimeEstimator acelerado = new WaitTimeEstimator(queueConfigCache, advisorRepository, 0.5, 1);
+        acelerado.cargar();
+        LocalDateTime inicio = LocalDateTime.now();
+
+        // When: una atención de 2 segundos = 2 minutos configurados
+        acelerado.registrarAtencion(QueueType.CAJA, inicio, inicio.plusSeconds(2));
+
+        // Then: EWMA(alpha=0.5) 10 → 6 minutos
+        assertThat(acelerado.tiempoServicioMinutos(QueueType.CAJA)).isEqualTo(6);
+
+        // When: se cambia avgServiceTimeMinutes
+        minutosCaja = 20;
+
+        // Then: el EWMA vuelve a partir de la configuración
+        assertThat(acelerado.tiempoServicioMinutos(QueueType.CAJA)).isEqualTo(20);
+    }
+
+    private static Advisor asesor(Long id, AdvisorStatus status, QueueType queueType) {
+        return Advisor.builder().id(id).status(status).queueTypes(EnumSet.of(queueType)).build();
+    }
+}